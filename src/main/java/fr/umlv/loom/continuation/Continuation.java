@@ -2,64 +2,301 @@ package fr.umlv.loom.continuation;
 
 import fr.umlv.loom.executor.UnsafeExecutors;
 
-import java.util.concurrent.locks.Condition;
-import java.util.concurrent.locks.ReentrantLock;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.ArrayDeque;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.LockSupport;
 
+/**
+ * A continuation emulated with a virtual thread scheduled on the thread that calls {@link #run()}, its runner.
+ * <p>
+ * {@link #yield()} parks the virtual thread, so it unmounts and {@link #run()} returns,
+ * {@link #run()} unparks the virtual thread, its scheduler runs it inline on the runner thread
+ * until the next {@link #yield()}, there is no lock and no thread switch, a round trip is a park and an unpark.
+ * <p>
+ * The handoff is strict, {@link #run()} returns only when the continuation has yielded or is terminated.
+ * If the continuation blocks for another reason, by example on a sleep or an I/O,
+ * the runner thread waits and runs the continuation when it is unblocked.
+ * If the runner is itself a virtual thread, the continuation runs on a platform thread
+ * and the runner parks until the next {@link #yield()}.
+ * <p>
+ * A continuation can be run by any thread, so it can migrate from one worker thread to another.
+ * A thread that calls {@link #run()} claims the continuation, if another thread is running it,
+ * it waits until the continuation has yielded and is released by the other thread.
+ */
 public class Continuation {
-  private enum State { NEW, RUNNING, WAITED, TERMINATED }
+  // YIELDING: the continuation has yielded but is not yet released by its runner
+  private enum State { NEW, RUNNING, YIELDING, WAITED, TERMINATED }
 
   private static final ScopedValue<Continuation> CONTINUATION_SCOPE_LOCAL = ScopedValue.newInstance();
 
-  private final Runnable runnable;
-  private final Thread owner;
-  private State state = State.NEW;
-  private final ReentrantLock lock = new ReentrantLock();
-  private final Condition condition = lock.newCondition();
+  // a virtual thread can not be the carrier of another virtual thread
+  private static final Executor VIRTUAL_RUNNER_CARRIERS =
+      Executors.newCachedThreadPool(Thread.ofPlatform().daemon().name("continuation-carrier-", 0).factory());
+
+  private static final VarHandle RUNNER, WORKER_CONTINUATION;
+  static {
+    var lookup = MethodHandles.lookup();
+    try {
+      RUNNER = lookup.findVarHandle(Continuation.class, "runner", Thread.class);
+      WORKER_CONTINUATION = lookup.findVarHandle(Worker.class, "continuation", Continuation.class);
+    } catch (NoSuchFieldException | IllegalAccessException e) {
+      throw new AssertionError(e);
+    }
+  }
+
+  private static final int POOL_SIZE = 64;
+  private static final long IDLE_TIMEOUT = 1_000_000_000L;  // 1s
+  private static final ThreadLocal<ArrayDeque<Worker>> POOL = ThreadLocal.withInitial(ArrayDeque::new);
+
+  // the continuation of a pooled worker that has stopped after being idle for too long
+  private static final Continuation RETIRED = new Continuation(() -> {});
+
+  // the virtual thread that runs the body of a continuation, if pooled,
+  // it runs the bodies of several continuations one after the other
+  // and stops if it is not reused during IDLE_TIMEOUT
+  private static final class Worker {
+    private final Thread thread;
+    private final boolean pooled;
+    private boolean started;  // only accessed by the runners
+    private volatile Continuation continuation;  // null if the worker is idle, RETIRED if it has stopped
+
+    private Worker(boolean pooled) {
+      this.pooled = pooled;
+      this.thread = UnsafeExecutors.configureBuilderExecutor(Thread.ofVirtual(), this::schedule).unstarted(this::loop);
+    }
+
+    private void schedule(Runnable task) {
+      var continuation = this.continuation;
+      if (continuation == null || continuation == RETIRED) {  // an idle worker unparked by its timeout
+        VIRTUAL_RUNNER_CARRIERS.execute(task);
+        return;
+      }
+      continuation.schedule(task);
+    }
+
+    private boolean isRetired() {
+      return continuation == RETIRED;
+    }
+
+    private void loop() {
+      var idleStart = 0L;
+      for(;;) {
+        var continuation = this.continuation;
+        if (continuation == null) {
+          LockSupport.parkNanos(this, IDLE_TIMEOUT);
+          Thread.interrupted();  // an idle worker is not interruptible
+          if (System.nanoTime() - idleStart >= IDLE_TIMEOUT && WORKER_CONTINUATION.compareAndSet(this, null, RETIRED)) {
+            return;  // the worker stays in the pool of its runner until it is discarded
+          }
+          continue;
+        }
+        try {
+          ScopedValue.runWhere(CONTINUATION_SCOPE_LOCAL, continuation, continuation.body);
+        } catch (RuntimeException | Error e) {
+          thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+        }
+        idleStart = System.nanoTime();
+        this.continuation = null;
+        Thread.interrupted();  // do not leak the interrupt status to the next body
+        continuation.state = State.TERMINATED;
+        continuation.wakeUpRunner();
+        if (!pooled) {
+          return;
+        }
+      }
+    }
+  }
+
+  private final Runnable body;
+  private final boolean pooled;
+  private Worker worker;  // null if the continuation is not started or is terminated
+  private volatile State state = State.NEW;
+  private volatile Thread runner;  // null if the continuation is not claimed
+  private volatile Runnable pending;  // a continuation unblocked by another thread, waiting for the runner
 
   public Continuation(Runnable runnable) {
-    this.runnable = runnable;
-    this.owner = Thread.currentThread();
+    this(runnable, false);
   }
 
-  public void run() {
-    if (Thread.currentThread() != owner) {
-      throw new IllegalStateException();
+  private Continuation(Runnable runnable, boolean pooled) {
+    this.body = Objects.requireNonNull(runnable);
+    this.pooled = pooled;
+  }
+
+  /**
+   * Creates a continuation which runs on a recycled virtual thread, when a pooled continuation terminates,
+   * its virtual thread is kept by the runner thread to run the next pooled continuation.
+   * Like with a continuation implemented by the VM, the values of the thread locals set by the body
+   * are seen by the next bodies run by the same virtual thread.
+   * A recycled virtual thread that is not reused for one second terminates.
+   * @param runnable the body of the continuation.
+   * @return a new pooled continuation.
+   */
+  public static Continuation pooled(Runnable runnable) {
+    return new Continuation(runnable, true);
+  }
+
+  private static Worker pollIdleWorker(Continuation continuation) {
+    var pool = POOL.get();
+    Worker worker;
+    while ((worker = pool.poll()) != null) {
+      if (WORKER_CONTINUATION.compareAndSet(worker, null, continuation)) {
+        return worker;
+      }
+      // the worker has stopped after its idle timeout
+    }
+    return null;
+  }
+
+  private void start() {
+    var worker = pooled ? pollIdleWorker(this) : null;
+    if (worker == null) {
+      worker = new Worker(pooled);
+      worker.continuation = this;
+    }
+    this.worker = worker;
+    if (worker.started) {
+      LockSupport.unpark(worker.thread);
+      return;
+    }
+    worker.started = true;
+    worker.thread.start();
+  }
+
+  private void release() {
+    var worker = this.worker;
+    this.worker = null;
+    if (worker.pooled) {
+      var pool = POOL.get();
+      if (pool.size() == POOL_SIZE) {
+        pool.removeIf(Worker::isRetired);
+      }
+      if (pool.size() < POOL_SIZE) {
+        pool.push(worker);
+      }
+    }
+  }
+
+  // a runner that runs the continuation inline is not parked
+  private void wakeUpRunner() {
+    var runner = this.runner;
+    if (UnsafeExecutors.currentCarrierThread() != runner) {
+      LockSupport.unpark(runner);
+    }
+  }
+
+  private static void runOn(Thread runner, Runnable task) {
+    if (runner.isVirtual()) {
+      VIRTUAL_RUNNER_CARRIERS.execute(task);
+      return;
+    }
+    task.run();
+  }
+
+  // the scheduler of the virtual thread, the continuation runs on the runner thread
+  private void schedule(Runnable task) {
+    var runner = this.runner;
+    if (Thread.currentThread() == runner) {
+      runOn(runner, task);
+      return;
+    }
+    pending = task;
+    if (runner != null) {  // otherwise the next runner will run the task
+      LockSupport.unpark(runner);
+    }
+  }
+
+  private void claim(Thread current) {
+    var worker = this.worker;
+    if (worker != null && current == worker.thread) {
+      throw new IllegalStateException("a continuation can not run itself");
+    }
+    for (var spins = 0; !RUNNER.compareAndSet(this, null, current); spins++) {
+      if (spins < 100) {
+        Thread.onSpinWait();
+      } else if (spins < 200) {
+        Thread.yield();
+      } else {
+        LockSupport.parkNanos(10_000);
+      }
     }
+  }
+
+  public void run() {
+    var current = Thread.currentThread();
+    claim(current);
     switch (state) {
       case NEW -> {
         state = State.RUNNING;
-        var executor = UnsafeExecutors.virtualThreadExecutor(Runnable::run);
-        executor.execute(() -> {
-          ScopedValue.runWhere(CONTINUATION_SCOPE_LOCAL, this, runnable);
-          state = State.TERMINATED;
-        });
+        start();
       }
       case WAITED -> {
         state = State.RUNNING;
-        lock.lock();
-        try {
-          condition.signal();
-        } finally {
-          lock.unlock();
+        LockSupport.unpark(worker.thread);
+      }
+      case TERMINATED -> {
+        runner = null;
+        throw new IllegalStateException();
+      }
+      case RUNNING, YIELDING -> throw new AssertionError();
+    }
+    for(;;) {
+      switch (state) {
+        case YIELDING -> {
+          state = State.WAITED;
+          runner = null;
+          return;
+        }
+        case TERMINATED -> {
+          release();
+          runner = null;
+          return;
+        }
+        default -> {
+          // the continuation is blocked but has not yielded, wait until it is unblocked
+          var task = pending;
+          if (task == null) {
+            LockSupport.park(this);
+            continue;
+          }
+          pending = null;
+          runOn(current, task);
         }
       }
-      case RUNNING, TERMINATED -> throw new IllegalStateException();
     }
   }
 
+  public boolean isDone() {
+    return state == State.TERMINATED;
+  }
+
+  static Continuation current() {
+    return CONTINUATION_SCOPE_LOCAL.isBound() ? CONTINUATION_SCOPE_LOCAL.get() : null;
+  }
+
   public static void yield() {
     if (!CONTINUATION_SCOPE_LOCAL.isBound()) {
       throw new IllegalStateException();
     }
     var continuation = CONTINUATION_SCOPE_LOCAL.get();
-    continuation.lock.lock();
-    try {
-      continuation.state = State.WAITED;
-      continuation.condition.await();
-    } catch (InterruptedException e) {
+    if (Thread.currentThread() != continuation.worker.thread) {  // a thread that inherits the scoped value
+      throw new IllegalStateException();
+    }
+    continuation.state = State.YIELDING;
+    continuation.wakeUpRunner();
+    var interrupted = false;
+    while (continuation.state != State.RUNNING) {
+      LockSupport.park(continuation);
+      if (Thread.interrupted()) {  // only run() can resume the continuation
+        interrupted = true;
+      }
+    }
+    if (interrupted) {
       Thread.currentThread().interrupt();
-    } finally {
-      continuation.lock.unlock();
     }
   }
 }
@@ -0,0 +1,80 @@
+package fr.umlv.loom.continuation;
+
+import java.util.Objects;
+import java.util.function.BiFunction;
+
+/**
+ * A coroutine that exchanges values with the thread that drives it,
+ * {@link #execute(Object)} sends a value and returns the value of the next {@link Yielder#yield(Object)},
+ * {@link Yielder#yield(Object)} returns the value of the next {@link #execute(Object)}.
+ * <pre>
+ *   var parser = new EventContinuation&lt;String, Request&gt;((yielder, line) -&gt; {
+ *     for(;;) {
+ *       var requestLine = line;
+ *       var headers = new ArrayList&lt;String&gt;();
+ *       while (!(line = yielder.yield(null)).isEmpty()) {
+ *         headers.add(line);
+ *       }
+ *       line = yielder.yield(new Request(requestLine, headers));
+ *     }
+ *   });
+ * </pre>
+ * The values are stored in fields of the coroutine and handed over by the {@link Continuation},
+ * so there is no queue and no allocation.
+ * The first {@link #execute(Object)} starts the coroutine with its value as parameter,
+ * the value returned by the coroutine is the result of the last {@link #execute(Object)}.
+ * An exception raised by the coroutine is propagated to the caller of {@link #execute(Object)}.
+ *
+ * @param <P> type of the values sent to the coroutine.
+ * @param <R> type of the values sent back by the coroutine.
+ */
+public class EventContinuation<P,R> {
+  private final Continuation continuation;
+  private P parameter;
+  private R yieldValue;
+  private Throwable failure;
+
+  public interface Yielder<P,R> {
+    P yield(R yieldValue);
+  }
+
+  public EventContinuation(BiFunction<Yielder<? extends P, ? super R>, ? super P, ? extends R> consumer) {
+    Objects.requireNonNull(consumer);
+    Yielder<P, R> yielder = yieldValue -> {
+      this.yieldValue = yieldValue;
+      Continuation.yield();
+      var parameter = this.parameter;
+      this.parameter = null;
+      return parameter;
+    };
+    continuation = new Continuation(() -> {
+      var parameter = this.parameter;
+      this.parameter = null;
+      try {
+        this.yieldValue = consumer.apply(yielder, parameter);
+      } catch (RuntimeException | Error e) {
+        failure = e;
+      }
+    });
+  }
+
+  public boolean isDone() {
+    return continuation.isDone();
+  }
+
+  public R execute(P parameter) {
+    this.parameter = parameter;
+    continuation.run();
+    var failure = this.failure;
+    if (failure != null) {
+      this.failure = null;
+      if (failure instanceof RuntimeException e) {
+        throw e;
+      }
+      throw (Error) failure;
+    }
+    var yieldValue = this.yieldValue;
+    this.yieldValue = null;
+    return yieldValue;
+  }
+}
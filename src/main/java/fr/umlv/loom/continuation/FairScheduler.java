@@ -0,0 +1,65 @@
+package fr.umlv.loom.continuation;
+
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.Objects;
+import java.util.PriorityQueue;
+
+/**
+ * A scheduler that runs the task that has run the least time first.
+ * A new task or a task that was suspended starts with the run time of the task that runs,
+ * so it does not run alone until it catches up with the others.
+ * The run queue is a {@link PriorityQueue}, registering and running a task are O(log n).
+ */
+public class FairScheduler implements Scheduler {
+  private record Entry(Continuation continuation, long runtime, long sequence) {}
+
+  private final PriorityQueue<Entry> schedulable =
+      new PriorityQueue<>(Comparator.comparingLong(Entry::runtime).thenComparingLong(Entry::sequence));
+  private final IdentityHashMap<Continuation, Long> runtimes = new IdentityHashMap<>();
+  private long sequence;
+  private long minRuntime;
+  private Continuation current;
+  private boolean currentRegistered;
+
+  private void add(Continuation continuation, long runtime) {
+    schedulable.add(new Entry(continuation, runtime, sequence++));
+  }
+
+  @Override
+  public void register(Continuation continuation) {
+    Objects.requireNonNull(continuation);
+    if (continuation == current) {  // the run time is known when the task stops
+      currentRegistered = true;
+      return;
+    }
+    add(continuation, Math.max(runtimes.getOrDefault(continuation, 0L), minRuntime));
+  }
+
+  @Override
+  public void loop() {
+    Entry entry;
+    while ((entry = schedulable.poll()) != null) {
+      var continuation = entry.continuation;
+      minRuntime = entry.runtime;
+      current = continuation;
+      var start = System.nanoTime();
+      try {
+        continuation.run();
+      } finally {
+        current = null;
+      }
+      var runtime = entry.runtime + System.nanoTime() - start;
+      if (continuation.isDone()) {
+        runtimes.remove(continuation);
+        currentRegistered = false;
+        continue;
+      }
+      runtimes.put(continuation, runtime);
+      if (currentRegistered) {
+        currentRegistered = false;
+        add(continuation, runtime);
+      }
+    }
+  }
+}
@@ -0,0 +1,26 @@
+package fr.umlv.loom.continuation;
+
+import java.util.ArrayDeque;
+import java.util.Objects;
+
+/**
+ * A scheduler that runs the tasks in the order of registration.
+ * The run queue is an {@link ArrayDeque}, registering and running a task are O(1).
+ */
+public class FifoScheduler implements Scheduler {
+  private final ArrayDeque<Continuation> schedulable = new ArrayDeque<>();
+
+  @Override
+  public void register(Continuation continuation) {
+    Objects.requireNonNull(continuation);
+    schedulable.add(continuation);
+  }
+
+  @Override
+  public void loop() {
+    Continuation continuation;
+    while ((continuation = schedulable.poll()) != null) {
+      continuation.run();
+    }
+  }
+}
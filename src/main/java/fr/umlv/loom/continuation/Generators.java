@@ -0,0 +1,186 @@
+package fr.umlv.loom.continuation;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Lazy iterators, spliterators and streams from a generator, a function that pushes the elements
+ * to a consumer, the generator runs in a {@link Continuation} that yields when the elements are requested.
+ * <pre>
+ *   var iterator = Generators.iterator(consumer -&gt; {
+ *     for(var line = reader.readLine(); line != null; line = reader.readLine()) {
+ *       consumer.accept(line);
+ *     }
+ *   });
+ * </pre>
+ * With a batch size greater than 1, the generator pushes the elements in a buffer and only yields when the buffer
+ * is full or when it ends, so the cost of a yield/run round trip is amortized on the whole batch.
+ * The elements are computed ahead of the consumption, at most batchSize elements.
+ * <p>
+ * The continuation is created at the first request of an element, the generator runs on the thread that
+ * requests an element until the next elements are pushed, so the elements can be consumed by different threads,
+ * by example by the workers of a {@link WorkStealingScheduler}, the generator migrates with the consumer.
+ * Like any iterator, the consumer threads must not request elements at the same time.
+ * An exception raised by the generator is propagated to the consumer, after the elements pushed before.
+ */
+public final class Generators {
+  private Generators() {
+    throw new AssertionError();
+  }
+
+  private static final class Generator<T> implements Iterator<T>, Spliterator<T> {
+    private final Consumer<Consumer<? super T>> generator;
+    private final Object[] buffer;
+    private int size;
+    private int index;
+    private Continuation continuation;
+    private Throwable failure;
+
+    private Generator(int batchSize, Consumer<Consumer<? super T>> generator) {
+      this.generator = generator;
+      this.buffer = new Object[batchSize];
+    }
+
+    private void generate() {
+      try {
+        generator.accept(this::push);
+      } catch (RuntimeException | Error e) {
+        failure = e;
+      }
+    }
+
+    private void push(T element) {
+      Objects.requireNonNull(element);
+      buffer[size++] = element;
+      if (size == buffer.length) {
+        Continuation.yield();
+      }
+    }
+
+    private void rethrow() {
+      var failure = this.failure;
+      if (failure == null) {
+        return;
+      }
+      this.failure = null;
+      if (failure instanceof RuntimeException e) {
+        throw e;
+      }
+      throw (Error) failure;
+    }
+
+    // returns true if the buffer contains elements
+    private boolean fill() {
+      if (index < size) {
+        return true;
+      }
+      if (continuation == null) {
+        continuation = new Continuation(this::generate);
+      } else if (continuation.isDone()) {
+        rethrow();
+        return false;
+      }
+      index = 0;
+      size = 0;
+      continuation.run();
+      if (size != 0) {
+        return true;
+      }
+      rethrow();
+      return false;
+    }
+
+    @SuppressWarnings("unchecked")
+    private T element() {
+      var element = (T) buffer[index];
+      buffer[index++] = null;
+      return element;
+    }
+
+    @Override
+    public boolean hasNext() {
+      return fill();
+    }
+
+    @Override
+    public T next() {
+      if (!fill()) {
+        throw new NoSuchElementException();
+      }
+      return element();
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super T> action) {
+      Objects.requireNonNull(action);
+      if (!fill()) {
+        return false;
+      }
+      action.accept(element());
+      return true;
+    }
+
+    @Override
+    public void forEachRemaining(Consumer<? super T> action) {
+      Objects.requireNonNull(action);
+      while (fill()) {
+        while (index < size) {
+          action.accept(element());
+        }
+      }
+    }
+
+    @Override
+    public Spliterator<T> trySplit() {
+      return null;
+    }
+
+    @Override
+    public long estimateSize() {
+      return Long.MAX_VALUE;
+    }
+
+    @Override
+    public int characteristics() {
+      return IMMUTABLE | NONNULL | ORDERED;
+    }
+  }
+
+  private static int checkBatchSize(int batchSize) {
+    if (batchSize <= 0) {
+      throw new IllegalArgumentException("batchSize <= 0");
+    }
+    return batchSize;
+  }
+
+  public static <T> Iterator<T> iterator(Consumer<Consumer<? super T>> generator) {
+    return iterator(1, generator);
+  }
+
+  public static <T> Iterator<T> iterator(int batchSize, Consumer<Consumer<? super T>> generator) {
+    Objects.requireNonNull(generator);
+    return new Generator<>(checkBatchSize(batchSize), generator);
+  }
+
+  public static <T> Spliterator<T> spliterator(Consumer<Consumer<? super T>> generator) {
+    return spliterator(1, generator);
+  }
+
+  public static <T> Spliterator<T> spliterator(int batchSize, Consumer<Consumer<? super T>> generator) {
+    Objects.requireNonNull(generator);
+    return new Generator<>(checkBatchSize(batchSize), generator);
+  }
+
+  public static <T> Stream<T> stream(Consumer<Consumer<? super T>> generator) {
+    return stream(1, generator);
+  }
+
+  public static <T> Stream<T> stream(int batchSize, Consumer<Consumer<? super T>> generator) {
+    return StreamSupport.stream(spliterator(batchSize, generator), false);
+  }
+}
@@ -0,0 +1,23 @@
+package fr.umlv.loom.continuation;
+
+public class Pythagorean {
+  record Triple(int x, int y, int z) {}
+
+  public static void main(String[] args) {
+    Iterable<Triple> iterable = () -> Generators.iterator(yielder -> {
+      for(var z = 1; z <= 100; z++) {
+        for(var x = 1; x <= z; x++) {
+          for(var y = x; y <= z; y++) {
+            if (x * x + y * y == z * z) {
+              yielder.accept(new Triple(x, y, z));
+            }
+          }
+        }
+      }
+    });
+
+    for(var triple: iterable) {
+      System.out.println(triple);
+    }
+  }
+}
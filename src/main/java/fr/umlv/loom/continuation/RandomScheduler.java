@@ -0,0 +1,43 @@
+package fr.umlv.loom.continuation;
+
+import java.util.ArrayList;
+import java.util.Objects;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.random.RandomGenerator;
+
+/**
+ * A scheduler that runs a task chosen at random in the run queue,
+ * with a seeded random generator, the interleaving of the tasks is reproducible.
+ * The chosen task is replaced by the last task of the run queue, registering and running a task are O(1).
+ */
+public class RandomScheduler implements Scheduler {
+  private final ArrayList<Continuation> schedulable = new ArrayList<>();
+  private final RandomGenerator random;
+
+  public RandomScheduler() {
+    this(ThreadLocalRandom.current());
+  }
+
+  public RandomScheduler(RandomGenerator random) {
+    this.random = Objects.requireNonNull(random);
+  }
+
+  @Override
+  public void register(Continuation continuation) {
+    Objects.requireNonNull(continuation);
+    schedulable.add(continuation);
+  }
+
+  @Override
+  public void loop() {
+    while (!schedulable.isEmpty()) {
+      var index = random.nextInt(schedulable.size());
+      var continuation = schedulable.get(index);
+      var last = schedulable.removeLast();
+      if (index < schedulable.size()) {
+        schedulable.set(index, last);
+      }
+      continuation.run();
+    }
+  }
+}
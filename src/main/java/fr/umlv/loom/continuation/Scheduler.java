@@ -0,0 +1,79 @@
+package fr.umlv.loom.continuation;
+
+/**
+ * A cooperative scheduler that runs many tasks, each one in a {@link Continuation}, on the thread that calls
+ * {@link #loop()}. Only one task runs at a time and a task only stops at a {@link #yield()} or a {@link #pause()},
+ * so the tasks can share data without atomics or locks.
+ * {@link WorkStealingScheduler} is the exception, it runs the tasks on several worker threads.
+ * <pre>
+ *   var scheduler = new FifoScheduler();
+ *   for(var i = 0; i &lt; 10_000; i++) {
+ *     scheduler.schedule(() -&gt; {
+ *       for(var step = 0; step &lt; 100; step++) {
+ *         ...
+ *         scheduler.pause();
+ *       }
+ *     });
+ *   }
+ *   scheduler.loop();
+ * </pre>
+ * A task that is suspended by {@link #yield()} runs again only when another task calls {@link #register(Continuation)}
+ * with its continuation, this is how a lock, a condition or a barrier can be implemented on top of a scheduler.
+ * A task that blocks the thread, by example on an I/O, blocks all the tasks.
+ */
+public interface Scheduler {
+  /**
+   * Adds a continuation to the run queue.
+   * @param continuation a continuation not already in the run queue.
+   */
+  void register(Continuation continuation);
+
+  /**
+   * Runs the continuations of the run queue until the run queue is empty.
+   */
+  void loop();
+
+  /**
+   * Creates a continuation that will run the runnable and adds it to the run queue.
+   * Can be called before {@link #loop()} or by a task.
+   * @param runnable the code of the task.
+   */
+  default void schedule(Runnable runnable) {
+    register(new Continuation(runnable));
+  }
+
+  /**
+   * Suspends the current task until it is registered again.
+   * @throws IllegalStateException if not called by a task.
+   */
+  default void yield() {
+    currentContinuation();  // verify there is a current continuation
+    Continuation.yield();
+  }
+
+  /**
+   * Suspends the current task and adds it at the end of the run queue.
+   * @throws IllegalStateException if not called by a task.
+   */
+  default void pause() {
+    register(currentContinuation());
+    Continuation.yield();
+  }
+
+  /**
+   * Returns the continuation of the current task.
+   * @return the continuation of the current task.
+   * @throws IllegalStateException if not called by a task.
+   */
+  static Continuation currentContinuation() {
+    var continuation = Continuation.current();
+    if (continuation == null) {
+      throw new IllegalStateException("no current continuation");
+    }
+    return continuation;
+  }
+
+  static boolean hasCurrentContinuation() {
+    return Continuation.current() != null;
+  }
+}
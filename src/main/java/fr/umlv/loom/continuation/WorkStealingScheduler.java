@@ -0,0 +1,89 @@
+package fr.umlv.loom.continuation;
+
+import fr.umlv.loom.executor.WorkStealingExecutor;
+
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A scheduler that runs the tasks on several worker threads, see {@link WorkStealingExecutor}.
+ * A task registered by a task is pushed in the run queue of the worker that runs it,
+ * an idle worker steals the tasks from the run queues of the other workers,
+ * so a suspended task can resume on another worker.
+ * <p>
+ * Unlike the single-threaded schedulers, the tasks run in parallel so the data they share must be thread-safe,
+ * and a task starts as soon as it is scheduled, {@link #loop()} waits until there is no task left to run.
+ * <pre>
+ *   try(var scheduler = new WorkStealingScheduler(4)) {
+ *     for(var i = 0; i &lt; 10_000; i++) {
+ *       scheduler.schedule(() -&gt; { ... });
+ *     }
+ *     scheduler.loop();
+ *   }
+ * </pre>
+ */
+public final class WorkStealingScheduler implements Scheduler, AutoCloseable {
+  private final WorkStealingExecutor executor;
+  private final AtomicInteger activeCount = new AtomicInteger();  // the tasks registered or running
+  private volatile Thread looper;
+
+  /**
+   * Creates a scheduler with one worker per available processor.
+   */
+  public WorkStealingScheduler() {
+    this(Runtime.getRuntime().availableProcessors());
+  }
+
+  /**
+   * Creates a scheduler with a fixed number of workers.
+   * @param parallelism the number of worker threads.
+   * @throws IllegalArgumentException if parallelism is not positive.
+   */
+  public WorkStealingScheduler(int parallelism) {
+    this.executor = new WorkStealingExecutor(parallelism);
+  }
+
+  @Override
+  public void register(Continuation continuation) {
+    Objects.requireNonNull(continuation);
+    activeCount.incrementAndGet();
+    executor.execute(() -> {
+      try {
+        continuation.run();
+      } finally {
+        if (activeCount.decrementAndGet() == 0) {
+          LockSupport.unpark(looper);
+        }
+      }
+    });
+  }
+
+  @Override
+  public void loop() {
+    looper = Thread.currentThread();
+    try {
+      while (activeCount.get() != 0) {
+        LockSupport.park(this);
+      }
+    } finally {
+      looper = null;
+    }
+  }
+
+  /**
+   * Returns the number of workers.
+   * @return the number of workers.
+   */
+  public int parallelism() {
+    return executor.parallelism();
+  }
+
+  /**
+   * Stops the workers, all the tasks should be terminated.
+   */
+  @Override
+  public void close() {
+    executor.close();
+  }
+}
@@ -2,6 +2,7 @@ package fr.umlv.loom.example;
 
 import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpServer;
+import fr.umlv.loom.executor.BoundedExecutor;
 
 import java.io.BufferedReader;
 import java.io.IOException;
@@ -12,7 +13,6 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.List;
 import java.util.concurrent.CopyOnWriteArrayList;
-import java.util.concurrent.Executors;
 import java.util.regex.Pattern;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
@@ -112,7 +112,8 @@ public interface _14_http_server {
   }
 
   static void main(String[] args) throws IOException {
-    var executor = Executors.newVirtualThreadPerTaskExecutor();
+    // at most 1 000 requests in flight, 10 000 requests waiting, the other requests are rejected
+    var executor = new BoundedExecutor(1_000, BoundedExecutor.Policy.queue(10_000));
     var localAddress = new InetSocketAddress(8080);
     System.out.println("server at http://localhost:" + localAddress.getPort() + "/todo.html");
 
@@ -0,0 +1,404 @@
+package fr.umlv.loom.executor;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.ToLongFunction;
+
+/**
+ * An executor service that runs each task in its own virtual thread but caps the number of tasks in flight.
+ * <p>
+ * Starting a virtual thread per task is cheap, so under overload a thread per task executor
+ * happily starts new tasks until the heap or the downstream services collapse.
+ * This executor runs at most {@code maxInFlight} tasks at the same time, and when this limit is reached,
+ * a {@link Policy} decides what to do with a new task:
+ * <ul>
+ *   <li>{@link Policy#block()} blocks the submitter until a task completes,
+ *   <li>{@link Policy#reject()} throws a {@link RejectedExecutionException},
+ *   <li>{@link Policy#queue(long)} stores the task in a queue bounded by a budget, a number of tasks
+ *       or a number of bytes, the task is rejected if the budget is exhausted,
+ *   <li>{@link Policy#shedOldest(long)} also stores the task in a bounded queue but drops the oldest
+ *       queued tasks to make room, the dropped tasks are cancelled if they are {@link Future}s.
+ * </ul>
+ * <pre>
+ *   var executor = new BoundedExecutor(1_000, BoundedExecutor.Policy.queue(10_000));
+ * </pre>
+ */
+public final class BoundedExecutor extends AbstractExecutorService {
+  /**
+   * What to do with a task submitted when the maximum number of tasks in flight is reached.
+   */
+  public sealed interface Policy {
+    /**
+     * Returns a policy that blocks the submitter until a task completes.
+     * @return a policy that blocks the submitter until a task completes.
+     */
+    static Policy block() {
+      return Block.INSTANCE;
+    }
+
+    /**
+     * Returns a policy that rejects the task.
+     * @return a policy that rejects the task.
+     */
+    static Policy reject() {
+      return Reject.INSTANCE;
+    }
+
+    /**
+     * Returns a policy that queues at most {@code maxQueued} tasks and rejects the other tasks.
+     * @param maxQueued the maximum number of tasks in the queue.
+     * @return a policy that queues the tasks.
+     * @throws IllegalArgumentException if maxQueued is not positive.
+     */
+    static Policy queue(long maxQueued) {
+      return new Queue(maxQueued, __ -> 1, false);
+    }
+
+    /**
+     * Returns a policy that queues the tasks until the sum of their weights reaches a budget
+     * and rejects the other tasks.
+     * @param budget the maximum sum of the weights of the queued tasks, by example a number of bytes.
+     * @param weigher a function that computes the weight of a task.
+     * @return a policy that queues the tasks.
+     * @throws IllegalArgumentException if the budget is not positive.
+     */
+    static Policy queue(long budget, ToLongFunction<? super Runnable> weigher) {
+      return new Queue(budget, weigher, false);
+    }
+
+    /**
+     * Returns a policy that queues at most {@code maxQueued} tasks and drops the oldest tasks of the queue
+     * to make room for the new ones.
+     * @param maxQueued the maximum number of tasks in the queue.
+     * @return a policy that sheds the oldest tasks.
+     * @throws IllegalArgumentException if maxQueued is not positive.
+     */
+    static Policy shedOldest(long maxQueued) {
+      return new Queue(maxQueued, __ -> 1, true);
+    }
+
+    /**
+     * Returns a policy that queues the tasks and drops the oldest tasks of the queue to make room for the new ones
+     * when the sum of the weights of the queued tasks is greater than a budget.
+     * @param budget the maximum sum of the weights of the queued tasks, by example a number of bytes.
+     * @param weigher a function that computes the weight of a task.
+     * @return a policy that sheds the oldest tasks.
+     * @throws IllegalArgumentException if the budget is not positive.
+     */
+    static Policy shedOldest(long budget, ToLongFunction<? super Runnable> weigher) {
+      return new Queue(budget, weigher, true);
+    }
+  }
+
+  private enum Block implements Policy { INSTANCE }
+  private enum Reject implements Policy { INSTANCE }
+  private record Queue(long budget, ToLongFunction<? super Runnable> weigher, boolean shedOldest) implements Policy {
+    private Queue {
+      Objects.requireNonNull(weigher);
+      if (budget <= 0) {
+        throw new IllegalArgumentException("budget <= 0");
+      }
+    }
+  }
+
+  private record Entry(Runnable task, long weight) {}
+
+  private final int maxInFlight;
+  private final Policy policy;
+  private final ThreadFactory factory;
+  private final ReentrantLock lock = new ReentrantLock();
+  private final Condition permitAvailable = lock.newCondition();
+  private final Condition terminated = lock.newCondition();
+  private final ArrayDeque<Entry> queue = new ArrayDeque<>();
+  private final HashSet<Thread> threads = new HashSet<>();
+  private int inFlight;
+  private long queuedWeight;
+  private long rejectedCount;
+  private long shedCount;
+  private boolean shutdown;
+
+  /**
+   * Creates an executor that runs each task in a new virtual thread.
+   * @param maxInFlight the maximum number of tasks running at the same time.
+   * @param policy the policy applied when the maximum number of tasks in flight is reached.
+   * @throws IllegalArgumentException if maxInFlight is not positive.
+   */
+  public BoundedExecutor(int maxInFlight, Policy policy) {
+    this(maxInFlight, policy, Thread.ofVirtual().factory());
+  }
+
+  /**
+   * Creates an executor that runs each task in a new thread created by a thread factory.
+   * @param maxInFlight the maximum number of tasks running at the same time.
+   * @param policy the policy applied when the maximum number of tasks in flight is reached.
+   * @param factory the thread factory.
+   * @throws IllegalArgumentException if maxInFlight is not positive.
+   */
+  public BoundedExecutor(int maxInFlight, Policy policy, ThreadFactory factory) {
+    Objects.requireNonNull(policy);
+    Objects.requireNonNull(factory);
+    if (maxInFlight <= 0) {
+      throw new IllegalArgumentException("maxInFlight <= 0");
+    }
+    this.maxInFlight = maxInFlight;
+    this.policy = policy;
+    this.factory = factory;
+  }
+
+  private RejectedExecutionException reject(String message) {
+    rejectedCount++;
+    return new RejectedExecutionException(message);
+  }
+
+  @Override
+  public void execute(Runnable task) {
+    Objects.requireNonNull(task);
+    List<Runnable> sheds = List.of();
+    lock.lock();
+    try {
+      if (shutdown) {
+        throw reject("executor is shutdown");
+      }
+      if (inFlight == maxInFlight) {
+        switch (policy) {
+          case Block __ -> {
+            while (inFlight == maxInFlight) {
+              try {
+                permitAvailable.await();
+              } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw reject("interrupted while waiting");
+              }
+              if (shutdown) {
+                throw reject("executor is shutdown");
+              }
+            }
+          }
+          case Reject __ -> throw reject("too many tasks in flight");
+          case Queue queue -> {
+            sheds = enqueue(queue, task);
+            return;
+          }
+        }
+      }
+      inFlight++;
+      try {
+        start(task);
+      } catch (RuntimeException | Error e) {
+        inFlight--;
+        permitAvailable.signal();
+        throw e;
+      }
+    } finally {
+      lock.unlock();
+      for (var shed : sheds) {
+        if (shed instanceof Future<?> future) {
+          future.cancel(false);
+        }
+      }
+    }
+  }
+
+  private List<Runnable> enqueue(Queue policy, Runnable task) {
+    var weight = policy.weigher.applyAsLong(task);
+    if (weight > policy.budget) {
+      throw reject("task too big");
+    }
+    List<Runnable> sheds = List.of();
+    if (queuedWeight + weight > policy.budget) {
+      if (!policy.shedOldest) {
+        throw reject("queue is full");
+      }
+      sheds = new ArrayList<>();
+      while (queuedWeight + weight > policy.budget) {
+        var entry = queue.poll();
+        queuedWeight -= entry.weight;
+        shedCount++;
+        sheds.add(entry.task);
+      }
+    }
+    queue.offer(new Entry(task, weight));
+    queuedWeight += weight;
+    return sheds;
+  }
+
+  // called with the lock held, the permit is already acquired
+  private void start(Runnable task) {
+    var thread = factory.newThread(() -> {
+      try {
+        task.run();
+      } finally {
+        release();
+      }
+    });
+    if (thread == null) {
+      throw new RejectedExecutionException("thread factory returns null");
+    }
+    threads.add(thread);
+    try {
+      thread.start();
+    } catch (RuntimeException | Error e) {
+      threads.remove(thread);
+      throw e;
+    }
+  }
+
+  private void release() {
+    lock.lock();
+    try {
+      var current = Thread.currentThread();
+      threads.remove(current);
+      Entry entry;
+      while ((entry = queue.poll()) != null) {
+        queuedWeight -= entry.weight;
+        try {
+          start(entry.task);  // the permit is transferred to the queued task
+          return;
+        } catch (RuntimeException | Error e) {
+          current.getUncaughtExceptionHandler().uncaughtException(current, e);
+        }
+      }
+      inFlight--;
+      permitAvailable.signal();
+      if (shutdown && inFlight == 0) {
+        terminated.signalAll();
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Returns the number of tasks running.
+   * @return the number of tasks running.
+   */
+  public int inFlightCount() {
+    lock.lock();
+    try {
+      return inFlight;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Returns the number of tasks waiting in the queue.
+   * @return the number of tasks waiting in the queue.
+   */
+  public int queuedCount() {
+    lock.lock();
+    try {
+      return queue.size();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Returns the number of tasks rejected since the creation of this executor.
+   * @return the number of tasks rejected since the creation of this executor.
+   */
+  public long rejectedCount() {
+    lock.lock();
+    try {
+      return rejectedCount;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Returns the number of queued tasks dropped by the policy {@link Policy#shedOldest(long)}
+   * since the creation of this executor.
+   * @return the number of queued tasks dropped.
+   */
+  public long shedCount() {
+    lock.lock();
+    try {
+      return shedCount;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public void shutdown() {
+    lock.lock();
+    try {
+      shutdown = true;
+      permitAvailable.signalAll();
+      if (inFlight == 0) {
+        terminated.signalAll();
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public List<Runnable> shutdownNow() {
+    lock.lock();
+    try {
+      shutdown();
+      var tasks = new ArrayList<Runnable>();
+      for (var entry : queue) {
+        tasks.add(entry.task);
+      }
+      queue.clear();
+      queuedWeight = 0;
+      for (var thread : threads) {
+        thread.interrupt();
+      }
+      return tasks;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public boolean isShutdown() {
+    lock.lock();
+    try {
+      return shutdown;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public boolean isTerminated() {
+    lock.lock();
+    try {
+      return shutdown && inFlight == 0;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+    var nanos = unit.toNanos(timeout);
+    lock.lock();
+    try {
+      while (!(shutdown && inFlight == 0)) {
+        if (nanos <= 0) {
+          return false;
+        }
+        nanos = terminated.awaitNanos(nanos);
+      }
+      return true;
+    } finally {
+      lock.unlock();
+    }
+  }
+}
@@ -0,0 +1,204 @@
+package fr.umlv.loom.executor;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Measures the time spent by virtual threads mounted on their carriers and aggregates it per account.
+ * <p>
+ * The CPU time of a virtual thread is not available using {@link java.lang.management.ThreadMXBean},
+ * but because the carrier executor runs the continuations of the virtual threads, the time
+ * each continuation stays mounted can be measured by the executor and attributed to an account,
+ * for example the name of a task, a structured scope or a tenant.
+ * <p>
+ * The account of a virtual thread is chosen when the virtual thread is created, either explicitly using
+ * {@link #configureBuilder(Thread.Builder, String)} or {@link #factory(String)}, or by the
+ * {@link #factory() thread factory} that reads the account bound to the scoped value {@link #ACCOUNT}
+ * by the caller.
+ * <pre>
+ *   var accounting = new CpuAccountingExecutor(new WorkStealingExecutor());
+ *   ScopedValue.where(CpuAccountingExecutor.ACCOUNT, "GET /users").run(() -&gt; {
+ *     try(var scope = new StructuredTaskScope&lt;String&gt;("request", accounting.factory())) {
+ *       ...
+ *     }
+ *   });
+ *   ...
+ *   System.out.println(accounting.cpuTimes());
+ * </pre>
+ * The virtual threads created by a thread factory of this class have their own executor, so measuring
+ * a run slice does not allocate and a yield is seen as a yield by the carrier executor.
+ * The virtual threads created by a builder configured with {@link #configureBuilder(Thread.Builder, String)}
+ * share the executor of the account, each run slice is measured by a new wrapper object.
+ */
+public final class CpuAccountingExecutor {
+  /**
+   * Account of the virtual threads created by the {@link #factory()}.
+   */
+  public static final ScopedValue<String> ACCOUNT = ScopedValue.newInstance();
+
+  /**
+   * Name of the account used by {@link #factory()} if {@link #ACCOUNT} is not bound.
+   */
+  public static final String DEFAULT_ACCOUNT = "default";
+
+  /**
+   * An account, the carrier executor of the virtual threads accounted together.
+   */
+  public final class Account implements Executor {
+    private final String name;
+    private final LongAdder cpuTime = new LongAdder();
+    private final LongAdder runSlices = new LongAdder();
+
+    private Account(String name) {
+      this.name = name;
+    }
+
+    /**
+     * Returns the name of the account.
+     * @return the name of the account.
+     */
+    public String name() {
+      return name;
+    }
+
+    /**
+     * Returns the time in nanoseconds spent by the virtual threads of this account mounted on a carrier.
+     * @return the time in nanoseconds spent by the virtual threads of this account mounted on a carrier.
+     */
+    public long cpuTime() {
+      return cpuTime.sum();
+    }
+
+    /**
+     * Returns the number of times a virtual thread of this account was mounted on a carrier.
+     * @return the number of times a virtual thread of this account was mounted on a carrier.
+     */
+    public long runSlices() {
+      return runSlices.sum();
+    }
+
+    @Override
+    public void execute(Runnable task) {
+      Objects.requireNonNull(task);
+      executor.execute(() -> run(task));
+    }
+
+    private void run(Runnable task) {
+      var start = System.nanoTime();
+      try {
+        task.run();
+      } finally {
+        cpuTime.add(System.nanoTime() - start);
+        runSlices.increment();
+      }
+    }
+
+    @Override
+    public String toString() {
+      return "Account(" + name + ")";
+    }
+  }
+
+  // the executor of one virtual thread, the continuation of a virtual thread is submitted
+  // at most once at a time, so this object can be submitted to the carrier executor as is
+  private final class Meter implements Executor, Runnable {
+    private final Account account;
+    private Runnable continuation;
+
+    private Meter(Account account) {
+      this.account = account;
+    }
+
+    @Override
+    public void execute(Runnable continuation) {
+      Objects.requireNonNull(continuation);
+      this.continuation = continuation;
+      executor.execute(this);
+    }
+
+    @Override
+    public void run() {
+      var continuation = this.continuation;
+      this.continuation = null;
+      account.run(continuation);
+    }
+  }
+
+  private final Executor executor;
+  private final ConcurrentHashMap<String, Account> accounts = new ConcurrentHashMap<>();
+
+  /**
+   * Creates an executor that accounts the time spent by the virtual threads on the carriers of an executor.
+   * @param executor the carrier executor.
+   */
+  public CpuAccountingExecutor(Executor executor) {
+    this.executor = Objects.requireNonNull(executor);
+  }
+
+  /**
+   * Returns the account of a name, creating it if necessary.
+   * @param name the name of the account.
+   * @return the account of the name.
+   */
+  public Account account(String name) {
+    Objects.requireNonNull(name);
+    return accounts.computeIfAbsent(name, Account::new);
+  }
+
+  /**
+   * Configures a thread builder so the time spent by the virtual threads it creates is accounted to an account.
+   * @param builder a virtual thread builder.
+   * @param name the name of the account.
+   * @return the builder.
+   * @param <B> the type of the builder.
+   */
+  public <B extends Thread.Builder> B configureBuilder(B builder, String name) {
+    Objects.requireNonNull(builder);
+    return UnsafeExecutors.configureBuilderExecutor(builder, account(name));
+  }
+
+  /**
+   * Returns a thread factory that creates virtual threads accounted to an account,
+   * by example to account all the subtasks of a structured scope together.
+   * @param name the name of the account.
+   * @return a thread factory that creates virtual threads accounted to an account.
+   */
+  public ThreadFactory factory(String name) {
+    var account = account(name);
+    return runnable -> newThread(account, runnable);
+  }
+
+  private Thread newThread(Account account, Runnable runnable) {
+    Objects.requireNonNull(runnable);
+    return UnsafeExecutors.configureBuilderExecutor(Thread.ofVirtual(), new Meter(account)).unstarted(runnable);
+  }
+
+  /**
+   * Returns a thread factory that creates virtual threads accounted to the account bound
+   * to {@link #ACCOUNT} by the thread calling {@link ThreadFactory#newThread(Runnable)}.
+   * If {@link #ACCOUNT} is not bound, the virtual threads are accounted to {@link #DEFAULT_ACCOUNT}.
+   * @return a thread factory that creates virtual threads accounted to the account of the caller.
+   */
+  public ThreadFactory factory() {
+    return runnable -> {
+      var name = ACCOUNT.isBound() ? ACCOUNT.get() : DEFAULT_ACCOUNT;
+      return newThread(account(name), runnable);
+    };
+  }
+
+  /**
+   * Returns the time in nanoseconds spent on a carrier by the virtual threads of each account.
+   * @return an unmodifiable map from the name of an account to its time in nanoseconds.
+   */
+  public Map<String, Long> cpuTimes() {
+    var map = new HashMap<String, Long>();
+    accounts.forEach((name, account) -> map.put(name, account.cpuTime()));
+    return Collections.unmodifiableMap(map);
+  }
+}
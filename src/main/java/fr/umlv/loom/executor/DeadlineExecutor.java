@@ -0,0 +1,221 @@
+package fr.umlv.loom.executor;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.Comparator;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A carrier executor that runs the continuations of the virtual threads in
+ * earliest deadline first order.
+ * <p>
+ * The deadline of a virtual thread is fixed when the virtual thread is created, either explicitly using
+ * {@link #configureBuilder(Thread.Builder, Instant)} or by the {@link #factory() thread factory} that reads
+ * the deadline bound to the scoped value {@link #DEADLINE} by the caller.
+ * Because a {@link java.util.concurrent.StructuredTaskScope} creates its threads using a thread factory
+ * and propagates the scoped values, all the subtasks of a scope get the deadline of the scope.
+ * <pre>
+ *   ScopedValue.where(DeadlineExecutor.DEADLINE, deadline).call(() -&gt; {
+ *     try(var scope = new StructuredTaskScope&lt;String&gt;("request", executor.factory())) {
+ *       ...
+ *       scope.joinUntil(deadline);
+ *       ...
+ *     }
+ *   });
+ * </pre>
+ * <p>
+ * A continuation that has already missed its deadline is not run before the continuations that can
+ * still meet their deadlines, it is run with the continuations without deadline in FIFO order,
+ * so under overload, a late request does not make the other requests miss their deadlines too.
+ */
+public final class DeadlineExecutor implements AutoCloseable {
+  /**
+   * Deadline of the virtual threads created by the {@link #factory()}.
+   */
+  public static final ScopedValue<Instant> DEADLINE = ScopedValue.newInstance();
+
+  private record Entry(Runnable task, long deadline, long sequence) {}
+
+  private static final Comparator<Entry> EARLIEST_DEADLINE_FIRST = (e1, e2) -> {
+    var diff = e1.deadline - e2.deadline;  // nano time may overflow
+    if (diff != 0) {
+      return diff < 0 ? -1 : 1;
+    }
+    return Long.compare(e1.sequence, e2.sequence);
+  };
+
+  private final ReentrantLock lock = new ReentrantLock();
+  private final Condition notEmpty = lock.newCondition();
+  private final PriorityQueue<Entry> onTimeQueue = new PriorityQueue<>(EARLIEST_DEADLINE_FIRST);
+  private final ArrayDeque<Runnable> bestEffortQueue = new ArrayDeque<>();
+  private long sequence;
+  private boolean shutdown;
+  private final Workers workers;
+  private final Executor noDeadlineExecutor = this::executeBestEffort;
+
+  /**
+   * Creates an executor with one carrier per available processor.
+   */
+  public DeadlineExecutor() {
+    this(Runtime.getRuntime().availableProcessors());
+  }
+
+  /**
+   * Creates an executor with a fixed number of carriers.
+   * @param parallelism the number of carrier threads.
+   * @throws IllegalArgumentException if parallelism is not positive.
+   */
+  public DeadlineExecutor(int parallelism) {
+    if (parallelism <= 0) {
+      throw new IllegalArgumentException("parallelism <= 0");
+    }
+    workers = Workers.of("deadline-carrier", parallelism, this::loop);
+    workers.start();
+  }
+
+  private static long toNanoTime(Instant deadline) {
+    var now = Instant.now();
+    var nanoTime = System.nanoTime();
+    try {
+      return nanoTime + Duration.between(now, deadline).toNanos();
+    } catch (ArithmeticException e) {  // too far in the future or in the past
+      return deadline.isAfter(now) ? nanoTime + Long.MAX_VALUE / 2 : nanoTime - Long.MAX_VALUE / 2;
+    }
+  }
+
+  private void executeBefore(Runnable task, long deadline) {
+    Objects.requireNonNull(task);
+    lock.lock();
+    try {
+      if (shutdown) {
+        throw new RejectedExecutionException("executor is shutdown");
+      }
+      onTimeQueue.offer(new Entry(task, deadline, sequence++));
+      notEmpty.signal();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private void executeBestEffort(Runnable task) {
+    Objects.requireNonNull(task);
+    lock.lock();
+    try {
+      if (shutdown) {
+        throw new RejectedExecutionException("executor is shutdown");
+      }
+      bestEffortQueue.offer(task);
+      notEmpty.signal();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Returns the carrier executor of the virtual threads that should complete before a deadline.
+   * @param deadline the deadline or null if there is no deadline.
+   * @return the carrier executor of the virtual threads that should complete before a deadline.
+   */
+  public Executor executor(Instant deadline) {
+    if (deadline == null) {
+      return noDeadlineExecutor;
+    }
+    var deadlineNanos = toNanoTime(deadline);
+    return task -> executeBefore(task, deadlineNanos);
+  }
+
+  /**
+   * Configures a thread builder so the virtual threads it creates are scheduled using a deadline.
+   * @param builder a virtual thread builder.
+   * @param deadline the deadline or null if there is no deadline.
+   * @return the builder.
+   * @param <B> the type of the builder.
+   */
+  public <B extends Thread.Builder> B configureBuilder(B builder, Instant deadline) {
+    Objects.requireNonNull(builder);
+    return UnsafeExecutors.configureBuilderExecutor(builder, executor(deadline));
+  }
+
+  /**
+   * Returns a thread factory that creates virtual threads scheduled using the deadline
+   * bound to {@link #DEADLINE} by the thread calling {@link ThreadFactory#newThread(Runnable)}.
+   * If {@link #DEADLINE} is not bound, the virtual thread has no deadline.
+   * @return a thread factory that creates virtual threads scheduled by this executor.
+   */
+  public ThreadFactory factory() {
+    return runnable -> {
+      var deadline = DEADLINE.isBound() ? DEADLINE.get() : null;
+      return configureBuilder(Thread.ofVirtual(), deadline).unstarted(runnable);
+    };
+  }
+
+  private Runnable take() throws InterruptedException {
+    lock.lock();
+    try {
+      for(;;) {
+        var now = System.nanoTime();
+        Entry entry;
+        while ((entry = onTimeQueue.poll()) != null) {
+          if (entry.deadline - now >= 0) {
+            return entry.task;
+          }
+          bestEffortQueue.offer(entry.task);  // deadline already missed
+        }
+        var task = bestEffortQueue.poll();
+        if (task != null) {
+          return task;
+        }
+        if (shutdown) {
+          return null;
+        }
+        notEmpty.await();
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private void loop() {
+    var worker = Thread.currentThread();
+    for(;;) {
+      Runnable task;
+      try {
+        task = take();
+      } catch (InterruptedException e) {
+        continue;  // the interrupt status of a carrier is meaningless, it is cleared
+      }
+      if (task == null) {
+        return;
+      }
+      try {
+        task.run();
+      } catch (RuntimeException | Error e) {
+        worker.getUncaughtExceptionHandler().uncaughtException(worker, e);
+      }
+    }
+  }
+
+  /**
+   * Stops to accept new tasks, runs the pending tasks, including the ones that missed their deadline,
+   * and waits for the carriers to terminate.
+   * The virtual threads scheduled by this executor should be terminated before calling this method.
+   */
+  @Override
+  public void close() {
+    lock.lock();
+    try {
+      shutdown = true;
+      notEmpty.signalAll();
+    } finally {
+      lock.unlock();
+    }
+    workers.close();
+  }
+}
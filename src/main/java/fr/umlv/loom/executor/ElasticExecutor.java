@@ -0,0 +1,301 @@
+package fr.umlv.loom.executor;
+
+import com.sun.management.OperatingSystemMXBean;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * An executor designed to be used as carrier pool of virtual threads that adds carrier threads
+ * when the virtual threads wait too long to be scheduled and removes them when they are idle,
+ * see {@link UnsafeExecutors#virtualThreadExecutor(Executor)} and
+ * {@link UnsafeExecutors#configureBuilderExecutor(Thread.Builder, Executor)}.
+ * <p>
+ * A virtual thread that does a file I/O or blocks inside a {@code synchronized} block pins its carrier,
+ * with a fixed number of carriers the other virtual threads wait until the carrier is released.
+ * A sizer thread wakes up at a regular interval and adds one carrier if, during two intervals in a row,
+ * tasks are waiting and
+ * <ul>
+ *   <li>either a carrier is blocked, it runs the same task since the last interval and is not runnable,
+ *       by example a virtual thread that sleeps inside a {@code synchronized} block,
+ *   <li>or a carrier runs the same task since the last interval and is runnable (a computation or a file I/O)
+ *       or the scheduling delay is greater than the target delay, but only if the CPU is not saturated,
+ *       because more carriers do not help CPU bound tasks.
+ * </ul>
+ * The scheduling delay is measured by submitting a probe task when tasks are waiting
+ * and measuring when it runs, so the tasks are not timestamped.
+ * A carrier idle for longer than the keep alive time stops, down to the core pool size.
+ * The pool never grows above the maximum pool size.
+ * <pre>
+ *   try(var carriers = new ElasticExecutor(4, 64, Duration.ofMillis(1), Duration.ofSeconds(1))) {
+ *     var executor = UnsafeExecutors.virtualThreadExecutor(carriers);
+ *     ...
+ *   }
+ * </pre>
+ * This replaces the tuning of {@code jdk.virtualThreadScheduler.parallelism} for a workload that pins the carriers.
+ */
+public final class ElasticExecutor implements Executor, AutoCloseable {
+  private static final int GROW_INTERVALS = 2;
+  private static final double CPU_SATURATION = 0.9;
+  private static final long CPU_WINDOW = Duration.ofMillis(50).toNanos();  // the process CPU time is not precise
+  private static final OperatingSystemMXBean OS = ManagementFactory.getPlatformMXBean(OperatingSystemMXBean.class);
+  private static final Runnable WAKE_UP = () -> {};
+
+  private final class Worker extends Thread {
+    private volatile long taskCount;  // only written by the worker
+    private volatile boolean idle;
+    private long lastTaskCount;  // only accessed by the sizer
+
+    private Worker(int index) {
+      super("elastic-carrier-" + index);
+      setDaemon(true);
+    }
+
+    @Override
+    public void run() {
+      try {
+        for(;;) {
+          idle = true;
+          Runnable task;
+          try {
+            task = shutdown ? queue.poll() : queue.poll(keepAlive, TimeUnit.NANOSECONDS);
+          } catch (InterruptedException e) {
+            continue;  // the interrupt status of a carrier is meaningless, it is cleared
+          }
+          idle = false;
+          if (task == null) {
+            if (shutdown || tryRetire()) {
+              return;
+            }
+            continue;
+          }
+          if (task == WAKE_UP) {
+            continue;
+          }
+          taskCount = taskCount + 1;
+          try {
+            task.run();
+          } catch (RuntimeException | Error e) {
+            getUncaughtExceptionHandler().uncaughtException(this, e);
+          }
+        }
+      } finally {
+        workers.remove(this);
+      }
+    }
+
+    private boolean tryRetire() {
+      for(;;) {
+        var size = poolSize.get();
+        if (size <= coreSize) {
+          return false;
+        }
+        if (poolSize.compareAndSet(size, size - 1)) {
+          return true;
+        }
+      }
+    }
+  }
+
+  private final int coreSize;
+  private final int maxSize;
+  private final long targetDelay;
+  private final long keepAlive;
+  private final LinkedBlockingQueue<Runnable> queue = new LinkedBlockingQueue<>();
+  private final Set<Worker> workers = ConcurrentHashMap.newKeySet();
+  private final AtomicInteger poolSize = new AtomicInteger();
+  private final AtomicInteger workerIndex = new AtomicInteger();
+  private final Thread sizer;
+  private volatile int peakPoolSize;
+  private volatile long schedulingDelay;
+  private volatile long probeTime;  // 0 if no probe is pending
+  private volatile boolean shutdown;
+  private final Runnable probe = () -> {
+    schedulingDelay = System.nanoTime() - probeTime;
+    probeTime = 0;
+  };
+
+  /**
+   * Creates an executor with one carrier per available processor that can grow up to 256 carriers,
+   * with a target scheduling delay of 1 millisecond and a keep alive time of 1 second.
+   */
+  public ElasticExecutor() {
+    this(Runtime.getRuntime().availableProcessors(), 256, Duration.ofMillis(1), Duration.ofSeconds(1));
+  }
+
+  /**
+   * Creates an elastic executor.
+   * @param coreSize the minimum number of carriers.
+   * @param maxSize the maximum number of carriers.
+   * @param targetDelay the scheduling delay above which a carrier is added,
+   *   the sizer thread also checks the pool at that interval.
+   * @param keepAlive the time after which an idle carrier stops if there are more than coreSize carriers.
+   * @throws IllegalArgumentException if coreSize is not positive, maxSize is lower than coreSize
+   *   or a duration is not positive.
+   */
+  public ElasticExecutor(int coreSize, int maxSize, Duration targetDelay, Duration keepAlive) {
+    Objects.requireNonNull(targetDelay);
+    Objects.requireNonNull(keepAlive);
+    if (coreSize <= 0) {
+      throw new IllegalArgumentException("coreSize <= 0");
+    }
+    if (maxSize < coreSize) {
+      throw new IllegalArgumentException("maxSize < coreSize");
+    }
+    if (targetDelay.isNegative() || targetDelay.isZero()) {
+      throw new IllegalArgumentException("targetDelay <= 0");
+    }
+    if (keepAlive.isNegative() || keepAlive.isZero()) {
+      throw new IllegalArgumentException("keepAlive <= 0");
+    }
+    this.coreSize = coreSize;
+    this.maxSize = maxSize;
+    this.targetDelay = targetDelay.toNanos();
+    this.keepAlive = keepAlive.toNanos();
+    poolSize.set(coreSize);
+    for (var i = 0; i < coreSize; i++) {
+      startWorker();
+    }
+    peakPoolSize = coreSize;
+    sizer = new Thread(this::size, "elastic-carrier-sizer");
+    sizer.setDaemon(true);
+    sizer.start();
+  }
+
+  private void startWorker() {
+    var worker = new Worker(workerIndex.getAndIncrement());
+    workers.add(worker);
+    worker.start();
+  }
+
+  private boolean tryGrow() {
+    for(;;) {
+      var size = poolSize.get();
+      if (size >= maxSize) {
+        return false;
+      }
+      if (poolSize.compareAndSet(size, size + 1)) {
+        startWorker();
+        peakPoolSize = Math.max(peakPoolSize, size + 1);
+        return true;
+      }
+    }
+  }
+
+  private boolean isStarving(long now, double cpuUsage) {
+    var blocked = false;
+    var running = false;
+    for (var worker : workers) {
+      var taskCount = worker.taskCount;
+      if (!worker.idle && taskCount == worker.lastTaskCount) {
+        // a pinned carrier is waiting, a carrier that computes or does a file I/O is runnable
+        if (worker.getState() == Thread.State.RUNNABLE) {
+          running = true;
+        } else {
+          blocked = true;
+        }
+      }
+      worker.lastTaskCount = taskCount;
+    }
+    if (queue.isEmpty()) {
+      return false;
+    }
+    if (blocked) {
+      return true;
+    }
+    // if the CPU is saturated, more carriers do not help
+    var pendingProbe = probeTime;
+    var delay = pendingProbe == 0 ? schedulingDelay : now - pendingProbe;
+    return (running || delay > targetDelay) && cpuUsage < CPU_SATURATION;
+  }
+
+  private void size() {
+    var processors = Runtime.getRuntime().availableProcessors();
+    var starvingIntervals = 0;
+    var cpuUsage = 0.0;
+    var windowStart = System.nanoTime();
+    var windowCpuTime = OS.getProcessCpuTime();
+    while (!shutdown) {
+      LockSupport.parkNanos(targetDelay);
+      var now = System.nanoTime();
+      if (now - windowStart >= CPU_WINDOW) {
+        var cpuTime = OS.getProcessCpuTime();
+        cpuUsage = (double) (cpuTime - windowCpuTime) / ((now - windowStart) * processors);
+        windowStart = now;
+        windowCpuTime = cpuTime;
+      }
+      if (isStarving(now, cpuUsage)) {
+        if (++starvingIntervals >= GROW_INTERVALS) {
+          starvingIntervals = 0;
+          tryGrow();
+        }
+      } else {
+        starvingIntervals = 0;
+      }
+      // only probe when tasks are waiting, otherwise the probe would keep the idle carriers alive
+      if (probeTime == 0 && !shutdown && !queue.isEmpty()) {
+        probeTime = now;
+        queue.offer(probe);
+      }
+    }
+  }
+
+  @Override
+  public void execute(Runnable task) {
+    Objects.requireNonNull(task);
+    if (shutdown) {
+      throw new RejectedExecutionException("executor is shutdown");
+    }
+    queue.offer(task);
+  }
+
+  /**
+   * Returns the current number of carrier threads.
+   * @return the current number of carrier threads.
+   */
+  public int poolSize() {
+    return poolSize.get();
+  }
+
+  /**
+   * Returns the largest number of carrier threads since the creation of this executor.
+   * @return the largest number of carrier threads since the creation of this executor.
+   */
+  public int peakPoolSize() {
+    return peakPoolSize;
+  }
+
+  /**
+   * Returns the last measured scheduling delay, the time a task waits in the queue before running.
+   * @return the last measured scheduling delay.
+   */
+  public Duration schedulingDelay() {
+    return Duration.ofNanos(schedulingDelay);
+  }
+
+  /**
+   * Stops to accept new tasks, stops the sizer thread, runs the pending tasks and waits for the carrier threads,
+   * core or not, to terminate.
+   * The virtual threads using this executor should be terminated before calling this method.
+   */
+  @Override
+  public void close() {
+    shutdown = true;
+    LockSupport.unpark(sizer);
+    Workers.join(new Thread[] { sizer });  // the sizer may be adding a carrier
+    var threads = workers.toArray(Thread[]::new);
+    for (var i = 0; i < threads.length; i++) {
+      queue.offer(WAKE_UP);
+    }
+    Workers.join(threads);
+  }
+}
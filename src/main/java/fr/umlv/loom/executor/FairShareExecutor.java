@@ -0,0 +1,230 @@
+package fr.umlv.loom.executor;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Comparator;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+
+/**
+ * A carrier executor that shares the carriers between tenants proportionally to their weights.
+ * <p>
+ * Each virtual thread belongs to a {@link Tenant}, chosen when the virtual thread is created
+ * using {@link #configureBuilder(Thread.Builder, Tenant)}.
+ * The time spent by each continuation mounted on a carrier is accounted to its tenant,
+ * divided by the weight of the tenant, it's the virtual run time of the tenant.
+ * The carriers always run the continuation of the tenant with the smallest virtual run time,
+ * so a tenant with a lot of runnable virtual threads can not monopolize the carriers.
+ * <p>
+ * When a tenant becomes runnable again after being idle, its virtual time is moved forward
+ * to the virtual time of the last scheduled tenant, so being idle does not give credits.
+ */
+public final class FairShareExecutor implements AutoCloseable {
+  /**
+   * A tenant, the carrier executor of the virtual threads of a tenant.
+   */
+  public final class Tenant implements Executor {
+    private final String name;
+    private final int weight;
+    private final ConcurrentLinkedQueue<Runnable> queue = new ConcurrentLinkedQueue<>();
+    private volatile boolean scheduled;
+    private volatile long virtualTime;
+    private volatile long cpuTime;
+
+    private Tenant(String name, int weight) {
+      this.name = name;
+      this.weight = weight;
+    }
+
+    /**
+     * Returns the name of the tenant.
+     * @return the name of the tenant.
+     */
+    public String name() {
+      return name;
+    }
+
+    /**
+     * Returns the weight of the tenant.
+     * @return the weight of the tenant.
+     */
+    public int weight() {
+      return weight;
+    }
+
+    /**
+     * Returns the time in nanoseconds spent by the virtual threads of this tenant mounted on a carrier.
+     * @return the time in nanoseconds spent by the virtual threads of this tenant mounted on a carrier.
+     */
+    public long cpuTime() {
+      return cpuTime;
+    }
+
+    @Override
+    public void execute(Runnable task) {
+      Objects.requireNonNull(task);
+      if (shutdown) {
+        throw new RejectedExecutionException("executor is shutdown");
+      }
+      queue.offer(task);
+      schedule(this);
+    }
+
+    private FairShareExecutor executor() {
+      return FairShareExecutor.this;
+    }
+
+    @Override
+    public String toString() {
+      return "Tenant(" + name + ", " + weight + ")";
+    }
+  }
+
+  private record Node(long virtualTime, long sequence, Tenant tenant) {}
+
+  private static final VarHandle SCHEDULED, VIRTUAL_TIME, CPU_TIME;
+  static {
+    var lookup = MethodHandles.lookup();
+    try {
+      SCHEDULED = lookup.findVarHandle(Tenant.class, "scheduled", boolean.class);
+      VIRTUAL_TIME = lookup.findVarHandle(Tenant.class, "virtualTime", long.class);
+      CPU_TIME = lookup.findVarHandle(Tenant.class, "cpuTime", long.class);
+    } catch (NoSuchFieldException | IllegalAccessException e) {
+      throw new AssertionError(e);
+    }
+  }
+
+  private final ConcurrentSkipListSet<Node> runQueue = new ConcurrentSkipListSet<>(
+      Comparator.comparingLong(Node::virtualTime).thenComparingLong(Node::sequence));
+  private final AtomicLong sequence = new AtomicLong();
+  private volatile long minVirtualTime;
+  private final Workers workers;
+  private volatile boolean shutdown;
+
+  /**
+   * Creates an executor with one carrier per available processor.
+   */
+  public FairShareExecutor() {
+    this(Runtime.getRuntime().availableProcessors());
+  }
+
+  /**
+   * Creates an executor with a fixed number of carriers.
+   * @param parallelism the number of carrier threads.
+   * @throws IllegalArgumentException if parallelism is not positive.
+   */
+  public FairShareExecutor(int parallelism) {
+    if (parallelism <= 0) {
+      throw new IllegalArgumentException("parallelism <= 0");
+    }
+    workers = Workers.of("fair-share-carrier", parallelism, this::loop);
+    workers.start();
+  }
+
+  /**
+   * Creates a new tenant.
+   * @param name the name of the tenant.
+   * @param weight the weight of the tenant, a tenant with a weight of 2 gets twice as much carrier time
+   *               as a tenant with a weight of 1.
+   * @return a new tenant.
+   * @throws IllegalArgumentException if the weight is not positive.
+   */
+  public Tenant tenant(String name, int weight) {
+    Objects.requireNonNull(name);
+    if (weight <= 0) {
+      throw new IllegalArgumentException("weight <= 0");
+    }
+    return new Tenant(name, weight);
+  }
+
+  /**
+   * Configures a thread builder so the virtual threads it creates belong to a tenant.
+   * @param builder a virtual thread builder.
+   * @param tenant the tenant.
+   * @return the builder.
+   * @param <B> the type of the builder.
+   * @throws IllegalArgumentException if the tenant was not created by this executor.
+   */
+  public <B extends Thread.Builder> B configureBuilder(B builder, Tenant tenant) {
+    Objects.requireNonNull(builder);
+    Objects.requireNonNull(tenant);
+    if (tenant.executor() != this) {
+      throw new IllegalArgumentException("tenant " + tenant + " is not a tenant of this executor");
+    }
+    return UnsafeExecutors.configureBuilderExecutor(builder, tenant);
+  }
+
+  private void schedule(Tenant tenant) {
+    if (!SCHEDULED.compareAndSet(tenant, false, true)) {
+      return;  // already in the run queue
+    }
+    // an idle tenant does not accumulate credits
+    var minVirtualTime = this.minVirtualTime;
+    var virtualTime = tenant.virtualTime;
+    if (virtualTime - minVirtualTime < 0) {
+      VIRTUAL_TIME.compareAndSet(tenant, virtualTime, minVirtualTime);
+    }
+    runQueue.add(new Node(tenant.virtualTime, sequence.getAndIncrement(), tenant));
+    workers.signal();
+  }
+
+  private Tenant pollTenant() {
+    var node = runQueue.pollFirst();
+    if (node == null) {
+      return null;
+    }
+    if (node.virtualTime - minVirtualTime > 0) {
+      minVirtualTime = node.virtualTime;  // racy but monotonic enough
+    }
+    var tenant = node.tenant;
+    tenant.scheduled = false;
+    return tenant;
+  }
+
+  private void loop() {
+    var worker = Thread.currentThread();
+    BooleanSupplier wakeUp = () -> !runQueue.isEmpty() || shutdown;
+    for(;;) {
+      var tenant = pollTenant();
+      if (tenant == null) {
+        if (shutdown && runQueue.isEmpty()) {
+          return;
+        }
+        workers.park(wakeUp);
+        continue;
+      }
+      var task = tenant.queue.poll();
+      if (!tenant.queue.isEmpty()) {
+        schedule(tenant);  // other carriers can run the other tasks of the tenant
+      }
+      if (task == null) {
+        continue;
+      }
+      var start = System.nanoTime();
+      try {
+        task.run();
+      } catch (RuntimeException | Error e) {
+        worker.getUncaughtExceptionHandler().uncaughtException(worker, e);
+      } finally {
+        var elapsed = System.nanoTime() - start;
+        CPU_TIME.getAndAdd(tenant, elapsed);
+        VIRTUAL_TIME.getAndAdd(tenant, elapsed / tenant.weight);
+      }
+    }
+  }
+
+  /**
+   * Stops to accept new tasks, runs the pending tasks of every tenant and waits for the carriers to terminate.
+   * The virtual threads of the tenants should be terminated before calling this method.
+   */
+  @Override
+  public void close() {
+    shutdown = true;
+    workers.close();
+  }
+}
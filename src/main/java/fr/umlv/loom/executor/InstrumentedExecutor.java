@@ -0,0 +1,361 @@
+package fr.umlv.loom.executor;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Period;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+import java.util.Collections;
+import java.util.Objects;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A carrier executor that wraps another carrier executor to measure how the continuations
+ * of the virtual threads are scheduled.
+ * <pre>
+ *   var executor = new InstrumentedExecutor("http", new WorkStealingExecutor());
+ *   var factory = UnsafeExecutors.virtualThreadFactory(executor);
+ *   ...
+ *   var snapshot = executor.snapshot();
+ *   System.out.println(snapshot.schedulingDelay().percentile(0.99));
+ * </pre>
+ * The metrics are the number of submitted and completed continuations, the number of
+ * continuations waiting for a carrier (the run queue depth), the number of mounted continuations,
+ * the time spent between the submission and the mount of a continuation (the scheduling delay)
+ * and the time a continuation stays mounted (the run slice).
+ * <p>
+ * The metrics are also available as JFR events, {@code fr.umlv.loom.executor.RunSlice} for each run slice
+ * and {@code fr.umlv.loom.executor.SchedulerStatistics} every second.
+ * <p>
+ * Apart when the JFR event {@code RunSlice} is enabled, a continuation submitted by a carrier of the wrapped
+ * executor, by example when a virtual thread unparks another virtual thread, does not allocate,
+ * the objects used to record the submission time are pooled per carrier.
+ * A continuation submitted by another thread, by example when a virtual thread is started, allocates.
+ * <p>
+ * A continuation re-submitted by the carrier that runs it, when its virtual thread yields, is submitted
+ * to the wrapped executor with the same object as the one being run,
+ * so an executor like {@link WorkStealingExecutor} can still recognize a yield.
+ */
+public final class InstrumentedExecutor implements Executor {
+  /**
+   * A histogram of durations with power of two buckets.
+   */
+  public static final class Histogram {
+    private final AtomicLongArray buckets = new AtomicLongArray(64);
+    private final LongAdder sum = new LongAdder();
+
+    private Histogram() {}
+
+    private void record(long duration) {
+      var value = Math.max(0, duration);
+      buckets.getAndIncrement(64 - Long.numberOfLeadingZeros(value) - (value == 0 ? 0 : 1));
+      sum.add(value);
+    }
+
+    private Snapshot snapshot() {
+      var counts = new long[64];
+      for (var i = 0; i < counts.length; i++) {
+        counts[i] = buckets.get(i);
+      }
+      return new Snapshot(counts, sum.sum());
+    }
+
+    /**
+     * An immutable view of a histogram.
+     * @param counts the number of values in each bucket, the bucket {@code i} contains the values
+     *               between 2<sup>i</sup> and 2<sup>i + 1</sup> (excluded) nanoseconds.
+     * @param sum the sum of all values in nanoseconds.
+     */
+    public record Snapshot(long[] counts, long sum) {
+      /**
+       * Returns the number of values.
+       * @return the number of values.
+       */
+      public long count() {
+        var count = 0L;
+        for (var c : counts) {
+          count += c;
+        }
+        return count;
+      }
+
+      /**
+       * Returns the mean value in nanoseconds.
+       * @return the mean value in nanoseconds or 0 if there is no value.
+       */
+      public double mean() {
+        var count = count();
+        return count == 0 ? 0 : (double) sum / count;
+      }
+
+      /**
+       * Returns an upper bound of a percentile in nanoseconds.
+       * @param percentile a value between 0 and 1.
+       * @return an upper bound of a percentile in nanoseconds, or 0 if there is no value.
+       */
+      public long percentile(double percentile) {
+        if (percentile < 0 || percentile > 1) {
+          throw new IllegalArgumentException("invalid percentile " + percentile);
+        }
+        var threshold = (long) Math.ceil(percentile * count());
+        var count = 0L;
+        for (var i = 0; i < counts.length; i++) {
+          count += counts[i];
+          if (count >= threshold && count != 0) {
+            return i == 63 ? Long.MAX_VALUE : (1L << (i + 1)) - 1;
+          }
+        }
+        return 0;
+      }
+    }
+  }
+
+  /**
+   * The metrics of an instrumented executor at a specific time.
+   *
+   * @param time the time of the snapshot, in {@link System#nanoTime() nanoseconds}.
+   * @param submitted the number of continuations submitted.
+   * @param completed the number of run slices completed.
+   * @param queueDepth the number of continuations submitted but not yet mounted.
+   * @param running the number of continuations currently mounted.
+   * @param busyTime the total time spent by the carriers running continuations in nanoseconds.
+   * @param schedulingDelay the histogram of the time spent between the submission of a continuation
+   *                        and its mount.
+   * @param runSlice the histogram of the time a continuation stays mounted.
+   */
+  public record Snapshot(long time, long submitted, long completed, long queueDepth, long running, long busyTime,
+                         Histogram.Snapshot schedulingDelay, Histogram.Snapshot runSlice) {
+    /**
+     * Returns the number of run slices completed per second since a previous snapshot.
+     * @param previous a previous snapshot.
+     * @return the number of run slices completed per second since a previous snapshot.
+     */
+    public double tasksPerSecond(Snapshot previous) {
+      var elapsed = time - previous.time;
+      return elapsed <= 0 ? 0 : (completed - previous.completed) * 1_000_000_000.0 / elapsed;
+    }
+
+    /**
+     * Returns the utilization of the carriers, a value between 0 and 1, since a previous snapshot.
+     * @param previous a previous snapshot.
+     * @param carrierCount the number of carrier threads.
+     * @return the utilization of the carriers since a previous snapshot.
+     */
+    public double utilization(Snapshot previous, int carrierCount) {
+      var elapsed = time - previous.time;
+      return elapsed <= 0 ? 0 : (double) (busyTime - previous.busyTime) / elapsed / carrierCount;
+    }
+  }
+
+  @Name("fr.umlv.loom.executor.RunSlice")
+  @Label("Run Slice")
+  @Description("A continuation of a virtual thread mounted on a carrier")
+  @Category({"Loom", "Scheduler"})
+  @StackTrace(false)
+  static final class RunSliceEvent extends Event {
+    @Label("Executor")
+    String executor;
+
+    @Label("Scheduling Delay")
+    @Timespan
+    long schedulingDelay;
+  }
+
+  @Name("fr.umlv.loom.executor.SchedulerStatistics")
+  @Label("Scheduler Statistics")
+  @Category({"Loom", "Scheduler"})
+  @Period("1 s")
+  @StackTrace(false)
+  static final class SchedulerStatisticsEvent extends Event {
+    @Label("Executor")
+    String executor;
+
+    @Label("Submitted")
+    long submitted;
+
+    @Label("Completed")
+    long completed;
+
+    @Label("Queue Depth")
+    long queueDepth;
+
+    @Label("Running")
+    long running;
+  }
+
+  private static final EventType RUN_SLICE_EVENT_TYPE = EventType.getEventType(RunSliceEvent.class);
+  private static final Set<InstrumentedExecutor> EXECUTORS = Collections.synchronizedSet(Collections.newSetFromMap(new WeakHashMap<>()));
+  static {
+    FlightRecorder.addPeriodicEvent(SchedulerStatisticsEvent.class, () -> {
+      InstrumentedExecutor[] executors;
+      synchronized (EXECUTORS) {
+        executors = EXECUTORS.toArray(InstrumentedExecutor[]::new);
+      }
+      for (var executor : executors) {
+        var event = new SchedulerStatisticsEvent();
+        event.executor = executor.name;
+        event.submitted = executor.submitted.sum();
+        event.completed = executor.completed.sum();
+        event.queueDepth = event.submitted - executor.started.sum();
+        event.running = event.submitted - event.queueDepth - event.completed;
+        event.commit();
+      }
+    });
+  }
+
+  private static final int POOL_CAPACITY = 256;
+
+  // only accessed by a carrier thread
+  private static final class Pool {
+    private final Task[] tasks = new Task[POOL_CAPACITY];
+    private int size;
+    private Task current;  // the task being run by the carrier
+  }
+
+  private final class Task implements Runnable {
+    private Runnable runnable;
+    private long submitTime;
+
+    @Override
+    public void run() {
+      var pool = carrierPool();
+      var runnable = this.runnable;
+      var start = System.nanoTime();
+      var delay = start - submitTime;
+      started.increment();
+      schedulingDelay.record(delay);
+      RunSliceEvent event = null;
+      if (RUN_SLICE_EVENT_TYPE.isEnabled()) {
+        event = new RunSliceEvent();
+        event.begin();
+      }
+      var previous = pool.current;
+      pool.current = this;
+      try {
+        runnable.run();
+      } finally {
+        if (pool.current == this) {  // not re-submitted, see execute()
+          release(pool, this);
+        }
+        pool.current = previous;
+        var slice = System.nanoTime() - start;
+        runSlice.record(slice);
+        busyTime.add(slice);
+        completed.increment();
+        if (event != null) {
+          event.end();
+          if (event.shouldCommit()) {
+            event.executor = name;
+            event.schedulingDelay = delay;
+            event.commit();
+          }
+        }
+      }
+    }
+  }
+
+  private final String name;
+  private final Executor executor;
+  private final ThreadLocal<Pool> pools = new ThreadLocal<>();  // only set on the carriers
+  private final LongAdder submitted = new LongAdder();
+  private final LongAdder started = new LongAdder();
+  private final LongAdder completed = new LongAdder();
+  private final LongAdder busyTime = new LongAdder();
+  private final Histogram schedulingDelay = new Histogram();
+  private final Histogram runSlice = new Histogram();
+
+  /**
+   * Creates an instrumented executor.
+   * @param name the name of the executor used in the JFR events.
+   * @param executor the carrier executor.
+   */
+  public InstrumentedExecutor(String name, Executor executor) {
+    this.name = Objects.requireNonNull(name);
+    this.executor = Objects.requireNonNull(executor);
+    EXECUTORS.add(this);
+  }
+
+  private Pool carrierPool() {
+    var pool = pools.get();
+    if (pool == null) {
+      pool = new Pool();
+      pools.set(pool);
+    }
+    return pool;
+  }
+
+  private static Task acquire(Pool pool) {
+    if (pool == null || pool.size == 0) {
+      return null;
+    }
+    var task = pool.tasks[--pool.size];
+    pool.tasks[pool.size] = null;
+    return task;
+  }
+
+  private static void release(Pool pool, Task task) {
+    task.runnable = null;
+    if (pool.size == POOL_CAPACITY) {
+      return;
+    }
+    pool.tasks[pool.size++] = task;
+  }
+
+  @Override
+  public void execute(Runnable runnable) {
+    Objects.requireNonNull(runnable);
+    // a virtual thread unparking another one submits from its carrier, a virtual thread never has a pool
+    var pool = Thread.currentThread().isVirtual() ? null : pools.get();
+    Task task;
+    if (pool != null && pool.current != null && pool.current.runnable == runnable) {
+      // re-submitted by the carrier that runs it, the carrier will not release the task
+      task = pool.current;
+      pool.current = null;
+    } else {
+      task = acquire(pool);
+      if (task == null) {
+        task = new Task();
+      }
+      task.runnable = runnable;
+    }
+    task.submitTime = System.nanoTime();
+    submitted.increment();
+    try {
+      executor.execute(task);
+    } catch (RuntimeException | Error e) {
+      submitted.decrement();
+      throw e;
+    }
+  }
+
+  /**
+   * Returns the name of this executor.
+   * @return the name of this executor.
+   */
+  public String name() {
+    return name;
+  }
+
+  /**
+   * Returns a snapshot of the metrics.
+   * @return a snapshot of the metrics.
+   */
+  public Snapshot snapshot() {
+    var time = System.nanoTime();
+    var completed = this.completed.sum();
+    var started = this.started.sum();
+    var submitted = this.submitted.sum();
+    return new Snapshot(time, submitted, completed, Math.max(0, submitted - started), Math.max(0, started - completed),
+        busyTime.sum(), schedulingDelay.snapshot(), runSlice.snapshot());
+  }
+}
@@ -0,0 +1,168 @@
+package fr.umlv.loom.executor;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Partitions the virtual threads into groups, each group runs on exactly one dedicated carrier thread.
+ * <p>
+ * A key, by example a connection, selects the group using consistent hashing,
+ * so all the virtual threads created with the same key share the same carrier
+ * and the data they exchange stay in the caches of the same core.
+ * <pre>
+ *   try(var groups = new PinnedGroupExecutor(4)) {
+ *     var executor = groups.executor(connectionId);
+ *     executor.execute(() -&gt; relay(client, remote));
+ *     executor.execute(() -&gt; relay(remote, client));
+ *     ...
+ *   }
+ * </pre>
+ */
+public final class PinnedGroupExecutor implements AutoCloseable {
+  private static final int VIRTUAL_NODES_PER_GROUP = 64;
+
+  private final ExecutorService[] carriers;
+  private final Executor[] executors;
+  private final int[] ringHashes;
+  private final int[] ringGroups;
+
+  /**
+   * Creates an executor with one group per available processor.
+   */
+  public PinnedGroupExecutor() {
+    this(Runtime.getRuntime().availableProcessors());
+  }
+
+  /**
+   * Creates an executor with a fixed number of groups.
+   * @param groupCount the number of groups, so the number of carrier threads.
+   * @throws IllegalArgumentException if the number of groups is not positive.
+   */
+  public PinnedGroupExecutor(int groupCount) {
+    if (groupCount <= 0) {
+      throw new IllegalArgumentException("groupCount <= 0");
+    }
+    var carriers = new ExecutorService[groupCount];
+    var executors = new Executor[groupCount];
+    for (var i = 0; i < groupCount; i++) {
+      var name = "pinned-group-" + i;
+      var carrier = Executors.newSingleThreadExecutor(runnable -> new Thread(runnable, name));
+      carriers[i] = carrier;
+      executors[i] = UnsafeExecutors.virtualThreadExecutor(carrier);
+    }
+    this.carriers = carriers;
+    this.executors = executors;
+
+    // consistent hashing ring
+    var nodes = new long[groupCount * VIRTUAL_NODES_PER_GROUP];
+    for (var group = 0; group < groupCount; group++) {
+      for (var replica = 0; replica < VIRTUAL_NODES_PER_GROUP; replica++) {
+        var hash = mix(group * VIRTUAL_NODES_PER_GROUP + replica + 1);
+        nodes[group * VIRTUAL_NODES_PER_GROUP + replica] = ((long) hash << 32) | group;
+      }
+    }
+    Arrays.sort(nodes);
+    ringHashes = new int[nodes.length];
+    ringGroups = new int[nodes.length];
+    for (var i = 0; i < nodes.length; i++) {
+      ringHashes[i] = (int) (nodes[i] >> 32);
+      ringGroups[i] = (int) nodes[i];
+    }
+  }
+
+  private static int mix(int value) {  // murmur3 finalizer
+    var h = value;
+    h ^= h >>> 16;
+    h *= 0x85ebca6b;
+    h ^= h >>> 13;
+    h *= 0xc2b2ae35;
+    h ^= h >>> 16;
+    return h;
+  }
+
+  /**
+   * Returns the number of groups.
+   * @return the number of groups.
+   */
+  public int groupCount() {
+    return carriers.length;
+  }
+
+  /**
+   * Returns the group associated to a key.
+   * @param key the key, by example a connection id.
+   * @return the group associated to a key, a value between 0 and {@link #groupCount()} (excluded).
+   */
+  public int groupOf(Object key) {
+    var hash = mix(key.hashCode());
+    var index = Arrays.binarySearch(ringHashes, hash);
+    if (index < 0) {
+      index = -index - 1;
+      if (index == ringHashes.length) {  // wrap around the ring
+        index = 0;
+      }
+    }
+    return ringGroups[index];
+  }
+
+  /**
+   * Returns an executor that starts a virtual thread on the carrier of the group associated to the key.
+   * @param key the key, by example a connection id.
+   * @return an executor that starts a virtual thread on the carrier of the group associated to the key.
+   */
+  public Executor executor(Object key) {
+    Objects.requireNonNull(key);
+    return executors[groupOf(key)];
+  }
+
+  /**
+   * Returns a factory of virtual threads running on the carrier of the group associated to the key.
+   * @param key the key, by example a connection id.
+   * @return a factory of virtual threads running on the carrier of the group associated to the key.
+   */
+  public ThreadFactory factory(Object key) {
+    Objects.requireNonNull(key);
+    return UnsafeExecutors.virtualThreadFactory(carriers[groupOf(key)]);
+  }
+
+  /**
+   * Returns the carrier executor of a group.
+   * @param group the group
+   * @return the carrier executor of a group.
+   * @throws IndexOutOfBoundsException if the group is not a valid group
+   */
+  public Executor carrier(int group) {
+    Objects.checkIndex(group, carriers.length);
+    return carriers[group];
+  }
+
+  /**
+   * Stops the carriers after the pending continuations are run.
+   * All the virtual threads using this executor should be terminated before calling this method.
+   */
+  @Override
+  public void close() {
+    for (var carrier : carriers) {
+      carrier.shutdown();
+    }
+    var interrupted = false;
+    for (var carrier : carriers) {
+      for(;;) {
+        try {
+          carrier.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+          break;
+        } catch (InterruptedException e) {
+          interrupted = true;
+        }
+      }
+    }
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
@@ -0,0 +1,171 @@
+package fr.umlv.loom.executor;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.BooleanSupplier;
+
+/**
+ * A carrier executor with several priority lanes.
+ * <p>
+ * The priority of a virtual thread is chosen when the virtual thread is created,
+ * using {@link #configureBuilder(Thread.Builder, Priority)},
+ * the continuation of that virtual thread is always resubmitted to the same lane when the virtual thread
+ * is unparked.
+ * <p>
+ * The carriers always run the tasks of the lane with the highest priority first,
+ * unless the oldest task of a lane with a lower priority has waited more than the aging threshold,
+ * this prevents the tasks with a low priority to starve.
+ * <pre>
+ *   try(var executor = new PriorityExecutor(4, Duration.ofMillis(100))) {
+ *     var batch = executor.configureBuilder(Thread.ofVirtual(), Priority.BATCH);
+ *     var interactive = executor.configureBuilder(Thread.ofVirtual(), Priority.LATENCY_CRITICAL);
+ *     ...
+ *   }
+ * </pre>
+ */
+public final class PriorityExecutor implements AutoCloseable {
+  /**
+   * Priority of a lane, from the highest priority to the lowest priority.
+   */
+  public enum Priority {
+    LATENCY_CRITICAL, NORMAL, BATCH
+  }
+
+  private record Entry(Runnable task, long enqueueTime) {}
+
+  private final class Lane implements Executor {
+    private final ConcurrentLinkedQueue<Entry> queue = new ConcurrentLinkedQueue<>();
+
+    @Override
+    public void execute(Runnable task) {
+      Objects.requireNonNull(task);
+      if (shutdown) {
+        throw new RejectedExecutionException("executor is shutdown");
+      }
+      queue.offer(new Entry(task, System.nanoTime()));
+      workers.signal();
+    }
+  }
+
+  private final Lane[] lanes;
+  private final long agingThreshold;
+  private final Workers workers;
+  private volatile boolean shutdown;
+
+  /**
+   * Creates a priority executor.
+   * @param parallelism the number of carrier threads.
+   * @param agingThreshold the maximum waiting time of a task before it is run regardless of its priority.
+   * @throws IllegalArgumentException if parallelism is not positive or if the aging threshold is negative.
+   */
+  public PriorityExecutor(int parallelism, Duration agingThreshold) {
+    Objects.requireNonNull(agingThreshold);
+    if (parallelism <= 0) {
+      throw new IllegalArgumentException("parallelism <= 0");
+    }
+    if (agingThreshold.isNegative()) {
+      throw new IllegalArgumentException("agingThreshold is negative");
+    }
+    var lanes = new Lane[Priority.values().length];
+    for (var i = 0; i < lanes.length; i++) {
+      lanes[i] = new Lane();
+    }
+    this.lanes = lanes;
+    this.agingThreshold = agingThreshold.toNanos();
+    workers = Workers.of("priority-carrier", parallelism, this::loop);
+    workers.start();
+  }
+
+  /**
+   * Returns the executor of a lane, it should be used as carrier executor of the virtual threads.
+   * @param priority the priority of the lane.
+   * @return the executor of a lane.
+   *
+   * @see UnsafeExecutors#configureBuilderExecutor(Thread.Builder, Executor)
+   */
+  public Executor lane(Priority priority) {
+    return lanes[priority.ordinal()];
+  }
+
+  /**
+   * Configures a thread builder so the virtual threads it creates runs in the lane of the priority.
+   * @param builder a virtual thread builder.
+   * @param priority the priority of the lane.
+   * @return the builder.
+   * @param <B> the type of the builder.
+   */
+  public <B extends Thread.Builder> B configureBuilder(B builder, Priority priority) {
+    Objects.requireNonNull(builder);
+    return UnsafeExecutors.configureBuilderExecutor(builder, lane(priority));
+  }
+
+  private Runnable poll() {
+    // starvation guard: the oldest task of a lower lane that waited too long goes first
+    var now = System.nanoTime();
+    Lane agedLane = null;
+    var agedTime = 0L;
+    for (var i = 1; i < lanes.length; i++) {
+      var head = lanes[i].queue.peek();
+      if (head != null && now - head.enqueueTime > agingThreshold && (agedLane == null || head.enqueueTime - agedTime < 0)) {
+        agedLane = lanes[i];
+        agedTime = head.enqueueTime;
+      }
+    }
+    if (agedLane != null) {
+      var entry = agedLane.queue.poll();
+      if (entry != null) {
+        return entry.task;
+      }
+    }
+    for (var lane : lanes) {
+      var entry = lane.queue.poll();
+      if (entry != null) {
+        return entry.task;
+      }
+    }
+    return null;
+  }
+
+  private boolean hasTask() {
+    for (var lane : lanes) {
+      if (!lane.queue.isEmpty()) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private void loop() {
+    var worker = Thread.currentThread();
+    BooleanSupplier wakeUp = () -> hasTask() || shutdown;
+    for(;;) {
+      var task = poll();
+      if (task == null) {
+        if (shutdown && !hasTask()) {
+          return;
+        }
+        workers.park(wakeUp);
+        continue;
+      }
+      try {
+        task.run();
+      } catch (RuntimeException | Error e) {
+        worker.getUncaughtExceptionHandler().uncaughtException(worker, e);
+      }
+    }
+  }
+
+  /**
+   * Stops to accept new tasks, runs the tasks pending in all the lanes and waits for the carriers to terminate.
+   * A virtual thread of a lane that is unparked after this call can not be rescheduled,
+   * so they should all be terminated before.
+   */
+  @Override
+  public void close() {
+    shutdown = true;
+    workers.close();
+  }
+}
@@ -7,6 +7,7 @@ import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
 import java.util.Objects;
 import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadFactory;
 
 import static java.lang.invoke.MethodHandles.insertArguments;
 import static java.lang.invoke.MethodType.methodType;
@@ -23,6 +24,7 @@ public class UnsafeExecutors {
   }
 
   private static final MethodHandle SET_EXECUTOR;
+  private static final MethodHandle GET_CARRIER_THREAD;
   static {
     try {
       var unsafeClass = Class.forName("sun.misc.Unsafe");
@@ -30,13 +32,20 @@ public class UnsafeExecutors {
       unsafeField.setAccessible(true);
       var unsafe = unsafeField.get(null);
       var objectFieldOffset = unsafeClass.getMethod("objectFieldOffset", Field.class);
+      var lookup = MethodHandles.lookup();
+
       var executorField = VTB.class.getDeclaredField("executor");
       executorField.setAccessible(true);
       var executorOffset = (long) objectFieldOffset.invoke(unsafe, executorField);
-      var putObject = MethodHandles.lookup()
+      var putObject = lookup
           .findVirtual(unsafeClass, "putObject", methodType(void.class, Object.class, long.class, Object.class));
-      var setExecutor = insertArguments(insertArguments(putObject, 2, executorOffset), 0, unsafe);
-      SET_EXECUTOR = setExecutor;
+      SET_EXECUTOR = insertArguments(insertArguments(putObject, 2, executorOffset), 0, unsafe);
+
+      var carrierThreadField = Class.forName("java.lang.VirtualThread").getDeclaredField("carrierThread");
+      var carrierThreadOffset = (long) objectFieldOffset.invoke(unsafe, carrierThreadField);
+      var getObject = lookup
+          .findVirtual(unsafeClass, "getObject", methodType(Object.class, Object.class, long.class));
+      GET_CARRIER_THREAD = insertArguments(insertArguments(getObject, 2, carrierThreadOffset), 0, unsafe);
     } catch (ClassNotFoundException | NoSuchFieldException | NoSuchMethodException | IllegalAccessException | InvocationTargetException e) {
       throw new AssertionError(e);
     }
@@ -50,18 +59,25 @@ public class UnsafeExecutors {
     }
   }
 
+  private static Thread getCarrierThread(Thread thread) {
+    try {
+      return (Thread) (Object) GET_CARRIER_THREAD.invokeExact((Object) thread);
+    } catch (Throwable e) {
+      throw new AssertionError(e);
+    }
+  }
+
   private static class VirtualThreadExecutor implements Executor {
-    private final Executor executor;
+    private final ThreadFactory factory;
 
-    public VirtualThreadExecutor(Executor executor) {
-      this.executor = executor;
+    public VirtualThreadExecutor(ThreadFactory factory) {
+      this.factory = factory;
     }
 
     @Override
     public void execute(Runnable command) {
-      var builder = Thread.ofVirtual();
-      setExecutor(builder, executor);
-      builder.start(command);
+      Objects.requireNonNull(command);
+      factory.newThread(command).start();
     }
   }
 
@@ -72,8 +88,22 @@ public class UnsafeExecutors {
     return builder;
   }
 
-  public static Executor virtualThreadExecutor(Executor executor) {
+  public static Thread currentCarrierThread() {
+    var thread = Thread.currentThread();
+    if (!thread.isVirtual()) {
+      return thread;
+    }
+    return getCarrierThread(thread);
+  }
+
+  public static ThreadFactory virtualThreadFactory(Executor executor) {
     Objects.requireNonNull(executor);
-    return new VirtualThreadExecutor(executor);
+    var builder = Thread.ofVirtual();
+    setExecutor(builder, executor);
+    return builder.factory();
+  }
+
+  public static Executor virtualThreadExecutor(Executor executor) {
+    return new VirtualThreadExecutor(virtualThreadFactory(executor));
   }
 }
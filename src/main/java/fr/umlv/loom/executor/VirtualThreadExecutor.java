@@ -1,23 +1,42 @@
 package fr.umlv.loom.executor;
 
-/*
 import java.lang.invoke.MethodHandles;
 import java.lang.invoke.VarHandle;
-import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.Objects;
+import java.util.Set;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
 import java.util.concurrent.RejectedExecutionException;
-import java.util.concurrent.StructuredExecutor;
-import java.util.concurrent.StructuredExecutor.ShutdownOnSuccess;
+import java.util.concurrent.StructuredTaskScope;
+import java.util.concurrent.StructuredTaskScope.ShutdownOnSuccess;
+import java.util.concurrent.StructuredTaskScope.Subtask;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 
+/**
+ * An executor service that runs each task in its own virtual thread.
+ * <p>
+ * A {@link StructuredTaskScope} can only be forked, joined and closed by its owner thread,
+ * so this executor does not use a scope shared by all the submitters.
+ * {@link #submit(Callable)} and {@link #execute(Runnable)} start the virtual thread directly
+ * from the submitter thread and the running threads are tracked in a concurrent set,
+ * so the submitters do not wait for each other.
+ * {@link #invokeAll(Collection)} and {@link #invokeAny(Collection)} open a structured task scope
+ * owned by the calling thread.
+ * <p>
+ * {@link #awaitTermination(long, TimeUnit)} also {@link #shutdown() shuts down} the executor.
+ */
 public final class VirtualThreadExecutor implements ExecutorService {
   private static final VarHandle STATE;
   static {
@@ -29,21 +48,34 @@ public final class VirtualThreadExecutor implements ExecutorService {
     }
   }
 
-  private final StructuredExecutor executor;
-  private final ExecutorService executorOfExecutor = Executors.newSingleThreadExecutor();
+  private final ThreadFactory factory;
+  private final Set<Thread> threads = ConcurrentHashMap.newKeySet();
+  private final CountDownLatch terminationLatch = new CountDownLatch(1);
   private volatile int state;
 
   private static final int RUNNING    = 0;
   private static final int SHUTDOWN   = 1;
   private static final int TERMINATED = 2;
 
+  /**
+   * Creates an executor that runs each task in a new virtual thread.
+   */
   public VirtualThreadExecutor() {
-    executor = postSync(StructuredExecutor::open);
+    this(Thread.ofVirtual().factory());
+  }
+
+  /**
+   * Creates an executor that runs each task in a new thread created by a thread factory,
+   * by example a factory created by {@link UnsafeExecutors#virtualThreadFactory(java.util.concurrent.Executor)}.
+   * @param factory the thread factory.
+   */
+  public VirtualThreadExecutor(ThreadFactory factory) {
+    this.factory = Objects.requireNonNull(factory);
   }
 
   private void checkShutdownState() {
     if (state >= SHUTDOWN) {
-      throw new RejectedExecutionException();
+      throw new RejectedExecutionException("executor is shutdown");
     }
   }
 
@@ -52,55 +84,47 @@ public final class VirtualThreadExecutor implements ExecutorService {
     throw (T) cause;
   }
 
-  private void postAsync(Runnable runnable) {
-    executorOfExecutor.execute(runnable);
+  private void tryTerminate() {
+    if (state == SHUTDOWN && threads.isEmpty() && STATE.compareAndSet(this, SHUTDOWN, TERMINATED)) {
+      terminationLatch.countDown();
+    }
   }
 
-  private <V> V postSync(Callable<V> callable)   {
-    var future = executorOfExecutor.submit(callable);
-    try {
-      return future.get();
-    } catch (ExecutionException e) {
-      var cause = e.getCause();
-      throw rethrow(cause);
-    } catch (InterruptedException e) {
-      throw rethrow(e);
+  // creates a thread tracked by this executor, also used as thread factory of the structured task scopes
+  private Thread newThread(Runnable task) {
+    checkShutdownState();
+    var thread = factory.newThread(() -> {
+      try {
+        task.run();
+      } finally {
+        threads.remove(Thread.currentThread());
+        tryTerminate();
+      }
+    });
+    if (thread == null) {
+      throw new RejectedExecutionException("thread factory returns null");
+    }
+    threads.add(thread);
+    if (state >= SHUTDOWN) {  // a concurrent shutdown may have missed this thread
+      threads.remove(thread);
+      tryTerminate();
+      throw new RejectedExecutionException("executor is shutdown");
     }
+    return thread;
   }
 
   @Override
   public void shutdown() {
     if (STATE.compareAndSet(this, RUNNING, SHUTDOWN)) {
-      postAsync(() -> {
-        if (state == TERMINATED) {
-          return;
-        }
-        try {
-          executor.join();
-        } catch (InterruptedException e) {
-          throw new AssertionError(e);
-        }
-        state = TERMINATED;
-        executor.close();
-        executorOfExecutor.shutdown();
-      });
+      tryTerminate();
     }
   }
 
   @Override
   public List<Runnable> shutdownNow() {
-    if (STATE.compareAndSet(this, RUNNING, SHUTDOWN)) {
-      postSync(() -> {
-        if (state == TERMINATED) {
-          return null;
-        }
-        executor.shutdown();
-        executor.join();
-        state = TERMINATED;
-        executor.close();
-        executorOfExecutor.shutdown();
-        return null;
-      });
+    shutdown();
+    for (var thread : threads) {
+      thread.interrupt();
     }
     return List.of();
   }
@@ -115,50 +139,42 @@ public final class VirtualThreadExecutor implements ExecutorService {
     return state == TERMINATED;
   }
 
+  /**
+   * Shuts down the executor and waits until all the tasks are completed or the timeout elapses.
+   * @param timeout the maximum time to wait.
+   * @param unit the time unit of the timeout argument.
+   * @return true if this executor terminated and false if the timeout elapsed before termination.
+   */
   @Override
   public boolean awaitTermination(long timeout, TimeUnit unit) {
-    if (state == TERMINATED) {
-      return false;
+    shutdown();
+    try {
+      return terminationLatch.await(timeout, unit);
+    } catch (InterruptedException e) {
+      throw rethrow(e);
     }
-    var deadline = Instant.now().plus(Duration.ofNanos(unit.toNanos(timeout)));
-    return postSync(() -> {
-      if (state == TERMINATED) {
-        return false;
-      }
-      var result = true;
-      try {
-        executor.joinUntil(deadline);
-      } catch (TimeoutException e) {
-        result = false;
-      }
-      executor.shutdown();
-      state = TERMINATED;
-      executor.close();
-      executorOfExecutor.shutdown();
-      return result;
-    });
   }
 
   @Override
   public void execute(Runnable command) {
-    submit(command);
+    Objects.requireNonNull(command);
+    newThread(command).start();
   }
 
   @Override
   public <T> Future<T> submit(Callable<T> task) {
-    checkShutdownState();
-    return postSync(() -> {
-      checkShutdownState();
-      return executor.fork(task);
-    });
+    Objects.requireNonNull(task);
+    var future = new FutureTask<>(task);
+    newThread(future).start();
+    return future;
   }
 
   @Override
   public <T> Future<T> submit(Runnable task, T result) {
-    return submit(() -> {
-      task.run();
-      return result;
-    });
+    Objects.requireNonNull(task);
+    var future = new FutureTask<>(task, result);
+    newThread(future).start();
+    return future;
   }
 
   @Override
@@ -166,64 +182,75 @@ public final class VirtualThreadExecutor implements ExecutorService {
     return submit(task, null);
   }
 
+  private static <T> Future<T> toFuture(Subtask<T> subtask) {
+    return switch (subtask.state()) {
+      case SUCCESS -> CompletableFuture.completedFuture(subtask.get());
+      case FAILED -> CompletableFuture.failedFuture(subtask.exception());
+      case UNAVAILABLE -> throw new AssertionError();
+    };
+  }
+
   @Override
   public <T> List<Future<T>> invokeAll(Collection<? extends Callable<T>> tasks) throws InterruptedException {
     checkShutdownState();
-    return postSync(() -> {
-      checkShutdownState();
-      try(var executor = StructuredExecutor.open()) {
-        var list = tasks.stream().map(executor::fork).toList();
-        executor.join();
-        return list;
-      }
-    });
+    try(var scope = new StructuredTaskScope<T>(null, this::newThread)) {
+      var subtasks = tasks.stream().<Subtask<T>>map(scope::fork).toList();
+      scope.join();
+      return subtasks.stream().map(VirtualThreadExecutor::toFuture).toList();
+    }
   }
 
+  /**
+   * Executes the given tasks, returning a list of Futures of the tasks that have completed
+   * when all complete or the timeout expires, whichever happens first.
+   * The tasks that have not completed are cancelled and not part of the returned list.
+   */
   @Override
   public <T> List<Future<T>> invokeAll(Collection<? extends Callable<T>> tasks, long timeout, TimeUnit unit) throws InterruptedException {
     checkShutdownState();
-    var deadline = Instant.now().plus(Duration.ofNanos(unit.toNanos(timeout)));
-    return postSync(() -> {
-      checkShutdownState();
-      try(var executor = StructuredExecutor.open()) {
-        var futures = tasks.stream().map(executor::fork).toList();
-        try {
-          executor.joinUntil(deadline);
-        } catch(TimeoutException e) {
-          return futures.stream().filter(Future::isDone).toList();
+    var deadline = Instant.now().plusNanos(unit.toNanos(timeout));
+    try(var scope = new StructuredTaskScope<T>(null, this::newThread)) {
+      var subtasks = tasks.stream().<Subtask<T>>map(scope::fork).toList();
+      try {
+        scope.joinUntil(deadline);
+      } catch (TimeoutException e) {
+        scope.shutdown();
+        scope.join();  // the subtasks not completed are now unavailable
+      }
+      var futures = new ArrayList<Future<T>>();
+      for (var subtask : subtasks) {
+        if (subtask.state() != Subtask.State.UNAVAILABLE) {
+          futures.add(toFuture(subtask));
         }
-        return futures;
       }
-    });
+      return futures;
+    }
   }
 
   @Override
   public <T> T invokeAny(Collection<? extends Callable<T>> tasks) throws InterruptedException, ExecutionException {
     checkShutdownState();
-    return postSync(() -> {
-      checkShutdownState();
-      try(var executor = StructuredExecutor.open()) {
-        var handler = new ShutdownOnSuccess<T>();
-        tasks.forEach(callable -> executor.fork(callable, handler));
-        executor.join();
-        return handler.result();
-      }
-    });
+    if (tasks.isEmpty()) {
+      throw new IllegalArgumentException("no task");
+    }
+    try(var scope = new ShutdownOnSuccess<T>(null, this::newThread)) {
+      tasks.forEach(scope::fork);
+      scope.join();
+      return scope.result();
+    }
   }
 
   @Override
   public <T> T invokeAny(Collection<? extends Callable<T>> tasks, long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
     checkShutdownState();
-    var deadline = Instant.now().plus(Duration.ofNanos(unit.toNanos(timeout)));
-    return postSync(() -> {
-      checkShutdownState();
-      try(var executor = StructuredExecutor.open()) {
-        var handler = new ShutdownOnSuccess<T>();
-        tasks.forEach(callable -> executor.fork(callable, handler));
-        executor.joinUntil(deadline);
-        return handler.result();
-      }
-    });
+    if (tasks.isEmpty()) {
+      throw new IllegalArgumentException("no task");
+    }
+    var deadline = Instant.now().plusNanos(unit.toNanos(timeout));
+    try(var scope = new ShutdownOnSuccess<T>(null, this::newThread)) {
+      tasks.forEach(scope::fork);
+      scope.joinUntil(deadline);
+      return scope.result();
+    }
   }
 }
-*/
@@ -0,0 +1,232 @@
+package fr.umlv.loom.executor;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * Watches the virtual threads scheduled on the carriers of an executor to detect the ones that
+ * keep a carrier for too long, and lets CPU bound virtual threads share the carriers cooperatively.
+ * <p>
+ * A virtual thread can not be preempted, a virtual thread that runs a long computation
+ * keeps its carrier, and the virtual threads waiting for a carrier, by example the ones
+ * doing I/Os, are starved.
+ * This class provides two tools:
+ * <ul>
+ *   <li>a watchdog thread that reports the virtual threads mounted for longer than a threshold
+ *       with their stack traces, to find the culprits,
+ *   <li>a method {@link #checkpoint()}, to call in the loops of CPU bound code, that yields
+ *       if the virtual thread has been mounted for longer than its time slice.
+ * </ul>
+ * <pre>
+ *   var watchdog = new WatchdogExecutor(new WorkStealingExecutor(), Duration.ofMillis(1), Duration.ofMillis(100),
+ *       hog -&gt; System.err.println(hog.thread() + " hogs " + hog.carrier() + " for " + hog.duration()));
+ *   var thread = watchdog.factory().newThread(() -&gt; {
+ *     for(;;) {
+ *       compute();
+ *       WatchdogExecutor.checkpoint();
+ *     }
+ *   });
+ * </pre>
+ * Only the virtual threads created by the {@link #factory()} are watched.
+ */
+public final class WatchdogExecutor implements AutoCloseable {
+  /**
+   * A virtual thread mounted on a carrier for longer than the threshold.
+   *
+   * @param thread the virtual thread.
+   * @param carrier the carrier thread.
+   * @param duration the time since the virtual thread has been mounted.
+   * @param stackTrace the stack trace of the virtual thread.
+   */
+  public record Hog(Thread thread, Thread carrier, Duration duration, StackTraceElement[] stackTrace) {}
+
+  // the state of a carrier, only written by the carrier and read by the watchdog and checkpoint()
+  private static final class Slot {
+    private volatile Mount mounted;
+    private volatile long start;
+    private volatile long slice;
+    private volatile long expiredSlice = -1;
+    private long reportedSlice = -1;  // only accessed by the watchdog thread
+  }
+
+  // the mount of the current virtual thread, used by checkpoint()
+  private static final ScopedValue<Mount> MOUNT = ScopedValue.newInstance();
+
+  // the executor of one virtual thread, the continuation of a virtual thread is submitted
+  // at most once at a time, so this object can be submitted to the carrier executor as is
+  private final class Mount implements Executor, Runnable {
+    private Thread thread;
+    private Runnable continuation;
+    private Slot slot;  // the slot of the carrier, written by the carrier before mounting the virtual thread
+
+    @Override
+    public void execute(Runnable continuation) {
+      Objects.requireNonNull(continuation);
+      this.continuation = continuation;
+      executor.execute(this);
+    }
+
+    @Override
+    public void run() {
+      var continuation = this.continuation;
+      this.continuation = null;
+      var slot = slot(Thread.currentThread());
+      this.slot = slot;
+      slot.start = System.nanoTime();
+      slot.slice = slot.slice + 1;  // only the carrier writes
+      slot.mounted = this;
+      try {
+        continuation.run();
+      } finally {
+        slot.mounted = null;
+      }
+    }
+  }
+
+  private final Executor executor;
+  private final ConcurrentHashMap<Thread, Slot> slots = new ConcurrentHashMap<>();  // keyed by the carriers
+  private final long timeSlice;
+  private final long hogThreshold;
+  private final Consumer<? super Hog> listener;
+  private final Thread watchdog;
+  private volatile boolean closed;
+
+  /**
+   * Creates a watchdog on the carriers of an executor.
+   * @param executor the carrier executor.
+   * @param timeSlice the duration after which {@link #checkpoint()} yields.
+   * @param hogThreshold the duration after which a mounted virtual thread is reported.
+   * @param listener the listener called by the watchdog thread for each virtual thread mounted
+   *                 for longer than the threshold, at most once per mount.
+   * @throws IllegalArgumentException if the time slice or the threshold is not positive.
+   */
+  public WatchdogExecutor(Executor executor, Duration timeSlice, Duration hogThreshold, Consumer<? super Hog> listener) {
+    Objects.requireNonNull(executor);
+    Objects.requireNonNull(timeSlice);
+    Objects.requireNonNull(hogThreshold);
+    Objects.requireNonNull(listener);
+    if (timeSlice.isNegative() || timeSlice.isZero()) {
+      throw new IllegalArgumentException("time slice <= 0");
+    }
+    if (hogThreshold.isNegative() || hogThreshold.isZero()) {
+      throw new IllegalArgumentException("hog threshold <= 0");
+    }
+    this.executor = executor;
+    this.timeSlice = timeSlice.toNanos();
+    this.hogThreshold = hogThreshold.toNanos();
+    this.listener = listener;
+    var watchdog = new Thread(this::watch, "carrier-watchdog");
+    watchdog.setDaemon(true);
+    this.watchdog = watchdog;
+    watchdog.start();
+  }
+
+  private Slot slot(Thread carrier) {
+    var slot = slots.get(carrier);
+    if (slot != null) {
+      return slot;
+    }
+    return slots.computeIfAbsent(carrier, __ -> new Slot());
+  }
+
+  /**
+   * Returns a thread factory that creates virtual threads watched by this watchdog.
+   * @return a thread factory that creates virtual threads watched by this watchdog.
+   */
+  public ThreadFactory factory() {
+    return runnable -> {
+      Objects.requireNonNull(runnable);
+      var mount = new Mount();
+      var thread = UnsafeExecutors.configureBuilderExecutor(Thread.ofVirtual(), mount)
+          .unstarted(() -> ScopedValue.where(MOUNT, mount).run(runnable));
+      mount.thread = thread;
+      return thread;
+    };
+  }
+
+  /**
+   * Yields the current virtual thread if it was created by a {@link #factory()} of a watchdog
+   * and is mounted on its carrier for longer than the time slice.
+   * Otherwise, does nothing.
+   * <p>
+   * This method does not read the clock, the watchdog thread marks the time slices as expired,
+   * so it can be called often.
+   */
+  public static void checkpoint() {
+    if (!MOUNT.isBound()) {
+      return;
+    }
+    var mount = MOUNT.get();
+    if (mount.thread != Thread.currentThread()) {
+      return;  // a thread that inherits the scoped value, by example a subtask of a structured scope
+    }
+    var slot = mount.slot;
+    if (slot.mounted != mount || slot.expiredSlice != slot.slice) {
+      return;
+    }
+    Thread.yield();
+  }
+
+  private void watch() {
+    var period = Math.max(100_000, Math.min(timeSlice, hogThreshold) / 2);
+    while (!closed) {
+      LockSupport.parkNanos(this, period);
+      var now = System.nanoTime();
+      slots.forEach((carrier, slot) -> {
+        var mount = slot.mounted;
+        if (mount == null) {
+          if (!carrier.isAlive()) {
+            slots.remove(carrier);  // a carrier of an elastic pool that has stopped
+          }
+          return;
+        }
+        var slice = slot.slice;
+        var duration = now - slot.start;
+        if (duration > timeSlice) {
+          slot.expiredSlice = slice;
+        }
+        if (duration > hogThreshold && slot.reportedSlice != slice) {
+          slot.reportedSlice = slice;
+          var stackTrace = mount.thread.getStackTrace();
+          if (slot.slice != slice) {
+            return;  // unmounted in between
+          }
+          try {
+            listener.accept(new Hog(mount.thread, carrier, Duration.ofNanos(duration), stackTrace));
+          } catch (RuntimeException | Error e) {
+            var watchdog = Thread.currentThread();
+            watchdog.getUncaughtExceptionHandler().uncaughtException(watchdog, e);
+          }
+        }
+      });
+    }
+  }
+
+  /**
+   * Stops the watchdog thread and waits for its termination.
+   * The virtual threads created by the {@link #factory()} still run on the carrier executor
+   * but are not reported anymore and {@link #checkpoint()} does not yield anymore.
+   */
+  @Override
+  public void close() {
+    closed = true;
+    LockSupport.unpark(watchdog);
+    var interrupted = false;
+    for(;;) {
+      try {
+        watchdog.join();
+        break;
+      } catch (InterruptedException e) {
+        interrupted = true;
+      }
+    }
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
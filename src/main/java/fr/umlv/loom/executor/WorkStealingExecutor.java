@@ -0,0 +1,208 @@
+package fr.umlv.loom.executor;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.BooleanSupplier;
+
+/**
+ * An executor designed to be used as carrier pool of virtual threads,
+ * see {@link UnsafeExecutors#virtualThreadExecutor(Executor)} and
+ * {@link UnsafeExecutors#configureBuilderExecutor(Thread.Builder, Executor)}.
+ * <p>
+ * Each worker (carrier) thread has its own run queue and a slot, {@code next},
+ * that stores the last task submitted from that carrier,
+ * so a virtual thread unparked by another virtual thread runs on the same carrier as soon as
+ * the current one yields, while its stack is still hot in the caches.
+ * Tasks submitted from a thread which is not a carrier of this executor are pushed into
+ * a shared injection queue.
+ * A virtual thread that yields is also pushed into the injection queue,
+ * behind the tasks submitted from outside, so it does not starve them.
+ * An idle worker steals tasks from the run queues of the other workers.
+ */
+public final class WorkStealingExecutor implements Executor, AutoCloseable {
+  private static final int INJECTION_CHECK_INTERVAL = 61;
+
+  private static final class Worker extends Thread {
+    private final WorkStealingExecutor executor;
+    private final ConcurrentLinkedQueue<Runnable> queue = new ConcurrentLinkedQueue<>();
+    private volatile Runnable next;
+    private Runnable current;  // only accessed by the worker thread
+    private int tick;
+
+    private static final VarHandle NEXT;
+    static {
+      try {
+        NEXT = MethodHandles.lookup().findVarHandle(Worker.class, "next", Runnable.class);
+      } catch (NoSuchFieldException | IllegalAccessException e) {
+        throw new AssertionError(e);
+      }
+    }
+
+    private Worker(WorkStealingExecutor executor, int index) {
+      super("carrier-" + index);
+      this.executor = executor;
+      setDaemon(true);
+    }
+
+    private void push(Runnable task) {
+      var previous = (Runnable) NEXT.getAndSet(this, task);
+      if (previous != null) {
+        queue.offer(previous);
+      }
+    }
+
+    private Runnable takeNext() {
+      if (next == null) {  // volatile read
+        return null;
+      }
+      return (Runnable) NEXT.getAndSet(this, null);
+    }
+
+    private Runnable findTask() {
+      Runnable task;
+      if (++tick % INJECTION_CHECK_INTERVAL == 0) {  // avoid starvation of the queues
+        if ((task = executor.injectionQueue.poll()) != null || (task = queue.poll()) != null) {
+          return task;
+        }
+      }
+      if ((task = takeNext()) != null || (task = queue.poll()) != null ||
+          (task = executor.injectionQueue.poll()) != null) {
+        return task;
+      }
+      return executor.steal(this);
+    }
+
+    private boolean hasTask() {
+      return next != null || !queue.isEmpty() || executor.hasTask();
+    }
+
+    @Override
+    public void run() {
+      BooleanSupplier wakeUp = () -> hasTask() || executor.shutdown;
+      for(;;) {
+        var task = findTask();
+        if (task == null) {
+          if (executor.shutdown && !executor.hasTask()) {
+            return;
+          }
+          executor.carriers.park(wakeUp);
+          continue;
+        }
+        current = task;
+        try {
+          task.run();
+        } catch (RuntimeException | Error e) {
+          getUncaughtExceptionHandler().uncaughtException(this, e);
+        } finally {
+          current = null;
+        }
+      }
+    }
+  }
+
+  private final Worker[] workers;
+  private final Workers carriers;
+  private final ConcurrentLinkedQueue<Runnable> injectionQueue = new ConcurrentLinkedQueue<>();
+  private volatile boolean shutdown;
+
+  /**
+   * Creates an executor with one worker per available processor.
+   */
+  public WorkStealingExecutor() {
+    this(Runtime.getRuntime().availableProcessors());
+  }
+
+  /**
+   * Creates an executor with a fixed number of workers.
+   * @param parallelism the number of workers (carrier threads).
+   * @throws IllegalArgumentException if parallelism is not positive.
+   */
+  public WorkStealingExecutor(int parallelism) {
+    if (parallelism <= 0) {
+      throw new IllegalArgumentException("parallelism <= 0");
+    }
+    var workers = new Worker[parallelism];
+    for (var i = 0; i < workers.length; i++) {
+      workers[i] = new Worker(this, i);
+    }
+    this.workers = workers;
+    carriers = new Workers(workers);
+    carriers.start();
+  }
+
+  private boolean hasTask() {
+    if (!injectionQueue.isEmpty()) {
+      return true;
+    }
+    for (var worker : workers) {
+      if (worker.next != null || !worker.queue.isEmpty()) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private Runnable steal(Worker thief) {
+    var workers = this.workers;
+    var start = ThreadLocalRandom.current().nextInt(workers.length);
+    for (var i = 0; i < workers.length; i++) {
+      var victim = workers[(start + i) % workers.length];
+      if (victim != thief) {
+        var task = victim.queue.poll();
+        if (task != null) {
+          return task;
+        }
+      }
+    }
+    // only steal the next task if there is nothing else to run
+    for (var i = 0; i < workers.length; i++) {
+      var victim = workers[(start + i) % workers.length];
+      if (victim != thief) {
+        var task = victim.takeNext();
+        if (task != null) {
+          return task;
+        }
+      }
+    }
+    return null;
+  }
+
+  @Override
+  public void execute(Runnable task) {
+    Objects.requireNonNull(task);
+    if (shutdown) {
+      throw new RejectedExecutionException("executor is shutdown");
+    }
+    if (UnsafeExecutors.currentCarrierThread() instanceof Worker worker && worker.executor == this
+        && worker.current != task) {  // a virtual thread that yields goes to the injection queue
+      worker.push(task);
+    } else {
+      injectionQueue.offer(task);
+    }
+    carriers.signal();
+  }
+
+  /**
+   * Returns the number of workers.
+   * @return the number of workers.
+   */
+  public int parallelism() {
+    return workers.length;
+  }
+
+  /**
+   * Stops to accept new tasks, runs the pending tasks and waits for the workers to terminate.
+   * Because a parked virtual thread is re-submitted when unparked,
+   * all the virtual threads using this executor should be terminated before calling this method.
+   */
+  @Override
+  public void close() {
+    shutdown = true;
+    carriers.close();
+  }
+}
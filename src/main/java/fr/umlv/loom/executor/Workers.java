@@ -0,0 +1,112 @@
+package fr.umlv.loom.executor;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BooleanSupplier;
+
+/**
+ * The fixed set of carrier threads of an executor.
+ * A carrier with nothing to run parks, {@link #signal()} wakes up one parked carrier.
+ */
+final class Workers {
+  private final Thread[] threads;
+  private final ConcurrentLinkedQueue<Thread> idleThreads = new ConcurrentLinkedQueue<>();
+
+  /**
+   * Creates the workers, the threads are not started.
+   * @param threads the carrier threads.
+   */
+  Workers(Thread[] threads) {
+    this.threads = threads;
+  }
+
+  /**
+   * Creates daemon carrier threads named {@code name-index} that all run the same loop.
+   * @param name the prefix of the name of the threads.
+   * @param parallelism the number of threads.
+   * @param loop the code run by each thread.
+   * @return the workers, the threads are not started.
+   */
+  static Workers of(String name, int parallelism, Runnable loop) {
+    var threads = new Thread[parallelism];
+    for (var i = 0; i < threads.length; i++) {
+      var thread = new Thread(loop, name + "-" + i);
+      thread.setDaemon(true);
+      threads[i] = thread;
+    }
+    return new Workers(threads);
+  }
+
+  void start() {
+    for (var thread : threads) {
+      thread.start();
+    }
+  }
+
+  int size() {
+    return threads.length;
+  }
+
+  /**
+   * Parks the current carrier until it is signaled.
+   * The carrier is registered as idle before checking {@code wakeUp} a last time,
+   * so a task submitted concurrently is not missed.
+   * @param wakeUp returns true if there is a task to run or if the executor is shutdown.
+   */
+  void park(BooleanSupplier wakeUp) {
+    var thread = Thread.currentThread();
+    idleThreads.offer(thread);
+    if (wakeUp.getAsBoolean()) {
+      idleThreads.remove(thread);
+      return;
+    }
+    LockSupport.park(this);
+    idleThreads.remove(thread);  // in case of spurious wakeup
+  }
+
+  /**
+   * Wakes up one parked carrier, if any.
+   */
+  void signal() {
+    var thread = idleThreads.poll();
+    if (thread != null) {
+      LockSupport.unpark(thread);
+    }
+  }
+
+  /**
+   * Wakes up all the carriers and waits for them to terminate.
+   * The executor must be marked as shutdown before calling this method.
+   */
+  void close() {
+    for (var thread : threads) {
+      LockSupport.unpark(thread);
+    }
+    join(threads);
+  }
+
+  /**
+   * Waits for the threads to terminate, except the current thread.
+   * If the current thread is interrupted, it keeps waiting and its interrupt status is set on return.
+   * @param threads the threads to wait for.
+   */
+  static void join(Thread[] threads) {
+    var interrupted = false;
+    for (var thread : threads) {
+      if (thread == Thread.currentThread()) {
+        continue;
+      }
+      for(;;) {
+        try {
+          thread.join();
+          break;
+        } catch (InterruptedException e) {
+          interrupted = true;
+        }
+      }
+    }
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
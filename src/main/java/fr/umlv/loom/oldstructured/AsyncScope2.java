@@ -83,6 +83,34 @@ public sealed interface AsyncScope2<R, E extends Exception> extends AutoCloseabl
     return AsyncScope2Impl.of(false);
   }
 
+  /**
+   * Creates an async scope with that receives the results of tasks in the order of the calls to {@link #async(Task)}
+   * and runs at most {@code maxConcurrency} tasks at the same time,
+   * {@link #async(Task)} blocks until a running task completes.
+   *
+   * @param maxConcurrency the maximum number of tasks running at the same time
+   * @param <R> type of task values
+   * @param <E> type of the checked exception or {@link RuntimeException} otherwise
+   * @throws IllegalArgumentException if maxConcurrency is not positive
+   */
+  static <R, E extends Exception> AsyncScope2<R,E> ordered(int maxConcurrency) {
+    return AsyncScope2Impl.of(true, maxConcurrency);
+  }
+
+  /**
+   * Creates an async scope that receives the results of tasks out of order
+   * and runs at most {@code maxConcurrency} tasks at the same time,
+   * {@link #async(Task)} blocks until a running task completes.
+   *
+   * @param maxConcurrency the maximum number of tasks running at the same time
+   * @param <R> type of task values
+   * @param <E> type of the checked exception or {@link RuntimeException} otherwise
+   * @throws IllegalArgumentException if maxConcurrency is not positive
+   */
+  static <R, E extends Exception> AsyncScope2<R,E> unordered(int maxConcurrency) {
+    return AsyncScope2Impl.of(false, maxConcurrency);
+  }
+
   /**
    * Task to execute.
    * @param <R> type of the return value
@@ -1,5 +1,7 @@
 package fr.umlv.loom.oldstructured;
 
+import fr.umlv.loom.executor.BoundedExecutor;
+
 import java.lang.reflect.Modifier;
 import java.time.Duration;
 import java.time.Instant;
@@ -103,7 +105,14 @@ record AsyncScope2Impl<R, E extends Exception>(
   }
 
   public static <R, E extends Exception> AsyncScope2<R,E> of(boolean ordered) {
-    var executorService = Executors.newVirtualThreadPerTaskExecutor();
+    return of(ordered, Executors.newVirtualThreadPerTaskExecutor());
+  }
+
+  public static <R, E extends Exception> AsyncScope2<R,E> of(boolean ordered, int maxConcurrency) {
+    return of(ordered, new BoundedExecutor(maxConcurrency, BoundedExecutor.Policy.block()));
+  }
+
+  private static <R, E extends Exception> AsyncScope2<R,E> of(boolean ordered, ExecutorService executorService) {
     var completionService = ordered? null: new ExecutorCompletionService<R>(executorService);
     return new AsyncScope2Impl<>(executorService, completionService, new ArrayList<>(), null, null);
   }
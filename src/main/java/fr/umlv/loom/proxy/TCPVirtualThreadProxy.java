@@ -1,6 +1,6 @@
 package fr.umlv.loom.proxy;
 
-import fr.umlv.loom.executor.UnsafeExecutors;
+import fr.umlv.loom.executor.PinnedGroupExecutor;
 
 import java.io.IOException;
 import java.io.UncheckedIOException;
@@ -9,7 +9,6 @@ import java.net.InetSocketAddress;
 import java.nio.ByteBuffer;
 import java.nio.channels.ServerSocketChannel;
 import java.nio.channels.SocketChannel;
-import java.util.concurrent.Executors;
 
 public class TCPVirtualThreadProxy {
   private static Runnable runnable(SocketChannel socket1, SocketChannel socket2) {
@@ -56,8 +55,15 @@ public class TCPVirtualThreadProxy {
     var client = server.accept();
     //client.configureBlocking(false);
 
-    var executor = UnsafeExecutors.virtualThreadExecutor(Executors.newSingleThreadExecutor());
-    executor.execute(runnable(client, remote));
-    executor.execute(runnable(remote, client));
+    // both halves of the relay share the same carrier
+    try(var groups = new PinnedGroupExecutor(1)) {
+      var factory = groups.factory(client.getRemoteAddress());
+      var thread1 = factory.newThread(runnable(client, remote));
+      var thread2 = factory.newThread(runnable(remote, client));
+      thread1.start();
+      thread2.start();
+      thread1.join();
+      thread2.join();
+    }
   }
 }
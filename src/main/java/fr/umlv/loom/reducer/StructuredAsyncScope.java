@@ -9,6 +9,7 @@ import java.util.Comparator;
 import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.StructuredTaskScope;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeoutException;
 import java.util.function.Function;
 
@@ -152,10 +153,19 @@ public final class StructuredAsyncScope<T, A, V> extends StructuredTaskScope<T>
     this.reducer = requireNonNull(reducer);
   }
 
+  public StructuredAsyncScope(Reducer<T, A, V> reducer, ThreadFactory factory) {
+    super(null, requireNonNull(factory));
+    this.reducer = requireNonNull(reducer);
+  }
+
   public static <T, V> StructuredAsyncScope<T, ?, V> of(Reducer<T, ?, V> reducer) {
     return new StructuredAsyncScope<>(reducer);
   }
 
+  public static <T, V> StructuredAsyncScope<T, ?, V> of(Reducer<T, ?, V> reducer, ThreadFactory factory) {
+    return new StructuredAsyncScope<>(reducer, factory);
+  }
+
   @Override
   protected void handleComplete(Subtask<? extends T> subtask) {
     Result<T> result = switch (subtask.state()) {
@@ -0,0 +1,187 @@
+package fr.umlv.loom.structured;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * A registry of named bulkheads, one per downstream dependency.
+ * <p>
+ * A {@link Bulkhead} is an isolated concurrency budget, at most {@code maxConcurrent} computations run
+ * at the same time and at most {@code maxQueued} computations wait for a permit, the other computations
+ * are rejected with a {@link RejectedExecutionException}.
+ * A computation waits for a permit in its own virtual thread, so if a slow dependency saturates its bulkhead,
+ * only the computations that go to that dependency are delayed.
+ * <pre>
+ *   var bulkheads = new Bulkheads();
+ *   var episodeAPI = bulkheads.bulkhead("episode-api", 2, 10);
+ *   var characterAPI = bulkheads.bulkhead("character-api", 8, 100);
+ *   try(var scope = new StructuredScopeAsStream&lt;Character, IOException&gt;()) {
+ *     for(var uri: uris) {
+ *       scope.fork(characterAPI, () -&gt; character(uri));
+ *     }
+ *     ...
+ *   }
+ *   System.out.println(bulkheads.metrics());
+ * </pre>
+ *
+ * @see StructuredScopeAsStream#fork(Bulkhead, Invokable)
+ * @see StructuredScopeShutdownOnFailure#fork(Bulkhead, Invokable)
+ * @see StructuredScopeShutdownOnSuccess#fork(Bulkhead, Invokable)
+ */
+public final class Bulkheads {
+  /**
+   * A snapshot of the metrics of a bulkhead.
+   *
+   * @param name the name of the bulkhead.
+   * @param maxConcurrent the maximum number of computations running at the same time.
+   * @param maxQueued the maximum number of computations waiting for a permit.
+   * @param inFlight the number of computations running.
+   * @param queued the number of computations waiting for a permit.
+   * @param completed the number of computations completed.
+   * @param rejected the number of computations rejected because the queue was full.
+   * @param waitTime the sum of the time spent waiting for a permit in nanoseconds.
+   */
+  public record Metrics(String name, int maxConcurrent, int maxQueued,
+                        int inFlight, int queued, long completed, long rejected, long waitTime) {}
+
+  /**
+   * A concurrency budget and a queue dedicated to a downstream dependency.
+   */
+  public static final class Bulkhead {
+    private final String name;
+    private final int maxConcurrent;
+    private final int maxQueued;
+    private final Semaphore permits;
+    private final AtomicInteger queued = new AtomicInteger();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder waitTime = new LongAdder();
+
+    private Bulkhead(String name, int maxConcurrent, int maxQueued) {
+      this.name = name;
+      this.maxConcurrent = maxConcurrent;
+      this.maxQueued = maxQueued;
+      this.permits = new Semaphore(maxConcurrent, true);
+    }
+
+    /**
+     * Returns the name of this bulkhead.
+     * @return the name of this bulkhead.
+     */
+    public String name() {
+      return name;
+    }
+
+    /**
+     * Returns a snapshot of the metrics of this bulkhead.
+     * @return a snapshot of the metrics of this bulkhead.
+     */
+    public Metrics metrics() {
+      return new Metrics(name, maxConcurrent, maxQueued,
+          maxConcurrent - permits.availablePermits(), queued.get(),
+          completed.sum(), rejected.sum(), waitTime.sum());
+    }
+
+    private void acquire() throws InterruptedException {
+      if (permits.tryAcquire(0, TimeUnit.SECONDS)) {  // unlike tryAcquire(), does not barge in front of the queued threads
+        return;
+      }
+      if (queued.incrementAndGet() > maxQueued) {
+        queued.decrementAndGet();
+        rejected.increment();
+        throw new RejectedExecutionException("bulkhead " + name + " is full");
+      }
+      var start = System.nanoTime();
+      try {
+        permits.acquire();
+      } finally {
+        queued.decrementAndGet();
+        waitTime.add(System.nanoTime() - start);
+      }
+    }
+
+    /**
+     * Waits for a permit of this bulkhead and runs the computation.
+     * @param invokable the computation.
+     * @return the result of the computation.
+     * @param <T> the type of the result.
+     * @param <E> the type of the exception thrown by the computation.
+     * @throws E the exception thrown by the computation.
+     * @throws InterruptedException if the current thread is interrupted
+     *   while waiting or during the computation.
+     * @throws RejectedExecutionException if too many computations are already waiting for a permit.
+     */
+    public <T, E extends Exception> T invoke(Invokable<? extends T, ? extends E> invokable) throws E, InterruptedException {
+      Objects.requireNonNull(invokable);
+      acquire();
+      try {
+        return invokable.invoke();
+      } finally {
+        permits.release();
+        completed.increment();
+      }
+    }
+
+    @Override
+    public String toString() {
+      return "Bulkhead " + name;
+    }
+  }
+
+  private final ConcurrentHashMap<String, Bulkhead> bulkheads = new ConcurrentHashMap<>();
+
+  /**
+   * Returns the bulkhead named {@code name}, creating it if necessary.
+   * @param name the name of the bulkhead, usually the name of the dependency.
+   * @param maxConcurrent the maximum number of computations running at the same time.
+   * @param maxQueued the maximum number of computations waiting for a permit.
+   * @return the bulkhead named {@code name}.
+   * @throws IllegalArgumentException if maxConcurrent is not positive or maxQueued is negative.
+   * @throws IllegalStateException if a bulkhead with the same name but another configuration exists.
+   */
+  public Bulkhead bulkhead(String name, int maxConcurrent, int maxQueued) {
+    Objects.requireNonNull(name);
+    if (maxConcurrent <= 0) {
+      throw new IllegalArgumentException("maxConcurrent <= 0");
+    }
+    if (maxQueued < 0) {
+      throw new IllegalArgumentException("maxQueued < 0");
+    }
+    var bulkhead = bulkheads.computeIfAbsent(name, __ -> new Bulkhead(name, maxConcurrent, maxQueued));
+    if (bulkhead.maxConcurrent != maxConcurrent || bulkhead.maxQueued != maxQueued) {
+      throw new IllegalStateException("bulkhead " + name + " already exists with another configuration");
+    }
+    return bulkhead;
+  }
+
+  /**
+   * Returns the bulkhead named {@code name}.
+   * @param name the name of the bulkhead.
+   * @return the bulkhead named {@code name}.
+   * @throws IllegalArgumentException if there is no bulkhead named {@code name}.
+   */
+  public Bulkhead bulkhead(String name) {
+    Objects.requireNonNull(name);
+    var bulkhead = bulkheads.get(name);
+    if (bulkhead == null) {
+      throw new IllegalArgumentException("no bulkhead " + name);
+    }
+    return bulkhead;
+  }
+
+  /**
+   * Returns a snapshot of the metrics of all bulkheads by name.
+   * @return an unmodifiable map of the metrics of all bulkheads by name.
+   */
+  public Map<String, Metrics> metrics() {
+    return bulkheads.values().stream()
+        .collect(Collectors.toUnmodifiableMap(Bulkhead::name, Bulkhead::metrics));
+  }
+}
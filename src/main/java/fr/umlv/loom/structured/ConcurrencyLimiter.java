@@ -0,0 +1,244 @@
+package fr.umlv.loom.structured;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A limit on the number of computations running at the same time that adapts itself
+ * from the observed latency, in the spirit of Netflix's concurrency-limits.
+ * <p>
+ * A fixed limit is either too low when the dependency is healthy or too high during a brownout,
+ * so the limit is recomputed each time a computation completes:
+ * <ul>
+ *   <li>{@link #aimd(int, int, int, Duration) AIMD} (additive increase, multiplicative decrease)
+ *       increases the limit by one when a computation succeeds while the limit is nearly reached
+ *       and multiplies the limit by 0.9 when a computation fails or takes longer than a timeout,
+ *       only once for all the computations that were already running at that time,
+ *   <li>{@link #vegas(int, int, int) Vegas} estimates the number of computations queued in the dependency
+ *       by comparing the latency of the computation with the lowest latency seen,
+ *       the limit grows if the estimated queue is small and shrinks if the estimated queue is large.
+ * </ul>
+ * A computation that fails with an exception is considered as a sign of overload,
+ * a computation that is interrupted (cancelled) is not taken into account.
+ * <p>
+ * A limiter is usually shared by all the scopes that call the same dependency
+ * <pre>
+ *   var limiter = ConcurrencyLimiter.vegas(10, 1, 200);
+ *   ...
+ *   try(var scope = new StructuredScopeAsStream&lt;String, IOException&gt;(limiter)) {
+ *     urls.forEach(url -&gt; scope.fork(() -&gt; fetch(url)));
+ *     ...
+ *   }
+ * </pre>
+ * The forks are not blocked, each computation waits in its own virtual thread
+ * until the number of computations in flight is lower than the limit.
+ *
+ * @see StructuredScopeAsStream#StructuredScopeAsStream(ConcurrencyLimiter)
+ * @see StructuredScopeShutdownOnFailure#StructuredScopeShutdownOnFailure(ConcurrencyLimiter)
+ */
+public final class ConcurrencyLimiter {
+  private sealed interface Algorithm {
+    // returns the new limit, called with the lock held
+    double update(double limit, long start, long rtt, int inFlight, boolean dropped);
+  }
+
+  private static final class Aimd implements Algorithm {
+    private static final double BACKOFF_RATIO = 0.9;
+
+    private final long timeout;
+    private long lastBackoff = System.nanoTime();
+
+    private Aimd(long timeout) {
+      this.timeout = timeout;
+    }
+
+    @Override
+    public double update(double limit, long start, long rtt, int inFlight, boolean dropped) {
+      if (dropped || rtt > timeout) {
+        // the computations started before the last backoff see the same overload, back off only once
+        if (start - lastBackoff < 0) {
+          return limit;
+        }
+        lastBackoff = start + rtt;
+        return limit * BACKOFF_RATIO;
+      }
+      if (inFlight * 2 >= limit) {  // do not grow if the limit is not used
+        return limit + 1;
+      }
+      return limit;
+    }
+  }
+
+  private static final class Vegas implements Algorithm {
+    private static final int PROBE_MULTIPLIER = 30;
+
+    private long rttNoLoad = Long.MAX_VALUE;
+    private long sampleCount;
+
+    @Override
+    public double update(double limit, long start, long rtt, int inFlight, boolean dropped) {
+      // the dependency may have become faster, forget the lowest latency from time to time
+      if (++sampleCount >= PROBE_MULTIPLIER * limit) {
+        sampleCount = 0;
+        rttNoLoad = rtt;
+        return limit;
+      }
+      rttNoLoad = Math.min(rttNoLoad, rtt);
+      var log = Math.max(1, Math.log10(limit));
+      if (dropped) {
+        return limit - log;
+      }
+      if (inFlight * 2 < limit) {  // do not grow if the limit is not used
+        return limit;
+      }
+      var queueSize = Math.ceil(limit * (1 - (double) rttNoLoad / rtt));
+      if (queueSize <= 3 * log) {
+        return limit + log;
+      }
+      if (queueSize > 6 * log) {
+        return limit - log;
+      }
+      return limit;
+    }
+  }
+
+  private final Algorithm algorithm;
+  private final int minLimit;
+  private final int maxLimit;
+  private final ReentrantLock lock = new ReentrantLock();
+  private final Condition permitAvailable = lock.newCondition();
+  private double limit;
+  private int inFlight;
+
+  private ConcurrencyLimiter(Algorithm algorithm, int initialLimit, int minLimit, int maxLimit) {
+    if (minLimit <= 0) {
+      throw new IllegalArgumentException("minLimit <= 0");
+    }
+    if (minLimit > maxLimit) {
+      throw new IllegalArgumentException("minLimit > maxLimit");
+    }
+    if (initialLimit < minLimit || initialLimit > maxLimit) {
+      throw new IllegalArgumentException("initialLimit not in [minLimit, maxLimit]");
+    }
+    this.algorithm = algorithm;
+    this.minLimit = minLimit;
+    this.maxLimit = maxLimit;
+    this.limit = initialLimit;
+  }
+
+  /**
+   * Creates a limiter that uses the AIMD algorithm.
+   * @param initialLimit the initial limit.
+   * @param minLimit the minimum limit.
+   * @param maxLimit the maximum limit.
+   * @param timeout the latency over which a computation is considered as dropped.
+   * @return a new limiter.
+   * @throws IllegalArgumentException if the limits are not positive and ordered or if the timeout is not positive.
+   */
+  public static ConcurrencyLimiter aimd(int initialLimit, int minLimit, int maxLimit, Duration timeout) {
+    Objects.requireNonNull(timeout);
+    if (timeout.isNegative() || timeout.isZero()) {
+      throw new IllegalArgumentException("timeout <= 0");
+    }
+    return new ConcurrencyLimiter(new Aimd(timeout.toNanos()), initialLimit, minLimit, maxLimit);
+  }
+
+  /**
+   * Creates a limiter that uses the Vegas algorithm.
+   * @param initialLimit the initial limit.
+   * @param minLimit the minimum limit.
+   * @param maxLimit the maximum limit.
+   * @return a new limiter.
+   * @throws IllegalArgumentException if the limits are not positive and ordered.
+   */
+  public static ConcurrencyLimiter vegas(int initialLimit, int minLimit, int maxLimit) {
+    return new ConcurrencyLimiter(new Vegas(), initialLimit, minLimit, maxLimit);
+  }
+
+  /**
+   * Returns the current limit.
+   * @return the current limit.
+   */
+  public int limit() {
+    lock.lock();
+    try {
+      return (int) limit;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Returns the number of computations running.
+   * @return the number of computations running.
+   */
+  public int inFlight() {
+    lock.lock();
+    try {
+      return inFlight;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private void acquire() throws InterruptedException {
+    lock.lock();
+    try {
+      while (inFlight >= (int) limit) {
+        permitAvailable.await();
+      }
+      inFlight++;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private void release(long start, long rtt, boolean dropped, boolean ignored) {
+    lock.lock();
+    try {
+      var oldLimit = (int) limit;
+      if (!ignored) {
+        limit = Math.clamp(algorithm.update(limit, start, rtt, inFlight, dropped), minLimit, maxLimit);
+      }
+      inFlight--;
+      if ((int) limit > oldLimit) {
+        permitAvailable.signalAll();
+      } else {
+        permitAvailable.signal();
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Waits until the number of computations in flight is lower than the limit,
+   * runs the computation and updates the limit with the latency of the computation.
+   * @param invokable the computation.
+   * @return the result of the computation.
+   * @param <T> the type of the result.
+   * @param <E> the type of the exception thrown by the computation.
+   * @throws E the exception thrown by the computation.
+   * @throws InterruptedException if the current thread is interrupted
+   *   while waiting or during the computation.
+   */
+  public <T, E extends Exception> T invoke(Invokable<? extends T, ? extends E> invokable) throws E, InterruptedException {
+    Objects.requireNonNull(invokable);
+    acquire();
+    var start = System.nanoTime();
+    var dropped = true;
+    var ignored = false;
+    try {
+      var value = invokable.invoke();
+      dropped = false;
+      return value;
+    } catch (InterruptedException e) {
+      ignored = true;
+      throw e;
+    } finally {
+      release(start, System.nanoTime() - start, dropped, ignored);
+    }
+  }
+}
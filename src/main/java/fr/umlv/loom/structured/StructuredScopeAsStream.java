@@ -1,11 +1,21 @@
 package fr.umlv.loom.structured;
 
+import fr.umlv.loom.structured.Bulkheads.Bulkhead;
+
 import java.lang.invoke.MethodHandles;
 import java.lang.invoke.VarHandle;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.Objects;
 import java.util.Spliterator;
-import java.util.concurrent.LinkedBlockingQueue;
+import java.util.Spliterators;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
 import java.util.concurrent.StructuredTaskScope;
+import java.util.concurrent.locks.LockSupport;
 import java.util.function.BinaryOperator;
 import java.util.function.Consumer;
 import java.util.function.Function;
@@ -157,6 +167,8 @@ public final class StructuredScopeAsStream<T, E extends Exception> implements Au
      * are both failures the first one is returned, the second exception is added as
      * {@link Throwable#addSuppressed(Throwable) suppressed exception}.
      * If the two results does not have the same type, a success is preferred to a failure.
+     * The exception of the first failure is mutated, so with a parallel stream the way the suppressed exceptions
+     * are nested depends on how the stream is split, use {@link #toResult(Collector)} instead.
      *
      * @param successMerger a binary function to merge to results
      * @return a binary function to {@link Stream#reduce(BinaryOperator)} two results.
@@ -183,6 +195,8 @@ public final class StructuredScopeAsStream<T, E extends Exception> implements Au
     /**
      * Returns a collector that collect the successful results using a downstream collector or
      * if all results have failed keep the first failure and adds the other failure as suppressed exceptions.
+     * The collector supports parallel streams, the partial results are combined with the combiner
+     * of the downstream collector.
      *
      * @param downstream a downstream collector
      * @return a collector that collect the successful results using a downstream collector
@@ -196,10 +210,18 @@ public final class StructuredScopeAsStream<T, E extends Exception> implements Au
       Objects.requireNonNull(downstream, "downstream collector is null");
       var downstreamSupplier = downstream.supplier();
       var downstreamAccumulator = downstream.accumulator();
-      //var downstreamCombiner =  downstream.combiner();
+      var downstreamCombiner = downstream.combiner();
       var downstreamFinisher = downstream.finisher();
       class Box {  // Collector API is mutable
         private Result<A,E> value;
+        private ArrayList<E> suppressed;  // added to the failure by the finisher, so the combiner does not nest them
+
+        private void addSuppressed(E failure) {
+          if (suppressed == null) {
+            suppressed = new ArrayList<>();
+          }
+          suppressed.add(failure);
+        }
       }
       return Collector.of(
           Box::new,
@@ -225,26 +247,61 @@ public final class StructuredScopeAsStream<T, E extends Exception> implements Au
                     var a = downstreamSupplier.get();
                     downstreamAccumulator.accept(a, result.result);
                     box.value = new Result<>(State.SUCCESS, a, null);
+                    box.suppressed = null;
                   }
                 }
               }
               case FAILED -> {
                 switch (box.value.state) {
                   case SUCCESS -> {}
-                  case FAILED -> box.value.failure.addSuppressed(result.failure);
+                  case FAILED -> box.addSuppressed(result.failure);
                 }
               }
             }
           },
           (box1, box2) -> {
-            throw new IllegalStateException("this collector does not support parallel streams");
+            if (box1.value == null) {
+              return box2;
+            }
+            if (box2.value == null) {
+              return box1;
+            }
+            switch (box1.value.state) {
+              case SUCCESS -> {
+                switch (box2.value.state) {
+                  case SUCCESS -> box1.value = new Result<>(State.SUCCESS, downstreamCombiner.apply(box1.value.result, box2.value.result), null);
+                  case FAILED -> {}
+                }
+              }
+              case FAILED -> {
+                switch (box2.value.state) {
+                  case SUCCESS -> {
+                    box1.value = box2.value;
+                    box1.suppressed = null;
+                  }
+                  case FAILED -> {
+                    box1.addSuppressed(box2.value.failure);
+                    if (box2.suppressed != null) {
+                      box1.suppressed.addAll(box2.suppressed);
+                    }
+                  }
+                }
+              }
+            }
+            return box1;
           },
           box -> {
             if (box.value == null) {  // not initialized
               return new Result<>(State.SUCCESS, downstreamFinisher.apply(downstreamSupplier.get()), null);
             }
             return switch (box.value.state) {
-              case FAILED -> (Result<D, E>) box.value;
+              case FAILED -> {
+                if (box.suppressed != null) {
+                  box.suppressed.forEach(box.value.failure::addSuppressed);
+                }
+                var failed = (Result<D, E>) box.value;
+                yield failed;
+              }
               case SUCCESS -> new Result<>(State.SUCCESS, downstreamFinisher.apply(box.value.result), null);
             };
           }
@@ -252,10 +309,121 @@ public final class StructuredScopeAsStream<T, E extends Exception> implements Au
     }
   }
 
+  /**
+   * A multi-producers single-consumer queue of the results. The subtasks push the results on a lock-free stack,
+   * the consumer takes the whole stack at once, reverses it and only parks if the stack is empty.
+   * The subtask that pushes on an empty stack unparks the consumer.
+   * The consumer is the owner thread, or a thread of a parallel stream that has received the result spliterator
+   * from another consumer, there is only one consumer at a time.
+   */
+  private static final class CompletionQueue<T, E extends Exception> {
+    // a result, its fork index used by the reorder buffer and the link of the stack,
+    // allocated by the subtask, so the results stay immutable
+    private static final class Node<T, E extends Exception> {
+      private final Result<T, E> result;
+      private final long index;
+      private Node<T, E> next;
+
+      private Node(Result<T, E> result, long index) {
+        this.result = result;
+        this.index = index;
+      }
+    }
+
+    private volatile Thread consumer;
+    private volatile Node<T, E> head;  // the last pushed node, accessed by the subtasks
+    private Node<T, E> first;          // the nodes taken but not yet polled, accessed by the consumer
+
+    private static final VarHandle HEAD;
+    static {
+      try {
+        HEAD = MethodHandles.lookup().findVarHandle(CompletionQueue.class, "head", Node.class);
+      } catch (NoSuchFieldException | IllegalAccessException e) {
+        throw new AssertionError(e);
+      }
+    }
+
+    private CompletionQueue(Thread consumer) {
+      this.consumer = consumer;
+    }
+
+    private void offer(Result<T, E> result, long index) {
+      var node = new Node<>(result, index);
+      Node<T, E> head;
+      do {
+        head = this.head;
+        node.next = head;
+      } while (!HEAD.compareAndSet(this, head, node));
+      if (head == null) {  // the consumer may be parked
+        LockSupport.unpark(consumer);
+      }
+    }
+
+    // returns null if no result is available, never blocks
+    @SuppressWarnings("unchecked")
+    private Node<T, E> poll() {
+      var node = first;
+      if (node == null) {
+        if (head == null) {
+          return null;
+        }
+        var stack = (Node<T, E>) HEAD.getAndSet(this, null);
+        // reverse the stack, so the results are seen in completion order
+        Node<T, E> reversed = null;
+        while (stack != null) {
+          var next = stack.next;
+          stack.next = reversed;
+          reversed = stack;
+          stack = next;
+        }
+        node = reversed;
+      }
+      first = node.next;
+      node.next = null;
+      return node;
+    }
+
+    // if timed, returns null if no result is available before the deadline (in System.nanoTime() time)
+    private Node<T, E> take(boolean timed, long deadline) throws InterruptedException {
+      var node = poll();
+      if (node != null) {
+        return node;
+      }
+      var current = Thread.currentThread();
+      if (consumer != current) {  // must be visible before the stack is found empty
+        consumer = current;
+      }
+      while ((node = poll()) == null) {
+        if (Thread.interrupted()) {
+          throw new InterruptedException();
+        }
+        if (!timed) {
+          LockSupport.park(this);
+          continue;
+        }
+        var remaining = deadline - System.nanoTime();
+        if (remaining <= 0) {
+          return null;
+        }
+        LockSupport.parkNanos(this, remaining);
+      }
+      return node;
+    }
+  }
+
   private final Thread ownerThread;
+  private final ConcurrencyLimiter limiter;
   private final StructuredTaskScope<T> taskScope;
-  private final LinkedBlockingQueue<Result<T,E>> tasks = new LinkedBlockingQueue<>();
+  private final CompletionQueue<T, E> tasks;
+  private final Result<T, E>[] reorderBuffer;  // null if the results are not ordered
   private volatile long taskCount;
+  private volatile boolean consumerInterrupted;  // a consumer was interrupted, rethrown by the owner thread
+  // number of results consumed, only accessed by the thread that holds the result spliterator,
+  // the stream framework hands it off from thread to thread, pull() only runs on the owner thread while source != null
+  private long consumed;
+  private Stream<? extends Invokable<? extends T, ? extends E>> sourceStream;  // the source of forkAll or null
+  private Iterator<? extends Invokable<? extends T, ? extends E>> source;
+  private int maxInFlight;
 
   private static final VarHandle TASK_COUNT;
   static {
@@ -270,24 +438,103 @@ public final class StructuredScopeAsStream<T, E extends Exception> implements Au
    * Creates an asynchronous scope to manage several asynchronous computations.
    */
   public StructuredScopeAsStream() {
+    this(null);
+  }
+
+  /**
+   * Creates an asynchronous scope to manage several asynchronous computations,
+   * the number of computations running at the same time is limited by a concurrency limiter.
+   * @param limiter a concurrency limiter or null.
+   *
+   * @see ConcurrencyLimiter#invoke(Invokable)
+   */
+  public StructuredScopeAsStream(ConcurrencyLimiter limiter) {
+    this(limiter, 0);
+  }
+
+  @SuppressWarnings("unchecked")
+  private StructuredScopeAsStream(ConcurrencyLimiter limiter, int window) {
     this.ownerThread = Thread.currentThread();
+    this.limiter = limiter;
+    this.tasks = new CompletionQueue<>(ownerThread);
+    this.reorderBuffer = window == 0? null: (Result<T, E>[]) new Result<?, ?>[window];
     this.taskScope = new StructuredTaskScope<>() {
       @Override
       protected void handleComplete(Subtask<? extends T> subtask) {
         var result = toResult(subtask);
         if (result != null) {
-          tasks.add(result);
+          var index = subtask.task() instanceof OrderedTask<?> orderedTask? orderedTask.index: 0;
+          tasks.offer(result, index);
         }
       }
     };
   }
 
+  /**
+   * Creates an asynchronous scope that delivers the results in the order of the forks.
+   * The results that complete before the results forked before them are stored in a reorder buffer
+   * of window results, a result is sent to the stream of {@link #joinAll(Function)} as soon as
+   * all the results forked before it have been sent.
+   * <p>
+   * At most window computations can be running or waiting in the reorder buffer,
+   * {@link #forkAll(Stream, int)} pauses when the window is full and {@link #fork(Invokable)} throws
+   * an {@link IllegalStateException}, so the memory used by the scope stays bounded.
+   * A slow computation does not stop the others, only the forks after the window.
+   * The fork index is the position of the result, so only the thread that has created the scope can fork.
+   *
+   * @param window the size of the reorder buffer.
+   * @return a new asynchronous scope that delivers the results in order.
+   * @param <T> type of the results
+   * @param <E> type of the exception thrown by the computations
+   * @throws IllegalArgumentException if window is not positive.
+   */
+  public static <T, E extends Exception> StructuredScopeAsStream<T, E> ordered(int window) {
+    return ordered(window, null);
+  }
+
+  /**
+   * Creates an asynchronous scope that delivers the results in the order of the forks,
+   * the number of computations running at the same time is limited by a concurrency limiter.
+   *
+   * @param window the size of the reorder buffer.
+   * @param limiter a concurrency limiter or null.
+   * @return a new asynchronous scope that delivers the results in order.
+   * @param <T> type of the results
+   * @param <E> type of the exception thrown by the computations
+   * @throws IllegalArgumentException if window is not positive.
+   *
+   * @see #ordered(int)
+   */
+  public static <T, E extends Exception> StructuredScopeAsStream<T, E> ordered(int window, ConcurrencyLimiter limiter) {
+    if (window <= 0) {
+      throw new IllegalArgumentException("window <= 0");
+    }
+    return new StructuredScopeAsStream<>(limiter, window);
+  }
+
+  // a computation of an ordered scope, the index is the position of the result in the stream of results
+  private record OrderedTask<T>(long index, Callable<? extends T> callable) implements Callable<T> {
+    @Override
+    public T call() throws Exception {
+      return callable.call();
+    }
+  }
+
   private void checkThread() {
     if (ownerThread != Thread.currentThread()) {
       throw new WrongThreadException();
     }
   }
 
+  // called by the owner thread once the results are consumed, clears the interrupt status
+  private void checkInterrupted() throws InterruptedException {
+    var interrupted = consumerInterrupted;
+    consumerInterrupted = false;
+    if (Thread.interrupted() | interrupted) {
+      throw new InterruptedException();
+    }
+  }
+
   @Override
   public void close() {
     taskScope.close();
@@ -297,12 +544,14 @@ public final class StructuredScopeAsStream<T, E extends Exception> implements Au
    * Starts an asynchronous computation on a new virtual thread.
    * @param invokable the computation to run.
    * @return an asynchronous task, an object that represents the result of the computation in the future.
+   * @throws IllegalStateException if the scope is {@link #ordered(int) ordered} and the reorder window is full.
+   * @throws WrongThreadException if the scope is {@link #ordered(int) ordered} and this method is not called
+   *         by the thread that has created this scope.
    *
    * @see Subtask#get()
    */
   public Subtask<T, E> fork(Invokable<? extends T, ? extends E> invokable) {
-    var subtask = taskScope.<T>fork(invokable::invoke);
-    TASK_COUNT.getAndAdd(this, 1);
+    var subtask = forkTask(invokable);
     return new Subtask<>() {
       @Override
       public State state() {
@@ -335,6 +584,96 @@ public final class StructuredScopeAsStream<T, E extends Exception> implements Au
     };
   }
 
+  private StructuredTaskScope.Subtask<T> forkTask(Invokable<? extends T, ? extends E> invokable) {
+    Callable<? extends T> callable = limiter == null?
+        invokable::invoke:
+        () -> limiter.invoke(invokable);
+    if (reorderBuffer != null) {
+      checkThread();
+      var index = taskCount;  // volatile read
+      if (index - consumed >= reorderBuffer.length) {
+        throw new IllegalStateException("the reorder window is full");
+      }
+      callable = new OrderedTask<>(index, callable);
+    }
+    var subtask = taskScope.<T>fork(callable);
+    TASK_COUNT.getAndAdd(this, 1);
+    return subtask;
+  }
+
+  /**
+   * Starts the asynchronous computations of a stream lazily, at most maxInFlight computations are
+   * running or have a result not yet consumed, the next computations are pulled from the stream
+   * and started when the results are consumed by {@link #joinAll(Function)}.
+   * If the stream of results is short-circuited, no more computation is pulled from the stream.
+   * The stream of computations is closed when it is exhausted or at the end of the join.
+   * <p>
+   * The computations started with {@link #fork(Invokable)} also count as in flight.
+   * If the scope is {@link #ordered(int) ordered}, the window also limits the computations in flight.
+   * Unlike {@link #fork(Invokable)}, there is no {@link Subtask}, the results are only available
+   * in the stream of results of {@link #joinAll(Function)}, {@link #joinAll()} discards them.
+   *
+   * @param invokables a stream of computations.
+   * @param maxInFlight the maximum number of computations running or with a result not consumed.
+   * @throws IllegalArgumentException if maxInFlight is not positive.
+   * @throws IllegalStateException if the computations of a previous call to forkAll are not all started.
+   * @throws WrongThreadException if this method is not called by the thread that has created this scope.
+   */
+  public void forkAll(Stream<? extends Invokable<? extends T, ? extends E>> invokables, int maxInFlight) {
+    Objects.requireNonNull(invokables);
+    if (maxInFlight <= 0) {
+      throw new IllegalArgumentException("maxInFlight <= 0");
+    }
+    checkThread();
+    if (source != null) {
+      throw new IllegalStateException("the previous forkAll is not finished");
+    }
+    this.sourceStream = invokables;
+    this.source = invokables.iterator();
+    this.maxInFlight = maxInFlight;
+    pull();
+  }
+
+  // starts the computations of the source until there are maxInFlight computations in flight
+  private void pull() {
+    var maxInFlight = reorderBuffer == null? this.maxInFlight: Math.min(this.maxInFlight, reorderBuffer.length);
+    while (source != null && taskCount - consumed < maxInFlight) {  // volatile read
+      if (!source.hasNext()) {
+        closeSource();
+        return;
+      }
+      forkTask(source.next());
+    }
+  }
+
+  private void closeSource() {
+    var sourceStream = this.sourceStream;
+    if (sourceStream == null) {
+      return;
+    }
+    this.sourceStream = null;
+    this.source = null;
+    sourceStream.close();
+  }
+
+  /**
+   * Starts an asynchronous computation on a new virtual thread,
+   * the computation waits for a permit of the bulkhead before running.
+   * @param bulkhead the bulkhead of the dependency called by the computation.
+   * @param invokable the computation to run.
+   * @return an asynchronous task, an object that represents the result of the computation in the future.
+   * @throws IllegalStateException if the scope is {@link #ordered(int) ordered} and the reorder window is full.
+   * @throws WrongThreadException if the scope is {@link #ordered(int) ordered} and this method is not called
+   *         by the thread that has created this scope.
+   *
+   * @see Bulkhead#invoke(Invokable)
+   */
+  public Subtask<T, E> fork(Bulkhead bulkhead, Invokable<? extends T, ? extends E> invokable) {
+    Objects.requireNonNull(bulkhead);
+    Objects.requireNonNull(invokable);
+    return fork(() -> bulkhead.<T, E>invoke(invokable));
+  }
+
   private Result<T, E> toResult(StructuredTaskScope.Subtask<? extends T> subtask) {
     return switch (subtask.state()) {
       case UNAVAILABLE -> throw new AssertionError();
@@ -356,56 +695,226 @@ public final class StructuredScopeAsStream<T, E extends Exception> implements Au
    */
   public void joinAll() throws InterruptedException {
     checkThread();
+    if (source != null) {
+      // consume the results to start all the computations of forkAll
+      var spliterator = new ResultSpliterator();
+      while (spliterator.tryAdvance(result -> {})) {
+        // empty
+      }
+      try {
+        checkInterrupted();
+      } catch (InterruptedException e) {
+        closeSource();
+        throw e;
+      }
+    }
     taskScope.join();
     taskScope.shutdown();
   }
 
+  // the results are consumed one at a time, so the spliterator can be sent to another thread of a parallel stream
+  // but can not be used by two threads at the same time,
+  // trySplit() takes a batch of the results already completed and returns them as an array spliterator,
+  // so they can be processed in parallel
   private final class ResultSpliterator implements Spliterator<Result<T,E>> {
-    private long index;
+    private static final int BATCH_UNIT = 1 << 10;
+    private static final int MAX_BATCH = 1 << 25;
+
+    private final boolean sized;
+    private final boolean timed;
+    private final long deadline;  // in System.nanoTime() time
+    private boolean done;
+    private boolean timedOut;
+    private int batch;
+
+    private ResultSpliterator() {
+      this(false, 0);
+    }
+
+    private ResultSpliterator(boolean timed, long deadline) {
+      this.sized = !timed && source == null;  // the deadline may end the stream early
+      this.timed = timed;
+      this.deadline = deadline;
+    }
+
+    private boolean deadlineReached() {
+      if (timed && deadline - System.nanoTime() <= 0) {
+        timedOut = true;
+        done = true;
+        return true;
+      }
+      return false;
+    }
+
+    // forkAll() forks the next computations, only the owner thread can fork
+    private void checkPull() {
+      if (source != null) {
+        checkThread();
+        pull();
+      }
+    }
 
     @Override
     public boolean tryAdvance(Consumer<? super Result<T, E>> action) {
-      checkThread();
-      if (index >= taskCount) {  // volatile read
-        index = Long.MAX_VALUE;
+      if (done || deadlineReached()) {
+        return false;
+      }
+      checkPull();
+      if (consumed >= taskCount) {  // volatile read
+        done = true;
         return false;
       }
       Result<T,E> result;
       try {
-        result = tasks.take();
+        result = awaitNextResult();
       } catch (InterruptedException e) {
-        Thread.currentThread().interrupt();
-        index = Long.MAX_VALUE;
+        // the consumer may be a thread of a parallel stream, the owner thread rethrows at the end of the join
+        consumerInterrupted = true;
+        done = true;
+        return false;
+      }
+      if (result == null) {
+        timedOut = true;
+        done = true;
         return false;
       }
+      consumed++;
       action.accept(result);
-      index++;
       return true;
     }
 
+    // waits for the next result, as a managed blocker if the current thread is a thread of a fork join pool
+    // so the pool can start another thread, returns null if the deadline is reached
+    private Result<T, E> awaitNextResult() throws InterruptedException {
+      var result = pollNextResult();
+      if (result != null) {
+        return result;
+      }
+      if (!(Thread.currentThread() instanceof ForkJoinWorkerThread)) {
+        return nextResult(timed, deadline);
+      }
+      var blocker = new ForkJoinPool.ManagedBlocker() {
+        private Result<T, E> result;
+
+        @Override
+        public boolean block() throws InterruptedException {
+          result = nextResult(timed, deadline);
+          return true;
+        }
+
+        @Override
+        public boolean isReleasable() {
+          return result != null || (result = pollNextResult()) != null;
+        }
+      };
+      ForkJoinPool.managedBlock(blocker);
+      return blocker.result;
+    }
+
     @Override
     public Spliterator<Result<T, E>> trySplit() {
-      return null;
+      if (done || source != null || deadlineReached()) {  // a pending forkAll needs the owner thread
+        return null;
+      }
+      var remaining = taskCount - consumed;  // volatile read
+      if (remaining <= 1) {
+        return null;
+      }
+      // only the results already completed are split, waiting here would block a thread of the fork join pool
+      var first = pollNextResult();
+      if (first == null) {
+        return null;
+      }
+      consumed++;
+      var n = (int) Math.min(Math.min(batch + BATCH_UNIT, MAX_BATCH), remaining);
+      var array = new Object[n];
+      array[0] = first;
+      var size = 1;
+      for (; size < n; size++) {
+        var result = pollNextResult();
+        if (result == null) {
+          break;
+        }
+        array[size] = result;
+        consumed++;
+      }
+      batch = size;
+      return Spliterators.spliterator(array, 0, size, reorderBuffer == null? NONNULL: NONNULL | ORDERED);
     }
 
     @Override
     public long estimateSize() {
-      checkThread();
-      if (index == Long.MAX_VALUE) {
+      if (done) {
         return 0;
       }
-      return taskCount - index;  // volatile read
+      if (source != null) {
+        return Long.MAX_VALUE;
+      }
+      return taskCount - consumed;  // volatile read, an upper bound if timed
     }
 
     @Override
     public int characteristics() {
-      return NONNULL | SIZED | CONCURRENT;
+      var characteristics = sized? NONNULL | SIZED | CONCURRENT: NONNULL | CONCURRENT;
+      return reorderBuffer == null? characteristics: characteristics | ORDERED;
+    }
+  }
+
+  // the next result in completion order or in fork order if the scope is ordered, or null if no result is available,
+  // never blocks
+  private Result<T, E> pollNextResult() {
+    var reorderBuffer = this.reorderBuffer;
+    if (reorderBuffer == null) {
+      var completed = tasks.poll();
+      return completed == null? null: completed.result;
+    }
+    var slot = (int) (consumed % reorderBuffer.length);
+    Result<T, E> result;
+    while ((result = reorderBuffer[slot]) == null) {
+      var completed = tasks.poll();
+      if (completed == null) {
+        return null;
+      }
+      reorderBuffer[(int) (completed.index % reorderBuffer.length)] = completed.result;
     }
+    reorderBuffer[slot] = null;
+    return result;
+  }
+
+  // the next result in completion order or in fork order if the scope is ordered,
+  // if timed, returns null if the result is not available before the deadline
+  private Result<T, E> nextResult(boolean timed, long deadline) throws InterruptedException {
+    var reorderBuffer = this.reorderBuffer;
+    if (reorderBuffer == null) {
+      var completed = tasks.take(timed, deadline);
+      return completed == null? null: completed.result;
+    }
+    var slot = (int) (consumed % reorderBuffer.length);
+    Result<T, E> result;
+    while ((result = reorderBuffer[slot]) == null) {
+      var completed = tasks.take(timed, deadline);
+      if (completed == null) {
+        return null;
+      }
+      reorderBuffer[(int) (completed.index % reorderBuffer.length)] = completed.result;
+    }
+    reorderBuffer[slot] = null;
+    return result;
   }
 
   /**
    * Awaits until the stream of {@link Result results} finished.
-   * If the stream sent to the stream mapper is short-circuited then the non-finished tasks will be cancelled.
+   * If the stream sent to the stream mapper is short-circuited then the non-finished tasks will be cancelled
+   * and the computations of {@link #forkAll(Stream, int)} not yet started will never be started.
+   * <p>
+   * The stream of results can be {@link Stream#parallel() parallel}, the results already completed are taken
+   * by batches and processed by the threads of the fork join pool, this is useful if processing a result
+   * is CPU intensive. A thread of the pool that waits for a result is a {@link ForkJoinPool.ManagedBlocker}.
+   * The stream is not split while the computations of {@link #forkAll(Stream, int)} are not all started.
+   * If the thread that waits for a result, the owner thread or a thread of the pool, is interrupted,
+   * the stream ends and this method throws an {@link InterruptedException} once the stream mapper returns.
+   * An interrupt of the owner thread while the threads of the pool consume the results does not end the stream,
+   * it is only seen once the stream mapper returns.
    *
    * @param streamMapper a function that takes a stream of results and transform it to a value.
    * @return the result the stream mapper function.
@@ -416,15 +925,90 @@ public final class StructuredScopeAsStream<T, E extends Exception> implements Au
   public <V> V joinAll(Function<? super Stream<Result<T,E>>, ? extends V> streamMapper) throws InterruptedException {
     checkThread();
     var stream = StreamSupport.stream(new ResultSpliterator(), false);
-    var value = streamMapper.apply(stream);
-    if (Thread.interrupted()) {
-      throw new InterruptedException();
+    V value;
+    try {
+      value = streamMapper.apply(stream);
+    } finally {
+      closeSource();  // the stream may be short-circuited
     }
+    checkInterrupted();
     taskScope.shutdown();
     taskScope.join();
     return value;
   }
 
+  /**
+   * The value returned by the stream mapper of {@link #joinAll(Instant, Function)}
+   * and the number of computations that have not delivered their result before the deadline.
+   *
+   * @param value the value returned by the stream mapper.
+   * @param timedOut the number of computations that have not delivered their result before the deadline,
+   *                 0 if the deadline was not reached.
+   * @param <V> the type of the value
+   */
+  public record Partial<V>(V value, long timedOut) {
+    /**
+     * Returns true if the deadline was reached and some results are missing.
+     * @return true if the deadline was reached and some results are missing.
+     */
+    public boolean isPartial() {
+      return timedOut != 0;
+    }
+  }
+
+  /**
+   * Awaits until the stream of {@link Result results} finished or the deadline is reached.
+   * When the deadline is reached, the stream ends, so the stream mapper sees only the results available before,
+   * and the non-finished tasks are cancelled. The computations forked but whose results were not sent
+   * to the stream are counted as timed out.
+   * <pre>
+   *   var partial = scope.joinAll(Instant.now().plusMillis(200), stream -&gt; stream
+   *       .flatMap(Result::keepOnlySuccess)
+   *       .toList());
+   *   if (partial.isPartial()) {
+   *     ... partial.timedOut() computations have not answered in time
+   *   }
+   * </pre>
+   *
+   * @param deadline the instant when the stream of results ends.
+   * @param streamMapper a function that takes a stream of results and transform it to a value.
+   * @return the result the stream mapper function and the number of computations timed out.
+   * @param <V> the type of the result of the stream mapper function
+   * @throws InterruptedException if the current thread is interrupted
+   * @throws WrongThreadException if this method is not called by the thread that has created this scope.
+   *
+   * @see #joinAll(Function)
+   */
+  public <V> Partial<V> joinAll(Instant deadline, Function<? super Stream<Result<T,E>>, ? extends V> streamMapper) throws InterruptedException {
+    Objects.requireNonNull(deadline);
+    Objects.requireNonNull(streamMapper);
+    checkThread();
+    var now = Instant.now();
+    long timeout;
+    if (!deadline.isAfter(now)) {  // in the past, even too far to be expressed in nanoseconds
+      timeout = 0;
+    } else {
+      try {
+        timeout = Duration.between(now, deadline).toNanos();
+      } catch (ArithmeticException e) {  // too far in the future
+        timeout = Long.MAX_VALUE;
+      }
+    }
+    var spliterator = new ResultSpliterator(true, System.nanoTime() + Math.min(timeout, Long.MAX_VALUE >> 1));
+    var stream = StreamSupport.stream(spliterator, false);
+    V value;
+    try {
+      value = streamMapper.apply(stream);
+    } finally {
+      closeSource();
+    }
+    checkInterrupted();
+    var timedOut = spliterator.timedOut? taskCount - consumed: 0;  // volatile read
+    taskScope.shutdown();
+    taskScope.join();
+    return new Partial<>(value, timedOut);
+  }
+
   /* useful overload ??
   public <R, X extends Exception> R joinAllToResult(Function<? super Stream<Result<T,E>>, ? extends Result<R,X>> streamMapper) throws X, InterruptedException {
     return joinAll(streamMapper).getNow();
@@ -1,5 +1,7 @@
 package fr.umlv.loom.structured;
 
+import fr.umlv.loom.structured.Bulkheads.Bulkhead;
+
 import java.util.Objects;
 import java.util.concurrent.StructuredTaskScope;
 import java.util.function.Function;
@@ -7,19 +9,48 @@ import java.util.function.Supplier;
 
 public class StructuredScopeShutdownOnFailure<E extends Exception> implements AutoCloseable {
   private final StructuredTaskScope.ShutdownOnFailure scope;
+  private final ConcurrencyLimiter limiter;
 
   public StructuredScopeShutdownOnFailure() {
+    this(null);
+  }
+
+  /**
+   * Creates a scope that limits the number of computations running at the same time.
+   * @param limiter a concurrency limiter or null.
+   *
+   * @see ConcurrencyLimiter#invoke(Invokable)
+   */
+  public StructuredScopeShutdownOnFailure(ConcurrencyLimiter limiter) {
     this.scope = new StructuredTaskScope.ShutdownOnFailure();
+    this.limiter = limiter;
   }
 
   public <T> Supplier<T> fork(Invokable<? extends T, ? extends E> invokable) {
-    var subtask = scope.fork(invokable::invoke);
+    var subtask = limiter == null?
+        scope.fork(invokable::invoke):
+        scope.fork(() -> limiter.invoke(invokable));
     return () -> switch (subtask.state()) {
       case UNAVAILABLE, FAILED -> throw new IllegalStateException();
       case SUCCESS -> subtask.get();
     };
   }
 
+  /**
+   * Starts a computation that waits for a permit of the bulkhead before running.
+   * @param bulkhead the bulkhead of the dependency called by the computation.
+   * @param invokable the computation to run.
+   * @return a supplier of the result of the computation.
+   * @param <T> the type of the result.
+   *
+   * @see Bulkhead#invoke(Invokable)
+   */
+  public <T> Supplier<T> fork(Bulkhead bulkhead, Invokable<? extends T, ? extends E> invokable) {
+    Objects.requireNonNull(bulkhead);
+    Objects.requireNonNull(invokable);
+    return fork(() -> bulkhead.<T, E>invoke(invokable));
+  }
+
   public void joinAll() throws E, InterruptedException {
     joinAll(e -> e);
   }
@@ -1,5 +1,7 @@
 package fr.umlv.loom.structured;
 
+import fr.umlv.loom.structured.Bulkheads.Bulkhead;
+
 import java.util.Objects;
 import java.util.concurrent.StructuredTaskScope;
 import java.util.function.Function;
@@ -15,6 +17,19 @@ public class StructuredScopeShutdownOnSuccess<T, E extends Exception> implements
     scope.fork(invokable::invoke);
   }
 
+  /**
+   * Starts a computation that waits for a permit of the bulkhead before running.
+   * @param bulkhead the bulkhead of the dependency called by the computation.
+   * @param invokable the computation to run.
+   *
+   * @see Bulkhead#invoke(Invokable)
+   */
+  public void fork(Bulkhead bulkhead, Invokable<? extends T, ? extends E> invokable) {
+    Objects.requireNonNull(bulkhead);
+    Objects.requireNonNull(invokable);
+    fork(() -> bulkhead.<T, E>invoke(invokable));
+  }
+
   public T joinAll() throws E, InterruptedException {
     return joinAll(e -> e);
   }
@@ -2,6 +2,7 @@ package fr.umlv.loom.tutorial;
 
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import fr.umlv.loom.structured.Bulkheads;
 import fr.umlv.loom.structured.StructuredScopeAsStream;
 
 import java.io.IOException;
@@ -207,11 +208,46 @@ public class RickAndMortyExample {
         }
     }
 
+    private static final Bulkheads BULKHEADS = new Bulkheads();
+    private static final Bulkheads.Bulkhead EPISODE_API = BULKHEADS.bulkhead("episode-api", 2, 10);
+    private static final Bulkheads.Bulkhead CHARACTER_API = BULKHEADS.bulkhead("character-api", 8, 100);
+
+    public static Set<Character> bulkheads() throws IOException, InterruptedException {
+        Set<URI> characterURIs1, characterURIs2;
+        try(var scope = new StructuredScopeAsStream<Set<URI>, IOException>()) {
+            var task1 = scope.fork(EPISODE_API, () -> characterOfEpisode(1));
+            var task2 = scope.fork(EPISODE_API, () -> characterOfEpisode(2));
+            var errorOpt = scope.joinAll(stream -> stream.filter(StructuredScopeAsStream.Result::isFailed).findFirst());
+            if (errorOpt.isPresent()) {
+                throw errorOpt.orElseThrow().failure();
+            }
+            characterURIs1 = task1.get();
+            characterURIs2 = task2.get();
+        }
+        var commonCharacterURIs = new HashSet<>(characterURIs1);
+        commonCharacterURIs.retainAll(characterURIs2);
+        try(var scope = new StructuredScopeAsStream<Character, IOException>()) {
+            for(var characterURI: commonCharacterURIs) {
+                scope.fork(CHARACTER_API, () -> character(characterURI));
+            }
+            return scope.joinAll(stream -> stream
+                    .peek(r -> {
+                        if (r.isFailed()) {
+                            throw new UncheckedIOException(r.failure());
+                        }
+                    })
+                    .map(StructuredScopeAsStream.Result::result)
+                    .collect(Collectors.toSet()));
+        }
+    }
+
     public static void main(String[] args) throws IOException, InterruptedException, URISyntaxException {
         time(() -> synchronous());
         time(() -> synchronous2());
         time(() -> executors());
         time(() -> sts());
         time(() -> asyncScope());
+        time(() -> bulkheads());
+        System.err.println(BULKHEADS.metrics());
     }
 }
@@ -0,0 +1,133 @@
+package fr.umlv.loom.continuation;
+
+import fr.umlv.loom.executor.UnsafeExecutors;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+// a yield/run round trip of a continuation that yields in a loop,
+// with the previous implementation based on a lock and a condition (lock_condition)
+// or with the park/unpark handoff on the owner thread (handoff),
+// the average time is the round trip latency, the throughput is the number of round trips per microsecond.
+// mvn test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+// java --enable-preview -cp target/test-classes:target/classes:$(cat target/cp.txt) org.openjdk.jmh.Main ContinuationBenchMark
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(value = 1, jvmArgsAppend = "--enable-preview")
+@State(Scope.Thread)  // the owner of a continuation is the thread that creates it
+public class ContinuationBenchMark {
+  // the previous implementation, run() signals the continuation but does not wait for the next yield
+  static final class LockConditionContinuation {
+    private enum State { NEW, RUNNING, WAITED, TERMINATED }
+
+    private static final ScopedValue<LockConditionContinuation> CONTINUATION_SCOPE_LOCAL = ScopedValue.newInstance();
+    private static final Executor EXECUTOR = UnsafeExecutors.virtualThreadExecutor(Runnable::run);
+
+    private final Runnable runnable;
+    private final Thread owner;
+    private State state = State.NEW;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition condition = lock.newCondition();
+
+    LockConditionContinuation(Runnable runnable) {
+      this.runnable = runnable;
+      this.owner = Thread.currentThread();
+    }
+
+    void run() {
+      if (Thread.currentThread() != owner) {
+        throw new IllegalStateException();
+      }
+      switch (state) {
+        case NEW -> {
+          state = State.RUNNING;
+          EXECUTOR.execute(() -> {
+            ScopedValue.runWhere(CONTINUATION_SCOPE_LOCAL, this, runnable);
+            state = State.TERMINATED;
+          });
+        }
+        case WAITED -> {
+          state = State.RUNNING;
+          lock.lock();
+          try {
+            condition.signal();
+          } finally {
+            lock.unlock();
+          }
+        }
+        case RUNNING, TERMINATED -> throw new IllegalStateException();
+      }
+    }
+
+    static void yield() {
+      if (!CONTINUATION_SCOPE_LOCAL.isBound()) {
+        throw new IllegalStateException();
+      }
+      var continuation = CONTINUATION_SCOPE_LOCAL.get();
+      continuation.lock.lock();
+      try {
+        continuation.state = State.WAITED;
+        continuation.condition.await();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      } finally {
+        continuation.lock.unlock();
+      }
+    }
+  }
+
+  @Param({"lock_condition", "handoff"})
+  private String implementation;
+
+  private Runnable run;
+  private int counter;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    run = switch (implementation) {
+      case "lock_condition" -> new LockConditionContinuation(() -> {
+        for(;;) {
+          counter++;
+          LockConditionContinuation.yield();
+        }
+      })::run;
+      case "handoff" -> new Continuation(() -> {
+        for(;;) {
+          counter++;
+          Continuation.yield();
+        }
+      })::run;
+      default -> throw new AssertionError();
+    };
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.AverageTime)
+  @OutputTimeUnit(TimeUnit.NANOSECONDS)
+  public int round_trip_latency() {
+    run.run();
+    return counter;
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.Throughput)
+  @OutputTimeUnit(TimeUnit.MICROSECONDS)
+  public int round_trip_throughput() {
+    run.run();
+    return counter;
+  }
+}
@@ -0,0 +1,54 @@
+package fr.umlv.loom.continuation;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+// the cost of a short-lived continuation, created then run until it terminates,
+// with a new virtual thread per continuation or with a recycled one (pooled)
+// mvn test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+// java --enable-preview -cp target/test-classes:target/classes:$(cat target/cp.txt) org.openjdk.jmh.Main ContinuationPoolBenchMark -prof gc
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(value = 1, jvmArgsAppend = "--enable-preview")
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+public class ContinuationPoolBenchMark {
+  @Param({"new", "pooled"})
+  private String mode;
+
+  private int counter;
+
+  private Continuation continuation(Runnable runnable) {
+    return mode.equals("pooled") ? Continuation.pooled(runnable) : new Continuation(runnable);
+  }
+
+  @Benchmark
+  public int run_to_completion() {
+    var continuation = continuation(() -> counter++);
+    continuation.run();
+    return counter;
+  }
+
+  @Benchmark
+  public int run_yield_run() {
+    var continuation = continuation(() -> {
+      counter++;
+      Continuation.yield();
+      counter++;
+    });
+    continuation.run();
+    continuation.run();
+    return counter;
+  }
+}
@@ -2,6 +2,12 @@ package fr.umlv.loom.continuation;
 
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.StructuredTaskScope;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static fr.umlv.loom.executor.UnsafeExecutors.currentCarrierThread;
 import static org.junit.jupiter.api.Assertions.*;
 
 public class ContinuationTest {
@@ -38,15 +44,6 @@ public class ContinuationTest {
         """, builder.toString());
   }
 
-  private static String carrierThreadName() {
-    var name = Thread.currentThread().toString();
-    var index = name.lastIndexOf('@');
-    if (index == -1) {
-      throw new AssertionError();
-    }
-    return name.substring(index + 1);
-  }
-
   @Test
   public void startWhenDone() {
     var continuation = new Continuation(() -> {});
@@ -54,6 +51,288 @@ public class ContinuationTest {
     assertThrows(IllegalStateException.class, continuation::run);
   }
 
+  @Test
+  public void runReturnsOnlyWhenTheContinuationYields() {
+    var builder = new StringBuilder();
+    var continuation = new Continuation(() -> {
+      try {
+        Thread.sleep(10);
+      } catch (InterruptedException e) {
+        throw new AssertionError(e);
+      }
+      builder.append("continuation -- after sleep\n");
+      Continuation.yield();
+      builder.append("continuation -- end\n");
+    });
+    continuation.run();
+    builder.append("main -- after start\n");
+    continuation.run();
+    builder.append("main -- after start 2\n");
+    assertEquals("""
+        continuation -- after sleep
+        main -- after start
+        continuation -- end
+        main -- after start 2
+        """, builder.toString());
+  }
+
+  @Test
+  public void continuationRunsOnTheOwnerCarrier() {
+    var names = new ArrayList<String>();
+    var continuation = new Continuation(() -> {
+      for(;;) {
+        names.add(currentCarrierThread().getName());
+        Continuation.yield();
+      }
+    });
+    for (var i = 0; i < 3; i++) {
+      continuation.run();
+    }
+    var owner = Thread.currentThread().getName();
+    assertAll(
+        () -> assertEquals(3, names.size()),
+        () -> assertTrue(names.stream().allMatch(owner::equals), "" + names)
+    );
+  }
+
+  @Test
+  public void manyRoundTrips() {
+    var counter = new int[1];
+    var continuation = new Continuation(() -> {
+      for(;;) {
+        counter[0]++;
+        Continuation.yield();
+      }
+    });
+    for (var i = 0; i < 100_000; i++) {
+      continuation.run();
+      assertEquals(i + 1, counter[0]);
+    }
+  }
+
+  @Test
+  public void ownerIsAVirtualThread() throws InterruptedException {
+    var builder = new StringBuilder();
+    var thread = Thread.ofVirtual().start(() -> {
+      var continuation = new Continuation(() -> {
+        builder.append("continuation -- start\n");
+        Continuation.yield();
+        builder.append("continuation -- end\n");
+      });
+      continuation.run();
+      builder.append("main -- after start\n");
+      continuation.run();
+      builder.append("main -- after start 2\n");
+    });
+    thread.join();
+    assertEquals("""
+        continuation -- start
+        main -- after start
+        continuation -- end
+        main -- after start 2
+        """, builder.toString());
+  }
+
+  @Test
+  public void runFromAnotherThread() throws InterruptedException {
+    var names = new ArrayList<String>();
+    var continuation = new Continuation(() -> {
+      names.add(currentCarrierThread().getName());
+      Continuation.yield();
+      names.add(currentCarrierThread().getName());
+      Continuation.yield();
+      names.add(currentCarrierThread().getName());
+    });
+    continuation.run();
+    var thread = Thread.ofPlatform().name("worker").start(continuation::run);
+    thread.join();
+    continuation.run();
+    var main = Thread.currentThread().getName();
+    assertEquals(List.of(main, "worker", main), names);
+  }
+
+  @Test
+  public void concurrentRunsRunOneStepEach() throws InterruptedException {
+    var counter = new int[1];
+    var continuation = new Continuation(() -> {
+      for(;;) {
+        counter[0]++;
+        Continuation.yield();
+      }
+    });
+    var threads = new ArrayList<Thread>();
+    for (var i = 0; i < 4; i++) {
+      threads.add(Thread.ofPlatform().start(() -> {
+        for (var j = 0; j < 10_000; j++) {
+          continuation.run();
+        }
+      }));
+    }
+    for (var thread : threads) {
+      thread.join();
+    }
+    assertEquals(40_000, counter[0]);
+  }
+
+  @Test
+  public void runFromAVirtualThreadThenFromAPlatformThread() throws InterruptedException {
+    var counter = new int[1];
+    var continuation = new Continuation(() -> {
+      for(;;) {
+        counter[0]++;
+        Continuation.yield();
+      }
+    });
+    for (var i = 0; i < 10; i++) {
+      var thread = (i % 2 == 0 ? Thread.ofVirtual() : Thread.ofPlatform()).start(continuation::run);
+      thread.join();
+    }
+    assertEquals(10, counter[0]);
+  }
+
+  @Test
+  public void runItself() {
+    var failed = new boolean[1];
+    var continuation = new Continuation[1];
+    continuation[0] = new Continuation(() -> {
+      try {
+        continuation[0].run();
+      } catch (IllegalStateException e) {
+        failed[0] = true;
+      }
+    });
+    continuation[0].run();
+    assertTrue(failed[0]);
+  }
+
+  @Test
+  public void yieldFromAChildThread() throws InterruptedException {
+    var failed = new boolean[1];
+    var continuation = new Continuation(() -> {
+      try(var scope = new StructuredTaskScope<Void>()) {
+        scope.fork(() -> {
+          try {
+            Continuation.yield();
+          } catch (IllegalStateException e) {
+            failed[0] = true;
+          }
+          return null;
+        });
+        scope.join();
+      } catch (InterruptedException e) {
+        throw new AssertionError(e);
+      }
+    });
+    continuation.run();
+    assertTrue(failed[0]);
+  }
+
+  @Test
+  public void pooledContinuationsReuseTheirVirtualThread() {
+    var threads = new ArrayList<Thread>();
+    for (var i = 0; i < 3; i++) {
+      var continuation = Continuation.pooled(() -> {
+        threads.add(Thread.currentThread());
+        Continuation.yield();
+      });
+      continuation.run();
+      continuation.run();
+      assertTrue(continuation.isDone());
+    }
+    assertAll(
+        () -> assertSame(threads.get(0), threads.get(1)),
+        () -> assertSame(threads.get(0), threads.get(2))
+    );
+  }
+
+  @Test
+  public void pooledContinuationsAreNotReusedWhileRunning() {
+    var builder = new StringBuilder();
+    var continuation1 = Continuation.pooled(() -> {
+      builder.append("1");
+      Continuation.yield();
+      builder.append("1");
+    });
+    var continuation2 = Continuation.pooled(() -> {
+      builder.append("2");
+      Continuation.yield();
+      builder.append("2");
+    });
+    continuation1.run();
+    continuation2.run();
+    continuation1.run();
+    continuation2.run();
+    assertEquals("1212", builder.toString());
+  }
+
+  @Test
+  public void pooledContinuationDoesNotLeakItsInterruptStatus() {
+    Continuation.pooled(() -> Thread.currentThread().interrupt()).run();
+    var interrupted = new boolean[1];
+    Continuation.pooled(() -> interrupted[0] = Thread.currentThread().isInterrupted()).run();
+    assertFalse(interrupted[0]);
+  }
+
+  @Test
+  public void pooledContinuationThatFails() {
+    var continuation = Continuation.pooled(() -> { throw new IllegalStateException("expected"); });
+    continuation.run();
+    assertTrue(continuation.isDone());
+    var counter = new int[1];
+    var continuation2 = Continuation.pooled(() -> {
+      counter[0]++;
+      Continuation.yield();
+      counter[0]++;
+    });
+    continuation2.run();
+    continuation2.run();
+    assertAll(
+        () -> assertEquals(2, counter[0]),
+        () -> assertTrue(continuation2.isDone())
+    );
+  }
+
+  @Test
+  public void pooledContinuationsFromSeveralThreads() throws InterruptedException {
+    var counter = new AtomicInteger();
+    var threads = new ArrayList<Thread>();
+    for (var i = 0; i < 4; i++) {
+      threads.add(Thread.ofPlatform().start(() -> {
+        for (var j = 0; j < 1_000; j++) {
+          var continuation = Continuation.pooled(() -> {
+            counter.incrementAndGet();
+            Continuation.yield();
+            counter.incrementAndGet();
+          });
+          continuation.run();
+          continuation.run();
+        }
+      }));
+    }
+    for (var thread : threads) {
+      thread.join();
+    }
+    assertEquals(8_000, counter.get());
+  }
+
+  @Test
+  public void idlePooledVirtualThreadTerminates() throws InterruptedException {
+    var threads = new ArrayList<Thread>();
+    var continuation = Continuation.pooled(() -> threads.add(Thread.currentThread()));
+    continuation.run();
+    var thread = threads.get(0);
+    thread.join(5_000);
+    assertFalse(thread.isAlive());
+
+    // the pool does not give back a terminated virtual thread
+    var continuation2 = Continuation.pooled(() -> threads.add(Thread.currentThread()));
+    continuation2.run();
+    assertAll(
+        () -> assertTrue(continuation2.isDone()),
+        () -> assertNotSame(thread, threads.get(1))
+    );
+  }
+
   @Test
   public void yieldNotBound() {
     assertThrows(IllegalStateException.class, Continuation::yield);
@@ -0,0 +1,62 @@
+package fr.umlv.loom.continuation;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+// the number of messages per second that go through a pipeline of coroutines driven by an event loop,
+// each stage is a coroutine that receives a message, updates it and yields it to the next stage
+// mvn test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+// java --enable-preview -cp target/test-classes:target/classes:$(cat target/cp.txt) org.openjdk.jmh.Main EventContinuationBenchMark
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(value = 1, jvmArgsAppend = "--enable-preview")
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Thread)  // the owner of a coroutine is the thread that creates it
+public class EventContinuationBenchMark {
+  static final class Message {
+    private long hops;
+  }
+
+  @Param({"1", "4", "16"})
+  private int stages;
+
+  private EventContinuation<Message, Message>[] pipeline;
+  private final Message message = new Message();
+
+  @Setup(Level.Trial)
+  @SuppressWarnings("unchecked")
+  public void setup() {
+    pipeline = (EventContinuation<Message, Message>[]) new EventContinuation<?, ?>[stages];
+    for (var i = 0; i < stages; i++) {
+      pipeline[i] = new EventContinuation<>((yielder, first) -> {
+        var message = first;
+        for(;;) {
+          message.hops++;
+          message = yielder.yield(message);
+        }
+      });
+    }
+  }
+
+  @Benchmark
+  public long message_through_pipeline() {
+    var message = this.message;
+    for (var stage : pipeline) {
+      message = stage.execute(message);
+    }
+    return message.hops;
+  }
+}
@@ -0,0 +1,118 @@
+package fr.umlv.loom.continuation;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EventContinuationTest {
+  enum Command { LEFT, RIGHT, QUIT }
+  enum Direction { NORTH, EAST, SOUTH, WEST }
+
+  private static final Direction[] DIRECTIONS = Direction.values();
+
+  private static Direction turn(Direction direction, int shift) {
+    return DIRECTIONS[(direction.ordinal() + shift + DIRECTIONS.length) % DIRECTIONS.length];
+  }
+
+  @Test
+  public void robot() {
+    EventContinuation<Command, Direction> robot = new EventContinuation<>((yielder, parameter) -> {
+      var direction = Direction.NORTH;
+      var command = parameter;
+      for(;;) {
+        direction = switch(command) {
+          case LEFT -> turn(direction, -1);
+          case RIGHT -> turn(direction, 1);
+          case QUIT -> direction;
+        };
+        command = yielder.yield(direction);
+      }
+    });
+
+    assertEquals(Direction.EAST, robot.execute(Command.RIGHT));
+    assertEquals(Direction.SOUTH, robot.execute(Command.RIGHT));
+    assertEquals(Direction.EAST, robot.execute(Command.LEFT));
+    assertEquals(Direction.EAST, robot.execute(Command.QUIT));
+  }
+
+  record Request(String requestLine, List<String> headers) {}
+
+  @Test
+  public void incrementalParser() {
+    var parser = new EventContinuation<String, Request>((yielder, first) -> {
+      var line = first;
+      for(;;) {
+        var requestLine = line;
+        var headers = new ArrayList<String>();
+        while (!(line = yielder.yield(null)).isEmpty()) {
+          headers.add(line);
+        }
+        line = yielder.yield(new Request(requestLine, headers));
+      }
+    });
+
+    assertAll(
+        () -> assertNull(parser.execute("GET / HTTP/1.1")),
+        () -> assertNull(parser.execute("Host: localhost")),
+        () -> assertNull(parser.execute("Accept: */*")),
+        () -> assertEquals(new Request("GET / HTTP/1.1", List.of("Host: localhost", "Accept: */*")), parser.execute("")),
+        () -> assertNull(parser.execute("GET /index.html HTTP/1.1")),
+        () -> assertEquals(new Request("GET /index.html HTTP/1.1", List.of()), parser.execute(""))
+    );
+  }
+
+  @Test
+  public void returnValueIsTheLastResult() {
+    var sum = new EventContinuation<Integer, Integer>((yielder, first) -> {
+      var total = first;
+      for (var i = 0; i < 2; i++) {
+        total += yielder.yield(total);
+      }
+      return -total;
+    });
+    assertAll(
+        () -> assertEquals(1, sum.execute(1)),
+        () -> assertEquals(3, sum.execute(2)),
+        () -> assertFalse(sum.isDone()),
+        () -> assertEquals(-6, sum.execute(3)),
+        () -> assertTrue(sum.isDone()),
+        () -> assertThrows(IllegalStateException.class, () -> sum.execute(4))
+    );
+  }
+
+  @Test
+  public void failureIsPropagated() {
+    var continuation = new EventContinuation<String, String>((yielder, parameter) -> {
+      var value = yielder.yield(parameter);
+      throw new IllegalArgumentException(value);
+    });
+    assertAll(
+        () -> assertEquals("foo", continuation.execute("foo")),
+        () -> assertEquals("bar", assertThrows(IllegalArgumentException.class, () -> continuation.execute("bar")).getMessage()),
+        () -> assertTrue(continuation.isDone())
+    );
+  }
+
+  @Test
+  public void executeFromAnotherThread() throws InterruptedException {
+    var continuation = new EventContinuation<String, String>((yielder, parameter) -> {
+      var value = parameter;
+      for(;;) {
+        value = yielder.yield(value.toUpperCase());
+      }
+    });
+    assertEquals("FOO", continuation.execute("foo"));
+    var result = new String[1];
+    var thread = Thread.ofPlatform().start(() -> result[0] = continuation.execute("bar"));
+    thread.join();
+    assertEquals("BAR", result[0]);
+  }
+
+  @Test
+  public void preconditions() {
+    assertThrows(NullPointerException.class, () -> new EventContinuation<String, String>(null));
+  }
+}
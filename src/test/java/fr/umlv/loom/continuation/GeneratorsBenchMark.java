@@ -0,0 +1,62 @@
+package fr.umlv.loom.continuation;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+// the number of elements per microsecond of a generator of 10_000 elements consumed by an iterator or a stream,
+// depending on the number of elements pushed between two yields (batchSize)
+// mvn test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+// java --enable-preview -cp target/test-classes:target/classes:$(cat target/cp.txt) org.openjdk.jmh.Main GeneratorsBenchMark
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(value = 1, jvmArgsAppend = "--enable-preview")
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+public class GeneratorsBenchMark {
+  private static final int ELEMENTS = 10_000;
+  private static final Integer[] VALUES = new Integer[ELEMENTS];
+  static {
+    for (var i = 0; i < ELEMENTS; i++) {
+      VALUES[i] = i;
+    }
+  }
+
+  private static final Consumer<Consumer<? super Integer>> GENERATOR = consumer -> {
+    for (var value : VALUES) {
+      consumer.accept(value);
+    }
+  };
+
+  @Param({"1", "16", "256", "4096"})
+  private int batchSize;
+
+  @Benchmark
+  @OperationsPerInvocation(ELEMENTS)
+  public int iterator() {
+    var sum = 0;
+    var iterator = Generators.iterator(batchSize, GENERATOR);
+    while (iterator.hasNext()) {
+      sum += iterator.next();
+    }
+    return sum;
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(ELEMENTS)
+  public int stream() {
+    return Generators.stream(batchSize, GENERATOR).mapToInt(x -> x).sum();
+  }
+}
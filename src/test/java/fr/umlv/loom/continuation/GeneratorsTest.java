@@ -0,0 +1,149 @@
+package fr.umlv.loom.continuation;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterators;
+import java.util.stream.StreamSupport;
+
+import static java.util.stream.IntStream.range;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GeneratorsTest {
+  @Test
+  public void iteratorSimple() {
+    assertAll(
+        () -> assertFalse(Generators.iterator(consumer -> { /* */}).hasNext()),
+        () -> assertTrue(Generators.iterator(consumer -> { consumer.accept("foo");}).hasNext()),
+        () -> assertEquals("bar", Generators.iterator(consumer -> { consumer.accept("bar");}).next()),
+        () -> {
+          var it = Generators.iterator(consumer -> { consumer.accept("booz"); consumer.accept("baz");});
+          assertTrue(it.hasNext());
+          assertEquals("booz", it.next());
+          assertTrue(it.hasNext());
+          assertEquals("baz", it.next());
+          assertFalse(it.hasNext());
+          assertThrows(NoSuchElementException.class, it::next);
+        }
+    );
+  }
+
+  @Test
+  public void iteratorWithALotOfObject() {
+    for (var batchSize : new int[] { 1, 2, 7, 1_000, 4_096 }) {
+      var it = Generators.<Integer>iterator(batchSize, consumer -> range(0, 1_000).forEach(consumer::accept));
+      var list = new ArrayList<Integer>();
+      while (it.hasNext()) {
+        list.add(it.next());
+      }
+      assertEquals(range(0, 1_000).boxed().toList(), list, "batchSize " + batchSize);
+    }
+  }
+
+  @Test
+  public void streamSimple() {
+    assertAll(
+        () -> assertFalse(Generators.stream(consumer -> { /* */}).findFirst().isPresent()),
+        () -> assertTrue(Generators.stream(consumer -> { consumer.accept("foo");}).findFirst().isPresent()),
+        () -> assertEquals("bar", Generators.stream(consumer -> { consumer.accept("bar");}).findFirst().orElseThrow()),
+        () -> {
+          var stream = Generators.<String>stream(consumer -> { consumer.accept("booz"); consumer.accept("baz");});
+          assertEquals(List.of("booz", "baz"), stream.toList());
+        }
+    );
+  }
+
+  @Test
+  public void streamWithALotOfObject() {
+    for (var batchSize : new int[] { 1, 2, 7, 1_000, 4_096 }) {
+      var stream = Generators.<Integer>stream(batchSize, consumer -> range(0, 1_000).forEach(consumer::accept));
+      assertEquals(range(0, 1_000).boxed().toList(), stream.toList(), "batchSize " + batchSize);
+    }
+  }
+
+  @Test
+  public void spliteratorTryAdvanceThenForEachRemaining() {
+    var spliterator = Generators.<Integer>spliterator(3, consumer -> range(0, 10).forEach(consumer::accept));
+    var list = new ArrayList<Integer>();
+    assertTrue(spliterator.tryAdvance(list::add));
+    assertTrue(spliterator.tryAdvance(list::add));
+    spliterator.forEachRemaining(list::add);
+    assertAll(
+        () -> assertEquals(range(0, 10).boxed().toList(), list),
+        () -> assertFalse(spliterator.tryAdvance(list::add))
+    );
+  }
+
+  @Test
+  public void batchGeneratesAhead() {
+    var generated = new ArrayList<Integer>();
+    var it = Generators.<Integer>iterator(4, consumer -> range(0, 10).forEach(i -> {
+      generated.add(i);
+      consumer.accept(i);
+    }));
+    assertEquals(0, it.next());
+    assertEquals(range(0, 4).boxed().toList(), generated);
+  }
+
+  @Test
+  public void lazy() {
+    var stream = Generators.<Integer>stream(consumer -> {
+      for(var i = 0;; i++) {
+        consumer.accept(i);
+      }
+    });
+    assertEquals(range(0, 5).boxed().toList(), stream.limit(5).toList());
+  }
+
+  @Test
+  public void failureAfterTheElements() {
+    var it = Generators.<Integer>iterator(10, consumer -> {
+      consumer.accept(1);
+      consumer.accept(2);
+      throw new IllegalStateException("oops");
+    });
+    assertAll(
+        () -> assertEquals(1, it.next()),
+        () -> assertEquals(2, it.next()),
+        () -> assertEquals("oops", assertThrows(IllegalStateException.class, it::hasNext).getMessage()),
+        () -> assertFalse(it.hasNext())
+    );
+  }
+
+  @Test
+  public void nullElement() {
+    var it = Generators.iterator(consumer -> consumer.accept(null));
+    assertThrows(NullPointerException.class, it::hasNext);
+  }
+
+  @Test
+  public void consumedByAnotherThreadThanTheCreator() throws InterruptedException {
+    var it = Generators.<Integer>iterator(consumer -> range(0, 10).forEach(consumer::accept));
+    var list = new ArrayList<Integer>();
+    var thread = Thread.ofPlatform().start(() -> it.forEachRemaining(list::add));
+    thread.join();
+    assertEquals(range(0, 10).boxed().toList(), list);
+  }
+
+  @Test
+  public void generatorsCanBeNested() {
+    var outer = Generators.<Integer>stream(2, consumer ->
+        StreamSupport.stream(Spliterators.spliteratorUnknownSize(
+            Generators.<Integer>iterator(3, inner -> range(0, 10).forEach(inner::accept)), 0), false)
+            .map(i -> i * 2)
+            .forEach(consumer));
+    assertEquals(range(0, 10).map(i -> i * 2).boxed().toList(), outer.toList());
+  }
+
+  @Test
+  public void preconditions() {
+    assertAll(
+        () -> assertThrows(NullPointerException.class, () -> Generators.iterator(null)),
+        () -> assertThrows(NullPointerException.class, () -> Generators.stream(null)),
+        () -> assertThrows(IllegalArgumentException.class, () -> Generators.iterator(0, consumer -> {})),
+        () -> assertThrows(IllegalArgumentException.class, () -> Generators.spliterator(-1, consumer -> {}))
+    );
+  }
+}
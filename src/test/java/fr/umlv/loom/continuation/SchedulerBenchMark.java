@@ -0,0 +1,101 @@
+package fr.umlv.loom.continuation;
+
+import fr.umlv.loom.executor.UnsafeExecutors;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+// the number of context switches per second of a single-threaded scheduler running 10_000 or 100_000 tasks,
+// each task pauses 20 times, compared to virtual threads on a single carrier calling Thread.yield() (virtual_threads)
+// mvn test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+// java --enable-preview -cp target/test-classes:target/classes:$(cat target/cp.txt) org.openjdk.jmh.Main SchedulerBenchMark
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(value = 1, jvmArgsAppend = "--enable-preview")
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+public class SchedulerBenchMark {
+  private static final int PAUSES = 20;
+
+  @Param({"10000", "100000"})
+  private int tasks;
+
+  @Param({"fifo", "random", "fair", "virtual_threads"})
+  private String scheduler;
+
+  private ExecutorService carrier;
+
+  @State(Scope.Thread)
+  @AuxCounters(AuxCounters.Type.OPERATIONS)
+  public static class Switches {
+    public long switches;
+  }
+
+  @Setup(Level.Trial)
+  public void setup() {
+    carrier = Executors.newSingleThreadExecutor();
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    carrier.shutdown();
+  }
+
+  private void runScheduler(Scheduler scheduler) {
+    for (var i = 0; i < tasks; i++) {
+      scheduler.schedule(() -> {
+        for (var j = 0; j < PAUSES; j++) {
+          scheduler.pause();
+        }
+      });
+    }
+    scheduler.loop();
+  }
+
+  private void runVirtualThreads() throws InterruptedException {
+    var factory = UnsafeExecutors.virtualThreadFactory(carrier);
+    var threads = new ArrayList<Thread>(tasks);
+    for (var i = 0; i < tasks; i++) {
+      var thread = factory.newThread(() -> {
+        for (var j = 0; j < PAUSES; j++) {
+          Thread.yield();
+        }
+      });
+      thread.start();
+      threads.add(thread);
+    }
+    for (var thread : threads) {
+      thread.join();
+    }
+  }
+
+  @Benchmark
+  public void tasks_pause_20_times(Switches switches) throws InterruptedException {
+    switch (scheduler) {
+      case "fifo" -> runScheduler(new FifoScheduler());
+      case "random" -> runScheduler(new RandomScheduler());
+      case "fair" -> runScheduler(new FairScheduler());
+      case "virtual_threads" -> runVirtualThreads();
+      default -> throw new AssertionError();
+    }
+    // a task runs one more time after its last pause
+    switches.switches += (long) tasks * (PAUSES + 1);
+  }
+}
@@ -0,0 +1,152 @@
+package fr.umlv.loom.continuation;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SchedulerTest {
+  private static final List<Supplier<Scheduler>> SCHEDULERS =
+      List.of(FifoScheduler::new, RandomScheduler::new, FairScheduler::new);
+
+  @Test
+  public void fifoInterleaving() {
+    var scheduler = new FifoScheduler();
+    var list = new ArrayList<String>();
+    for (var id : List.of("a", "b", "c")) {
+      scheduler.schedule(() -> {
+        for (var i = 0; i < 3; i++) {
+          list.add(id + i);
+          scheduler.pause();
+        }
+      });
+    }
+    scheduler.loop();
+    assertEquals(List.of("a0", "b0", "c0", "a1", "b1", "c1", "a2", "b2", "c2"), list);
+  }
+
+  @Test
+  public void allTasksComplete() {
+    for (var supplier : SCHEDULERS) {
+      var scheduler = supplier.get();
+      var counter = new int[1];
+      for (var i = 0; i < 10_000; i++) {
+        scheduler.schedule(() -> {
+          for (var j = 0; j < 10; j++) {
+            counter[0]++;
+            scheduler.pause();
+          }
+        });
+      }
+      scheduler.loop();
+      assertEquals(100_000, counter[0], scheduler.getClass().getName());
+    }
+  }
+
+  @Test
+  public void scheduleFromATask() {
+    for (var supplier : SCHEDULERS) {
+      var scheduler = supplier.get();
+      var list = new ArrayList<Integer>();
+      scheduler.schedule(() -> {
+        for (var i = 0; i < 5; i++) {
+          var value = i;
+          scheduler.schedule(() -> list.add(value));
+          scheduler.pause();
+        }
+      });
+      scheduler.loop();
+      assertEquals(List.of(0, 1, 2, 3, 4), list.stream().sorted().toList(), scheduler.getClass().getName());
+    }
+  }
+
+  private static List<Integer> randomOrder(long seed) {
+    var scheduler = new RandomScheduler(new SplittableRandom(seed));
+    var list = new ArrayList<Integer>();
+    IntStream.range(0, 10).forEach(id -> scheduler.schedule(() -> {
+      list.add(id);
+      scheduler.pause();
+      list.add(id);
+    }));
+    scheduler.loop();
+    return list;
+  }
+
+  @Test
+  public void randomIsReproducible() {
+    assertEquals(randomOrder(42), randomOrder(42));
+  }
+
+  @Test
+  public void yieldUntilRegistered() {
+    for (var supplier : SCHEDULERS) {
+      var scheduler = supplier.get();
+      var waitQueue = new ArrayDeque<Continuation>();
+      var list = new ArrayList<String>();
+      scheduler.schedule(() -> {
+        list.add("wait");
+        waitQueue.add(Scheduler.currentContinuation());
+        scheduler.yield();
+        list.add("woken up");
+      });
+      scheduler.schedule(() -> {
+        while (waitQueue.isEmpty()) {  // the random scheduler may run this task first
+          scheduler.pause();
+        }
+        list.add("signal");
+        scheduler.register(waitQueue.poll());
+      });
+      scheduler.loop();
+      assertEquals(List.of("wait", "signal", "woken up"), list, scheduler.getClass().getName());
+    }
+  }
+
+  @Test
+  public void fairRunsTheTaskThatRanTheLeastFirst() {
+    var scheduler = new FairScheduler();
+    var list = new ArrayList<String>();
+    scheduler.schedule(() -> {
+      for (var i = 0; i < 3; i++) {
+        list.add("slow");
+        var end = System.nanoTime() + 5_000_000;
+        while (System.nanoTime() < end) {
+          Thread.onSpinWait();
+        }
+        scheduler.pause();
+      }
+    });
+    scheduler.schedule(() -> {
+      for (var i = 0; i < 3; i++) {
+        list.add("fast");
+        scheduler.pause();
+      }
+    });
+    scheduler.loop();
+    assertEquals(List.of("slow", "fast", "fast", "fast", "slow", "slow"), list);
+  }
+
+  @Test
+  public void registerNull() {
+    for (var supplier : SCHEDULERS) {
+      var scheduler = supplier.get();
+      assertThrows(NullPointerException.class, () -> scheduler.register(null), scheduler.getClass().getName());
+    }
+  }
+
+  @Test
+  public void noCurrentContinuation() {
+    var scheduler = new FifoScheduler();
+    assertAll(
+        () -> assertThrows(IllegalStateException.class, scheduler::pause),
+        () -> assertThrows(IllegalStateException.class, scheduler::yield),
+        () -> assertThrows(IllegalStateException.class, Scheduler::currentContinuation),
+        () -> assertFalse(Scheduler.hasCurrentContinuation())
+    );
+  }
+}
@@ -0,0 +1,84 @@
+package fr.umlv.loom.continuation;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+// the number of task steps per second of 10_000 tasks that compute then pause 20 times,
+// on a work stealing scheduler with 1 to 8 workers (workers = 0 is the single-threaded FifoScheduler)
+// mvn test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+// java --enable-preview -cp target/test-classes:target/classes:$(cat target/cp.txt) org.openjdk.jmh.Main WorkStealingSchedulerBenchMark
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(value = 1, jvmArgsAppend = "--enable-preview")
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+public class WorkStealingSchedulerBenchMark {
+  private static final int TASKS = 10_000;
+  private static final int PAUSES = 20;
+
+  @Param({"0", "1", "2", "4", "8"})
+  private int workers;
+
+  private Scheduler scheduler;
+
+  @State(Scope.Thread)
+  @AuxCounters(AuxCounters.Type.OPERATIONS)
+  public static class Steps {
+    public long steps;
+  }
+
+  @Setup(Level.Trial)
+  public void setup() {
+    scheduler = workers == 0 ? new FifoScheduler() : new WorkStealingScheduler(workers);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    if (scheduler instanceof WorkStealingScheduler workStealingScheduler) {
+      workStealingScheduler.close();
+    }
+  }
+
+  private static int compute(int seed) {
+    var sum = seed;
+    for (var i = 0; i < 1_000; i++) {
+      sum = sum * 31 + i;
+    }
+    return sum;
+  }
+
+  @Benchmark
+  public void tasks_compute_and_pause(Steps steps, Blackhole blackhole) {
+    var scheduler = this.scheduler;
+    for (var i = 0; i < TASKS; i++) {
+      var seed = i;
+      scheduler.schedule(() -> {
+        var value = seed;
+        for (var j = 0; j < PAUSES; j++) {
+          value = compute(value);
+          scheduler.pause();
+        }
+        blackhole.consume(value);
+      });
+    }
+    scheduler.loop();
+    // a task runs one more time after its last pause
+    steps.steps += (long) TASKS * (PAUSES + 1);
+  }
+}
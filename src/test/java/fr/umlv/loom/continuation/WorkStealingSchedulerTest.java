@@ -0,0 +1,93 @@
+package fr.umlv.loom.continuation;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static fr.umlv.loom.executor.UnsafeExecutors.currentCarrierThread;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class WorkStealingSchedulerTest {
+  @Test
+  public void allTasksComplete() {
+    try(var scheduler = new WorkStealingScheduler(4)) {
+      var counter = new AtomicInteger();
+      for (var i = 0; i < 10_000; i++) {
+        scheduler.schedule(() -> {
+          for (var j = 0; j < 10; j++) {
+            counter.incrementAndGet();
+            scheduler.pause();
+          }
+        });
+      }
+      scheduler.loop();
+      assertEquals(100_000, counter.get());
+    }
+  }
+
+  @Test
+  public void tasksRunOnTheWorkers() {
+    try(var scheduler = new WorkStealingScheduler(2)) {
+      var carrierThreadNames = ConcurrentHashMap.<String>newKeySet();
+      for (var i = 0; i < 100; i++) {
+        scheduler.schedule(() -> {
+          for (var j = 0; j < 10; j++) {
+            carrierThreadNames.add(currentCarrierThread().getName());
+            scheduler.pause();
+          }
+        });
+      }
+      scheduler.loop();
+      assertTrue(carrierThreadNames.stream().allMatch(name -> name.startsWith("carrier-")), "" + carrierThreadNames);
+    }
+  }
+
+  @Test
+  public void registeredByAnotherTaskBeforeItYields() {
+    try(var scheduler = new WorkStealingScheduler(4)) {
+      // two tasks wake up each other, a task is often registered before it has yielded
+      var waiting = new AtomicReference<Continuation>();
+      var counter = new AtomicInteger();
+      for (var i = 0; i < 2; i++) {
+        scheduler.schedule(() -> {
+          for (var j = 0; j < 10_000; j++) {
+            counter.incrementAndGet();
+            var other = waiting.getAndSet(Scheduler.currentContinuation());
+            if (other != null) {
+              scheduler.register(other);
+            }
+            scheduler.yield();
+          }
+          var other = waiting.getAndSet(null);
+          if (other != null) {
+            scheduler.register(other);
+          }
+        });
+      }
+      scheduler.loop();
+      assertEquals(20_000, counter.get());
+    }
+  }
+
+  @Test
+  public void loopWithoutTask() {
+    try(var scheduler = new WorkStealingScheduler(1)) {
+      assertTimeoutPreemptively(Duration.ofSeconds(1), scheduler::loop);
+    }
+  }
+
+  @Test
+  public void preconditions() {
+    assertAll(
+        () -> assertThrows(IllegalArgumentException.class, () -> new WorkStealingScheduler(0)),
+        () -> {
+          try(var scheduler = new WorkStealingScheduler(1)) {
+            assertThrows(NullPointerException.class, () -> scheduler.register(null));
+          }
+        }
+    );
+  }
+}
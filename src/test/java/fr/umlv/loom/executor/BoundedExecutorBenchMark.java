@@ -0,0 +1,109 @@
+package fr.umlv.loom.executor;
+
+import fr.umlv.loom.executor.BoundedExecutor.Policy;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+// a burst of 2 000 requests hits a downstream service that can only serve 16 requests at a time,
+// each request allocates a 16k buffer when it starts, the unbounded executor starts all the requests at once.
+// completed/rejected/shed are the number of requests per burst, use -prof gc to see the allocation per burst
+// mvn test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+// java --enable-preview -cp target/test-classes:target/classes:$(cat target/cp.txt) org.openjdk.jmh.Main BoundedExecutorBenchMark -prof gc
+@Warmup(iterations = 3, time = 2, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 2, timeUnit = TimeUnit.SECONDS)
+@Fork(value = 1, jvmArgsAppend = "--enable-preview")
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class BoundedExecutorBenchMark {
+  private static final int BURST = 2_000;
+  private static final int MAX_IN_FLIGHT = 64;
+  private static final int MAX_QUEUED = 256;
+
+  @Param({"unbounded", "block", "reject", "queue", "shed_oldest"})
+  private String policy;
+
+  private final Semaphore downstream = new Semaphore(16);
+
+  @State(Scope.Thread)
+  @AuxCounters(AuxCounters.Type.EVENTS)
+  public static class Outcomes {
+    public long completed;
+    public long rejected;
+    public long shed;
+
+    @Setup(Level.Iteration)
+    public void reset() {
+      completed = rejected = shed = 0;
+    }
+  }
+
+  private ExecutorService newExecutor() {
+    return switch (policy) {
+      case "unbounded" -> Executors.newVirtualThreadPerTaskExecutor();
+      case "block" -> new BoundedExecutor(MAX_IN_FLIGHT, Policy.block());
+      case "reject" -> new BoundedExecutor(MAX_IN_FLIGHT, Policy.reject());
+      case "queue" -> new BoundedExecutor(MAX_IN_FLIGHT, Policy.queue(MAX_QUEUED));
+      case "shed_oldest" -> new BoundedExecutor(MAX_IN_FLIGHT, Policy.shedOldest(MAX_QUEUED));
+      default -> throw new AssertionError();
+    };
+  }
+
+  private int request() throws InterruptedException {
+    var buffer = new byte[16 * 1024];
+    downstream.acquire();
+    try {
+      Thread.sleep(1);
+      return buffer.length;
+    } finally {
+      downstream.release();
+    }
+  }
+
+  @Benchmark
+  public long burst_of_2_000_requests(Outcomes outcomes) throws InterruptedException {
+    var sum = 0L;
+    try(var executor = newExecutor()) {
+      var futures = new ArrayList<Future<Integer>>(BURST);
+      for (var i = 0; i < BURST; i++) {
+        try {
+          futures.add(executor.submit(this::request));
+        } catch (RejectedExecutionException e) {
+          outcomes.rejected++;
+        }
+      }
+      for (var future : futures) {
+        try {
+          sum += future.get();
+          outcomes.completed++;
+        } catch (CancellationException e) {
+          outcomes.shed++;
+        } catch (ExecutionException e) {
+          throw new AssertionError(e);
+        }
+      }
+    }
+    return sum;
+  }
+}
@@ -0,0 +1,176 @@
+package fr.umlv.loom.executor;
+
+import fr.umlv.loom.executor.BoundedExecutor.Policy;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BoundedExecutorTest {
+  private static Runnable await(CountDownLatch latch) {
+    return () -> {
+      try {
+        latch.await();
+      } catch (InterruptedException e) {
+        throw new AssertionError(e);
+      }
+    };
+  }
+
+  @Test
+  public void maxInFlight() throws InterruptedException {
+    var executor = new BoundedExecutor(4, Policy.block());
+    var running = new AtomicInteger();
+    var maxRunning = new AtomicInteger();
+    for (var i = 0; i < 100; i++) {
+      executor.execute(() -> {
+        var value = running.incrementAndGet();
+        maxRunning.accumulateAndGet(value, Math::max);
+        try {
+          Thread.sleep(1);
+        } catch (InterruptedException e) {
+          throw new AssertionError(e);
+        }
+        running.decrementAndGet();
+      });
+    }
+    executor.shutdown();
+    assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+    assertTrue(maxRunning.get() <= 4);
+  }
+
+  @Test
+  public void blockPolicy() throws InterruptedException {
+    var executor = new BoundedExecutor(1, Policy.block());
+    var release = new CountDownLatch(1);
+    executor.execute(await(release));
+    var submitted = new CountDownLatch(1);
+    var submitter = Thread.ofVirtual().start(() -> {
+      executor.execute(() -> {});
+      submitted.countDown();
+    });
+    assertFalse(submitted.await(50, TimeUnit.MILLISECONDS));
+    release.countDown();
+    submitter.join();
+    assertEquals(0, submitted.getCount());
+    executor.shutdown();
+    assertTrue(executor.awaitTermination(1, TimeUnit.SECONDS));
+  }
+
+  @Test
+  public void rejectPolicy() throws InterruptedException {
+    var executor = new BoundedExecutor(1, Policy.reject());
+    var release = new CountDownLatch(1);
+    executor.execute(await(release));
+    assertThrows(RejectedExecutionException.class, () -> executor.execute(() -> {}));
+    assertEquals(1, executor.rejectedCount());
+    release.countDown();
+    executor.shutdown();
+    assertTrue(executor.awaitTermination(1, TimeUnit.SECONDS));
+  }
+
+  @Test
+  public void queuePolicy() throws InterruptedException {
+    var executor = new BoundedExecutor(1, Policy.queue(2));
+    var release = new CountDownLatch(1);
+    var counter = new AtomicInteger();
+    executor.execute(await(release));
+    executor.execute(counter::incrementAndGet);
+    executor.execute(counter::incrementAndGet);
+    assertThrows(RejectedExecutionException.class, () -> executor.execute(counter::incrementAndGet));
+    assertAll(
+        () -> assertEquals(1, executor.inFlightCount()),
+        () -> assertEquals(2, executor.queuedCount()),
+        () -> assertEquals(1, executor.rejectedCount())
+    );
+    release.countDown();
+    executor.shutdown();
+    assertTrue(executor.awaitTermination(1, TimeUnit.SECONDS));
+    assertEquals(2, counter.get());
+  }
+
+  @Test
+  public void queuePolicyWithABudget() throws InterruptedException {
+    record Request(int size) implements Runnable {
+      @Override
+      public void run() {}
+    }
+    var executor = new BoundedExecutor(1, Policy.queue(1_000, task -> task instanceof Request request ? request.size : 0));
+    var release = new CountDownLatch(1);
+    executor.execute(await(release));
+    executor.execute(new Request(600));
+    assertThrows(RejectedExecutionException.class, () -> executor.execute(new Request(600)));
+    executor.execute(new Request(400));
+    assertThrows(RejectedExecutionException.class, () -> executor.execute(new Request(2_000)));
+    assertEquals(2, executor.queuedCount());
+    release.countDown();
+    executor.shutdown();
+    assertTrue(executor.awaitTermination(1, TimeUnit.SECONDS));
+  }
+
+  @Test
+  public void shedOldestPolicy() throws InterruptedException, ExecutionException {
+    var executor = new BoundedExecutor(1, Policy.shedOldest(2));
+    var release = new CountDownLatch(1);
+    executor.execute(await(release));
+    var futures = new ArrayList<Future<Integer>>();
+    for (var i = 0; i < 4; i++) {
+      var value = i;
+      futures.add(executor.submit(() -> value));
+    }
+    assertEquals(2, executor.shedCount());
+    release.countDown();
+    executor.shutdown();
+    assertTrue(executor.awaitTermination(1, TimeUnit.SECONDS));
+    assertAll(
+        () -> assertThrows(CancellationException.class, () -> futures.get(0).get()),
+        () -> assertThrows(CancellationException.class, () -> futures.get(1).get()),
+        () -> assertEquals(2, futures.get(2).get()),
+        () -> assertEquals(3, futures.get(3).get())
+    );
+  }
+
+  @Test
+  public void shutdownNow() throws InterruptedException {
+    var executor = new BoundedExecutor(1, Policy.queue(10));
+    var interrupted = new CountDownLatch(1);
+    executor.execute(() -> {
+      try {
+        Thread.sleep(10_000);
+      } catch (InterruptedException e) {
+        interrupted.countDown();
+      }
+    });
+    executor.execute(() -> {});
+    var tasks = executor.shutdownNow();
+    assertEquals(1, tasks.size());
+    assertTrue(interrupted.await(1, TimeUnit.SECONDS));
+    assertTrue(executor.awaitTermination(1, TimeUnit.SECONDS));
+    assertTrue(executor.isTerminated());
+  }
+
+  @Test
+  public void executeAfterShutdown() {
+    var executor = new BoundedExecutor(1, Policy.block());
+    executor.shutdown();
+    assertThrows(RejectedExecutionException.class, () -> executor.execute(() -> {}));
+  }
+
+  @Test
+  public void preconditions() {
+    assertAll(
+        () -> assertThrows(IllegalArgumentException.class, () -> new BoundedExecutor(0, Policy.block())),
+        () -> assertThrows(NullPointerException.class, () -> new BoundedExecutor(1, null)),
+        () -> assertThrows(IllegalArgumentException.class, () -> Policy.queue(0)),
+        () -> assertThrows(NullPointerException.class, () -> Policy.shedOldest(1, null))
+    );
+  }
+}
@@ -0,0 +1,36 @@
+package fr.umlv.loom.executor;
+
+import java.util.concurrent.CountDownLatch;
+
+final class CarrierThreads {
+  private CarrierThreads() {
+    throw new AssertionError();
+  }
+
+  // the name of the carrier is the suffix of the virtual thread toString()
+  static String carrierThreadName() {
+    var name = Thread.currentThread().toString();
+    var index = name.lastIndexOf('@');
+    if (index == -1) {
+      throw new AssertionError();
+    }
+    return name.substring(index + 1);
+  }
+
+  // pins the only carrier until the latch is released
+  static Thread blockCarrier(Thread.Builder builder, CountDownLatch release) throws InterruptedException {
+    var started = new CountDownLatch(1);
+    var thread = builder.start(() -> {
+      synchronized (release) {
+        started.countDown();
+        try {
+          release.await();
+        } catch (InterruptedException e) {
+          throw new AssertionError(e);
+        }
+      }
+    });
+    started.await();
+    return thread;
+  }
+}
@@ -0,0 +1,84 @@
+package fr.umlv.loom.executor;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+// overhead of the accounting, with more or less work between two yields
+// mvn test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+// java --enable-preview -cp target/test-classes:target/classes:$(cat target/cp.txt) org.openjdk.jmh.Main CpuAccountingExecutorBenchMark
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(value = 1, jvmArgsAppend = "--enable-preview")
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class CpuAccountingExecutorBenchMark {
+  @Param({"off", "on"})
+  private String accounting;
+
+  @Param({"0", "1000", "10000"})
+  private int work;
+
+  private WorkStealingExecutor carrier;
+  private ThreadFactory factory;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    carrier = new WorkStealingExecutor();
+    factory = switch (accounting) {
+      case "off" -> UnsafeExecutors.virtualThreadFactory(carrier);
+      case "on" -> new CpuAccountingExecutor(carrier).factory("benchmark");
+      default -> throw new AssertionError();
+    };
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    carrier.close();
+  }
+
+  private void yield_100_threads() {
+    var threads = new Thread[100];
+    for (var i = 0; i < threads.length; i++) {
+      var thread = factory.newThread(() -> {
+        for (var j = 0; j < 10; j++) {
+          Blackhole.consumeCPU(work);
+          Thread.yield();
+        }
+      });
+      thread.start();
+      threads[i] = thread;
+    }
+    try {
+      for (var thread : threads) {
+        thread.join();
+      }
+    } catch (InterruptedException e) {
+      throw new AssertionError(e);
+    }
+  }
+
+  @Benchmark
+  public void yield_100_threads_from_a_virtual_thread() throws InterruptedException {
+    // the virtual threads are started by a virtual thread to avoid measuring the handoff
+    // between the benchmark thread and the carriers
+    var root = factory.newThread(this::yield_100_threads);
+    root.start();
+    root.join();
+  }
+}
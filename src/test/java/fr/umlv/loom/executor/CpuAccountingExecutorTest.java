@@ -0,0 +1,124 @@
+package fr.umlv.loom.executor;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.StructuredTaskScope;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CpuAccountingExecutorTest {
+  private static void spin(long duration) {
+    var end = System.nanoTime() + duration;
+    while (System.nanoTime() - end < 0) {
+      Thread.onSpinWait();
+    }
+  }
+
+  @Test
+  public void timeIsAccountedPerAccount() throws InterruptedException {
+    var carrier = new WorkStealingExecutor(1);
+    var accounting = new CpuAccountingExecutor(carrier);
+    var heavy = accounting.configureBuilder(Thread.ofVirtual(), "heavy").start(() -> {
+      for (var i = 0; i < 10; i++) {
+        spin(5_000_000);
+        Thread.yield();
+      }
+    });
+    var light = accounting.configureBuilder(Thread.ofVirtual(), "light").start(() -> spin(1_000_000));
+    heavy.join();
+    light.join();
+    carrier.close();  // the time is accounted after the virtual threads terminate
+    var heavyAccount = accounting.account("heavy");
+    var lightAccount = accounting.account("light");
+    assertAll(
+        () -> assertTrue(heavyAccount.cpuTime() >= 50_000_000),
+        () -> assertTrue(lightAccount.cpuTime() >= 1_000_000),
+        () -> assertTrue(heavyAccount.cpuTime() > lightAccount.cpuTime()),
+        () -> assertEquals(11, heavyAccount.runSlices()),  // start + 10 yields
+        () -> assertEquals(1, lightAccount.runSlices()),
+        () -> assertEquals(heavyAccount.cpuTime(), accounting.cpuTimes().get("heavy"))
+    );
+  }
+
+  @Test
+  public void factoryTimeIsAccounted() throws InterruptedException {
+    var carrier = new WorkStealingExecutor(1);
+    var accounting = new CpuAccountingExecutor(carrier);
+    var factory = accounting.factory("yield");
+    var threads = new Thread[2];
+    for (var i = 0; i < threads.length; i++) {
+      var thread = factory.newThread(() -> {
+        for (var j = 0; j < 10; j++) {
+          spin(100_000);
+          Thread.yield();
+        }
+      });
+      thread.start();
+      threads[i] = thread;
+    }
+    for (var thread : threads) {
+      thread.join();
+    }
+    carrier.close();  // the time is accounted after the virtual threads terminate
+    var account = accounting.account("yield");
+    assertAll(
+        () -> assertTrue(account.cpuTime() >= 2_000_000),
+        () -> assertEquals(22, account.runSlices())  // 2 * (start + 10 yields)
+    );
+  }
+
+  @Test
+  public void structuredScopeAccount() throws InterruptedException {
+    var accounting = new CpuAccountingExecutor(Runnable::run);
+    try(var scope = new StructuredTaskScope<>("scope", accounting.factory("scope"))) {
+      for (var i = 0; i < 3; i++) {
+        scope.fork(() -> {
+          spin(1_000_000);
+          return null;
+        });
+      }
+      scope.join();
+    }
+    var account = accounting.account("scope");
+    assertAll(
+        () -> assertTrue(account.cpuTime() >= 3_000_000),
+        () -> assertEquals(3, account.runSlices())
+    );
+  }
+
+  @Test
+  public void scopedValueAccount() throws Exception {
+    var accounting = new CpuAccountingExecutor(Runnable::run);
+    var factory = accounting.factory();
+    ScopedValue.where(CpuAccountingExecutor.ACCOUNT, "tenant").call(() -> {
+      var thread = factory.newThread(() -> spin(1_000_000));
+      thread.start();
+      thread.join();
+      return null;
+    });
+    var thread = factory.newThread(() -> {});
+    thread.start();
+    thread.join();
+    assertAll(
+        () -> assertTrue(accounting.account("tenant").cpuTime() >= 1_000_000),
+        () -> assertEquals(1, accounting.account(CpuAccountingExecutor.DEFAULT_ACCOUNT).runSlices())
+    );
+  }
+
+  @Test
+  public void accountIsShared() {
+    var accounting = new CpuAccountingExecutor(Runnable::run);
+    assertSame(accounting.account("foo"), accounting.account("foo"));
+  }
+
+  @Test
+  public void preconditions() {
+    var accounting = new CpuAccountingExecutor(Runnable::run);
+    assertAll(
+        () -> assertThrows(NullPointerException.class, () -> new CpuAccountingExecutor(null)),
+        () -> assertThrows(NullPointerException.class, () -> accounting.account(null)),
+        () -> assertThrows(NullPointerException.class, () -> accounting.configureBuilder(null, "foo")),
+        () -> assertThrows(NullPointerException.class, () -> accounting.account("foo").execute(null))
+    );
+  }
+}
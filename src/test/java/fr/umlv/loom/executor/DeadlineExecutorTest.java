@@ -0,0 +1,140 @@
+package fr.umlv.loom.executor;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.StructuredTaskScope;
+import java.util.concurrent.TimeUnit;
+
+import static fr.umlv.loom.executor.CarrierThreads.blockCarrier;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DeadlineExecutorTest {
+  @Test
+  public void earliestDeadlineFirst() throws InterruptedException {
+    try(var executor = new DeadlineExecutor(1)) {
+      var release = new CountDownLatch(1);
+      var blocker = blockCarrier(executor.configureBuilder(Thread.ofVirtual(), null), release);
+      var now = Instant.now();
+      var order = new CopyOnWriteArrayList<Integer>();
+      var threads = new ArrayList<Thread>();
+      for (var seconds : List.of(30, 10, 20)) {
+        threads.add(executor.configureBuilder(Thread.ofVirtual(), now.plusSeconds(seconds)).start(() -> order.add(seconds)));
+      }
+      threads.add(executor.configureBuilder(Thread.ofVirtual(), null).start(() -> order.add(-1)));
+      release.countDown();
+      blocker.join();
+      for (var thread : threads) {
+        thread.join();
+      }
+      assertEquals(List.of(10, 20, 30, -1), order);
+    }
+  }
+
+  @Test
+  public void missedDeadlineRunAfterOnTime() throws InterruptedException {
+    try(var executor = new DeadlineExecutor(1)) {
+      var release = new CountDownLatch(1);
+      var blocker = blockCarrier(executor.configureBuilder(Thread.ofVirtual(), null), release);
+      var now = Instant.now();
+      var order = new CopyOnWriteArrayList<String>();
+      var late = executor.configureBuilder(Thread.ofVirtual(), now.minusSeconds(1)).start(() -> order.add("late"));
+      var onTime = executor.configureBuilder(Thread.ofVirtual(), now.plusSeconds(10)).start(() -> order.add("on time"));
+      release.countDown();
+      blocker.join();
+      late.join();
+      onTime.join();
+      assertEquals(List.of("on time", "late"), order);
+    }
+  }
+
+  @Test
+  public void factoryUsesDeadlineOfTheStructuredScope() throws Exception {
+    try(var executor = new DeadlineExecutor(1)) {
+      var release = new CountDownLatch(1);
+      var blocker = blockCarrier(executor.configureBuilder(Thread.ofVirtual(), null), release);
+      var now = Instant.now();
+      var order = new CopyOnWriteArrayList<String>();
+      var scope1 = Thread.ofPlatform().start(() -> {
+        try {
+          ScopedValue.where(DeadlineExecutor.DEADLINE, now.plusSeconds(20)).call(() -> {
+            try (var scope = new StructuredTaskScope<>("scope1", executor.factory())) {
+              scope.fork(() -> order.add("scope1"));
+              scope.join();
+            }
+            return null;
+          });
+        } catch (Exception e) {
+          throw new AssertionError(e);
+        }
+      });
+      var scope2 = Thread.ofPlatform().start(() -> {
+        try {
+          ScopedValue.where(DeadlineExecutor.DEADLINE, now.plusSeconds(10)).call(() -> {
+            try (var scope = new StructuredTaskScope<>("scope2", executor.factory())) {
+              scope.fork(() -> order.add("scope2"));
+              scope.join();
+            }
+            return null;
+          });
+        } catch (Exception e) {
+          throw new AssertionError(e);
+        }
+      });
+      Thread.sleep(100);  // let both scopes fork
+      release.countDown();
+      blocker.join();
+      scope1.join();
+      scope2.join();
+      assertEquals(List.of("scope2", "scope1"), order);
+    }
+  }
+
+  @Test
+  public void factoryWithoutDeadline() throws InterruptedException {
+    try(var executor = new DeadlineExecutor(2)) {
+      var thread = executor.factory().newThread(() -> {});
+      thread.start();
+      thread.join();
+      assertTrue(thread.isVirtual());
+    }
+  }
+
+  @Test
+  public void interruptedCarrierKeepsRunning() throws Exception {
+    try(var executor = new DeadlineExecutor(1)) {
+      var carrier = new CompletableFuture<Thread>();
+      executor.executor(null).execute(() -> carrier.complete(Thread.currentThread()));
+      var thread = carrier.get(1, TimeUnit.SECONDS);
+      thread.interrupt();
+      thread.join(100);
+      var carrier2 = new CompletableFuture<Thread>();
+      executor.executor(Instant.now().plusSeconds(10)).execute(() -> carrier2.complete(Thread.currentThread()));
+      assertAll(
+          () -> assertTrue(thread.isAlive()),
+          () -> assertSame(thread, carrier2.get(1, TimeUnit.SECONDS))
+      );
+    }
+  }
+
+  @Test
+  public void executeAfterClose() {
+    var executor = new DeadlineExecutor(1);
+    executor.close();
+    assertAll(
+        () -> assertThrows(RejectedExecutionException.class, () -> executor.executor(null).execute(() -> {})),
+        () -> assertThrows(RejectedExecutionException.class, () -> executor.executor(Instant.now()).execute(() -> {}))
+    );
+  }
+
+  @Test
+  public void invalidParallelism() {
+    assertThrows(IllegalArgumentException.class, () -> new DeadlineExecutor(0));
+  }
+}
@@ -0,0 +1,72 @@
+package fr.umlv.loom.executor;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+// Simulates an overloaded service, each request needs 1ms of CPU split in 4 slices
+// and has to complete between 2ms and 20ms after its arrival.
+// The requests arrive 20% faster than the carriers can run them.
+// mvn test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+// java --enable-preview -cp target/test-classes:target/classes:$(cat target/cp.txt) fr.umlv.loom.executor.DeadlineSimulation
+public class DeadlineSimulation {
+  private static final int REQUESTS = 5_000;
+  private static final long SLICE = Duration.ofMillis(1).toNanos() / 4;
+  private static final double LOAD = 1.2;
+
+  private static void spin(long duration) {
+    var end = System.nanoTime() + duration;
+    while (System.nanoTime() - end < 0) {
+      Thread.onSpinWait();
+    }
+  }
+
+  private interface Scheduler {
+    ThreadFactory factory(Instant deadline);
+  }
+
+  private static double simulate(Scheduler scheduler, int parallelism) throws InterruptedException {
+    var random = new Random(0);
+    var interval = (long) (4 * SLICE / parallelism / LOAD);
+    var hits = new AtomicInteger();
+    var threads = new ArrayList<Thread>();
+    for (var i = 0; i < REQUESTS; i++) {
+      var arrival = System.nanoTime();
+      var slack = Duration.ofMillis(2 + random.nextInt(18));
+      var deadline = arrival + slack.toNanos();
+      var thread = scheduler.factory(Instant.now().plus(slack)).newThread(() -> {
+        for (var slice = 0; slice < 4; slice++) {
+          spin(SLICE);
+          Thread.yield();
+        }
+        if (System.nanoTime() - deadline <= 0) {
+          hits.incrementAndGet();
+        }
+      });
+      thread.start();
+      threads.add(thread);
+      LockSupport.parkNanos(arrival + interval - System.nanoTime());
+    }
+    for (var thread : threads) {
+      thread.join();
+    }
+    return 100.0 * hits.get() / REQUESTS;
+  }
+
+  public static void main(String[] args) throws InterruptedException {
+    var parallelism = Runtime.getRuntime().availableProcessors();
+    System.setProperty("jdk.virtualThreadScheduler.parallelism", "" + parallelism);
+    for (var round = 0; round < 3; round++) {  // first rounds are warmup
+      var fifo = simulate(deadline -> Thread.ofVirtual().factory(), parallelism);
+      double edf;
+      try (var executor = new DeadlineExecutor(parallelism)) {
+        edf = simulate(deadline -> executor.configureBuilder(Thread.ofVirtual(), deadline).factory(), parallelism);
+      }
+      System.out.printf("round %d: deadline hit rate default scheduler %.1f%%, earliest deadline first %.1f%%%n", round, fifo, edf);
+    }
+  }
+}
@@ -0,0 +1,124 @@
+package fr.umlv.loom.executor;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+// 200 virtual threads, one in ten sleeps 5ms inside a synchronized block, so pins its carrier,
+// the others sleep 1ms and compute (no_pinning: all sleep 1ms and compute), on a fixed pool of one carrier per core,
+// a fixed pool of 64 carriers, an elastic pool (one carrier per core up to 256) or the default scheduler.
+// mvn test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+// java --enable-preview -cp target/test-classes:target/classes:$(cat target/cp.txt) org.openjdk.jmh.Main ElasticExecutorBenchMark
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(value = 1, jvmArgsAppend = "--enable-preview")
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class ElasticExecutorBenchMark {
+  @Param({"fixed_per_core", "fixed_64", "elastic", "jdk"})
+  private String carriers;
+
+  private ExecutorService fixed;
+  private ElasticExecutor elastic;
+  private ThreadFactory factory;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    var cores = Runtime.getRuntime().availableProcessors();
+    factory = switch (carriers) {
+      case "fixed_per_core" -> UnsafeExecutors.virtualThreadFactory(fixed = Executors.newFixedThreadPool(cores));
+      case "fixed_64" -> UnsafeExecutors.virtualThreadFactory(fixed = Executors.newFixedThreadPool(64));
+      case "elastic" -> UnsafeExecutors.virtualThreadFactory(elastic = new ElasticExecutor());
+      case "jdk" -> Thread.ofVirtual().factory();
+      default -> throw new AssertionError();
+    };
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    if (fixed != null) {
+      fixed.shutdown();
+    }
+    if (elastic != null) {
+      System.out.println("\npeak pool size " + elastic.peakPoolSize());
+      elastic.close();
+    }
+  }
+
+  private static int compute() {
+    var sum = 0;
+    for (var i = 0; i < 10_000; i++) {
+      sum += i * i;
+    }
+    return sum;
+  }
+
+  private static void sleep(Duration duration) {
+    try {
+      Thread.sleep(duration);
+    } catch (InterruptedException e) {
+      throw new AssertionError(e);
+    }
+  }
+
+  @Benchmark
+  public void mixed_200_threads() throws InterruptedException {
+    var threads = new ArrayList<Thread>(200);
+    for (var i = 0; i < 200; i++) {
+      Runnable task;
+      if (i % 10 == 0) {
+        var lock = new Object();
+        task = () -> {
+          synchronized (lock) {
+            sleep(Duration.ofMillis(5));
+          }
+        };
+      } else {
+        task = () -> {
+          sleep(Duration.ofMillis(1));
+          compute();
+        };
+      }
+      var thread = factory.newThread(task);
+      thread.start();
+      threads.add(thread);
+    }
+    for (var thread : threads) {
+      thread.join();
+    }
+  }
+
+  @Benchmark
+  public void no_pinning_200_threads() throws InterruptedException {
+    var threads = new ArrayList<Thread>(200);
+    for (var i = 0; i < 200; i++) {
+      var thread = factory.newThread(() -> {
+        sleep(Duration.ofMillis(1));
+        compute();
+      });
+      thread.start();
+      threads.add(thread);
+    }
+    for (var thread : threads) {
+      thread.join();
+    }
+  }
+}
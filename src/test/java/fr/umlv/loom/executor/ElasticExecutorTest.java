@@ -0,0 +1,161 @@
+package fr.umlv.loom.executor;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static fr.umlv.loom.executor.CarrierThreads.carrierThreadName;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ElasticExecutorTest {
+  // a virtual thread that sleeps inside a synchronized block pins its carrier
+  private static void pin(Duration duration) {
+    var lock = new Object();
+    synchronized (lock) {
+      try {
+        Thread.sleep(duration);
+      } catch (InterruptedException e) {
+        throw new AssertionError(e);
+      }
+    }
+  }
+
+  private static List<Thread> startPinningThreads(ElasticExecutor executor, int count, Duration duration) {
+    var factory = UnsafeExecutors.virtualThreadFactory(executor);
+    var threads = new ArrayList<Thread>();
+    for (var i = 0; i < count; i++) {
+      var thread = factory.newThread(() -> pin(duration));
+      thread.start();
+      threads.add(thread);
+    }
+    return threads;
+  }
+
+  @Test
+  public void virtualThreadsRunOnCarriers() throws InterruptedException {
+    try(var executor = new ElasticExecutor(2, 4, Duration.ofMillis(1), Duration.ofSeconds(1))) {
+      var carrierThreadNames = new CopyOnWriteArraySet<String>();
+      var factory = UnsafeExecutors.virtualThreadFactory(executor);
+      var threads = new ArrayList<Thread>();
+      for(var i = 0; i < 100; i++) {
+        var thread = factory.newThread(() -> carrierThreadNames.add(carrierThreadName()));
+        thread.start();
+        threads.add(thread);
+      }
+      for (var thread : threads) {
+        thread.join();
+      }
+      assertTrue(carrierThreadNames.stream().allMatch(name -> name.startsWith("elastic-carrier-")));
+    }
+  }
+
+  @Test
+  public void growsWhenCarriersArePinned() throws InterruptedException {
+    try(var executor = new ElasticExecutor(1, 8, Duration.ofMillis(1), Duration.ofSeconds(1))) {
+      var pinned = startPinningThreads(executor, 4, Duration.ofMillis(500));
+      var start = System.nanoTime();
+      var thread = UnsafeExecutors.virtualThreadFactory(executor).newThread(() -> {});
+      thread.start();
+      thread.join();
+      var elapsed = Duration.ofNanos(System.nanoTime() - start);
+      for (var pinnedThread : pinned) {
+        pinnedThread.join();
+      }
+      assertAll(
+          () -> assertTrue(elapsed.compareTo(Duration.ofMillis(400)) < 0, "" + elapsed),
+          () -> assertTrue(executor.peakPoolSize() >= 5, "" + executor.peakPoolSize())
+      );
+    }
+  }
+
+  @Test
+  public void neverGrowsAboveTheMaximumPoolSize() throws InterruptedException {
+    try(var executor = new ElasticExecutor(1, 2, Duration.ofMillis(1), Duration.ofSeconds(1))) {
+      for (var thread : startPinningThreads(executor, 6, Duration.ofMillis(20))) {
+        thread.join();
+      }
+      assertEquals(2, executor.peakPoolSize());
+    }
+  }
+
+  @Test
+  public void shrinksWhenIdle() throws InterruptedException {
+    try(var executor = new ElasticExecutor(1, 8, Duration.ofMillis(1), Duration.ofMillis(50))) {
+      for (var thread : startPinningThreads(executor, 4, Duration.ofMillis(50))) {
+        thread.join();
+      }
+      assertTrue(executor.peakPoolSize() > 1);
+      var deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+      while (executor.poolSize() > 1 && System.nanoTime() - deadline < 0) {
+        Thread.sleep(10);
+      }
+      assertEquals(1, executor.poolSize());
+    }
+  }
+
+  @Test
+  public void doesNotGrowWithoutPinning() throws InterruptedException {
+    try(var executor = new ElasticExecutor(1, 8, Duration.ofMillis(10), Duration.ofSeconds(1))) {
+      var factory = UnsafeExecutors.virtualThreadFactory(executor);
+      var threads = new ArrayList<Thread>();
+      for(var i = 0; i < 100; i++) {
+        var thread = factory.newThread(() -> {
+          try {
+            Thread.sleep(20);
+          } catch (InterruptedException e) {
+            throw new AssertionError(e);
+          }
+        });
+        thread.start();
+        threads.add(thread);
+      }
+      for (var thread : threads) {
+        thread.join();
+      }
+      assertEquals(1, executor.peakPoolSize());
+    }
+  }
+
+  @Test
+  public void interruptedCarrierKeepsRunning() throws Exception {
+    try(var executor = new ElasticExecutor(1, 1, Duration.ofMillis(1), Duration.ofSeconds(10))) {
+      var carrier = new CompletableFuture<Thread>();
+      executor.execute(() -> carrier.complete(Thread.currentThread()));
+      var thread = carrier.get(1, TimeUnit.SECONDS);
+      thread.interrupt();
+      thread.join(100);
+      var carrier2 = new CompletableFuture<Thread>();
+      executor.execute(() -> carrier2.complete(Thread.currentThread()));
+      assertAll(
+          () -> assertTrue(thread.isAlive()),
+          () -> assertSame(thread, carrier2.get(1, TimeUnit.SECONDS)),
+          () -> assertEquals(1, executor.poolSize())
+      );
+    }
+  }
+
+  @Test
+  public void executeAfterClose() {
+    var executor = new ElasticExecutor(1, 1, Duration.ofMillis(1), Duration.ofSeconds(1));
+    executor.close();
+    assertThrows(RejectedExecutionException.class, () -> executor.execute(() -> {}));
+  }
+
+  @Test
+  public void preconditions() {
+    var delay = Duration.ofMillis(1);
+    assertAll(
+        () -> assertThrows(IllegalArgumentException.class, () -> new ElasticExecutor(0, 1, delay, delay)),
+        () -> assertThrows(IllegalArgumentException.class, () -> new ElasticExecutor(2, 1, delay, delay)),
+        () -> assertThrows(IllegalArgumentException.class, () -> new ElasticExecutor(1, 1, Duration.ZERO, delay)),
+        () -> assertThrows(IllegalArgumentException.class, () -> new ElasticExecutor(1, 1, delay, Duration.ZERO)),
+        () -> assertThrows(NullPointerException.class, () -> new ElasticExecutor(1, 1, null, delay))
+    );
+  }
+}
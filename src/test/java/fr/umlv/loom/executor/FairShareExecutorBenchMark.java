@@ -0,0 +1,96 @@
+package fr.umlv.loom.executor;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+// latency (p50, p99, p99.9) of a request of a quiet tenant while a noisy tenant with a lot of virtual threads
+// saturates the carriers (the noisy tenant has 10x more runnable virtual threads)
+// mvn test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+// java --enable-preview -cp target/test-classes:target/classes:$(cat target/cp.txt) org.openjdk.jmh.Main FairShareExecutorBenchMark
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(value = 1, jvmArgsAppend = "--enable-preview")
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class FairShareExecutorBenchMark {
+  @Param({"default", "fairShare"})
+  private String scheduler;
+
+  private FairShareExecutor executor;
+  private ThreadFactory quietFactory;
+  private volatile boolean stop;
+  private final List<Thread> noisyThreads = new ArrayList<>();
+
+  private static long work(long seed) {
+    var value = seed;
+    for (var i = 0; i < 10_000; i++) {
+      value = value * 31 + i;
+    }
+    return value;
+  }
+
+  @Setup(Level.Trial)
+  public void setup() {
+    ThreadFactory noisyFactory;
+    switch (scheduler) {
+      case "default" -> {
+        noisyFactory = Thread.ofVirtual().factory();
+        quietFactory = Thread.ofVirtual().factory();
+      }
+      case "fairShare" -> {
+        executor = new FairShareExecutor();
+        noisyFactory = executor.configureBuilder(Thread.ofVirtual(), executor.tenant("noisy", 1)).factory();
+        quietFactory = executor.configureBuilder(Thread.ofVirtual(), executor.tenant("quiet", 1)).factory();
+      }
+      default -> throw new AssertionError();
+    }
+    for (var i = 0; i < 10 * Runtime.getRuntime().availableProcessors(); i++) {
+      var thread = noisyFactory.newThread(() -> {
+        var value = 0L;
+        while (!stop) {
+          value = work(value);
+          Thread.yield();
+        }
+      });
+      thread.start();
+      noisyThreads.add(thread);
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws InterruptedException {
+    stop = true;
+    for (var thread : noisyThreads) {
+      thread.join();
+    }
+    if (executor != null) {
+      executor.close();
+    }
+  }
+
+  @Benchmark
+  public long quiet_tenant_request() throws InterruptedException {
+    var result = new long[1];
+    var thread = quietFactory.newThread(() -> result[0] = work(42));
+    thread.start();
+    thread.join();
+    return result[0];
+  }
+}
@@ -0,0 +1,105 @@
+package fr.umlv.loom.executor;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FairShareExecutorTest {
+  private static void spin(long duration) {
+    var end = System.nanoTime() + duration;
+    while (System.nanoTime() - end < 0) {
+      Thread.onSpinWait();
+    }
+  }
+
+  @Test
+  public void carrierTimeIsSharedByWeight() throws InterruptedException {
+    try(var executor = new FairShareExecutor(1)) {
+      var light = executor.tenant("light", 1);
+      var heavy = executor.tenant("heavy", 3);
+      var threads = new ArrayList<Thread>();
+      var stop = new AtomicBoolean();
+      for (var tenant : new FairShareExecutor.Tenant[] { light, heavy }) {
+        var builder = executor.configureBuilder(Thread.ofVirtual(), tenant);
+        for (var i = 0; i < 4; i++) {
+          threads.add(builder.start(() -> {
+            while (!stop.get()) {
+              spin(100_000);
+              Thread.yield();
+            }
+          }));
+        }
+      }
+      Thread.sleep(500);
+      var lightTime = light.cpuTime();
+      var heavyTime = heavy.cpuTime();
+      stop.set(true);
+      for (var thread : threads) {
+        thread.join();
+      }
+      var ratio = (double) heavyTime / lightTime;
+      assertTrue(ratio > 2 && ratio < 4.5, "ratio " + ratio);
+    }
+  }
+
+  @Test
+  public void noisyTenantDoesNotStarveQuietTenant() throws InterruptedException {
+    try(var executor = new FairShareExecutor(1)) {
+      var noisy = executor.tenant("noisy", 1);
+      var quiet = executor.tenant("quiet", 1);
+      var noisyBuilder = executor.configureBuilder(Thread.ofVirtual(), noisy);
+      var counter = new AtomicInteger();
+      var threads = new ArrayList<Thread>();
+      for (var i = 0; i < 100; i++) {
+        threads.add(noisyBuilder.start(() -> {
+          for (var j = 0; j < 10; j++) {
+            spin(100_000);
+            Thread.yield();
+          }
+          counter.incrementAndGet();
+        }));
+      }
+      var quietThread = executor.configureBuilder(Thread.ofVirtual(), quiet).start(() -> {});
+      quietThread.join();
+      // the quiet thread has not waited for all the noisy threads
+      assertTrue(counter.get() < 100);
+      for (var thread : threads) {
+        thread.join();
+      }
+      assertEquals(100, counter.get());
+    }
+  }
+
+  @Test
+  public void configureWithTenantOfAnotherExecutor() {
+    try(var executor1 = new FairShareExecutor(1);
+        var executor2 = new FairShareExecutor(1)) {
+      var tenant = executor1.tenant("tenant", 1);
+      assertThrows(IllegalArgumentException.class, () -> executor2.configureBuilder(Thread.ofVirtual(), tenant));
+    }
+  }
+
+  @Test
+  public void executeAfterClose() {
+    var executor = new FairShareExecutor(1);
+    var tenant = executor.tenant("tenant", 1);
+    executor.close();
+    assertThrows(RejectedExecutionException.class, () -> tenant.execute(() -> {}));
+  }
+
+  @Test
+  public void preconditions() {
+    try(var executor = new FairShareExecutor(1)) {
+      assertAll(
+          () -> assertThrows(IllegalArgumentException.class, () -> new FairShareExecutor(0)),
+          () -> assertThrows(IllegalArgumentException.class, () -> executor.tenant("tenant", 0)),
+          () -> assertThrows(NullPointerException.class, () -> executor.tenant(null, 1))
+      );
+    }
+  }
+}
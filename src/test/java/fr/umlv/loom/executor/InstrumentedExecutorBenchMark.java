@@ -0,0 +1,81 @@
+package fr.umlv.loom.executor;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+// overhead of the instrumentation, use "-prof gc" to check that the instrumentation does not allocate
+// mvn test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+// java --enable-preview -cp target/test-classes:target/classes:$(cat target/cp.txt) org.openjdk.jmh.Main InstrumentedExecutorBenchMark -prof gc
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(value = 1, jvmArgsAppend = "--enable-preview")
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+public class InstrumentedExecutorBenchMark {
+  @Param({"plain", "instrumented"})
+  private String mode;
+
+  private WorkStealingExecutor workStealingExecutor;
+  private ThreadFactory inlineFactory;
+  private ThreadFactory workStealingFactory;
+
+  private Executor wrap(Executor executor) {
+    return switch (mode) {
+      case "plain" -> executor;
+      case "instrumented" -> new InstrumentedExecutor("benchmark", executor);
+      default -> throw new AssertionError();
+    };
+  }
+
+  @Setup(Level.Trial)
+  public void setup() {
+    // the virtual threads run on the benchmark thread
+    inlineFactory = UnsafeExecutors.virtualThreadFactory(wrap(Runnable::run));
+    workStealingExecutor = new WorkStealingExecutor();
+    workStealingFactory = UnsafeExecutors.virtualThreadFactory(wrap(workStealingExecutor));
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    workStealingExecutor.close();
+  }
+
+  @Benchmark
+  public void start_inline() {
+    inlineFactory.newThread(Thread::yield).start();
+  }
+
+  @Benchmark
+  @OutputTimeUnit(TimeUnit.MICROSECONDS)
+  public void yield_1_000_threads() throws InterruptedException {
+    var threads = new Thread[1_000];
+    for (var i = 0; i < threads.length; i++) {
+      var thread = workStealingFactory.newThread(() -> {
+        for (var j = 0; j < 10; j++) {
+          Thread.yield();
+        }
+      });
+      thread.start();
+      threads[i] = thread;
+    }
+    for (var thread : threads) {
+      thread.join();
+    }
+  }
+}
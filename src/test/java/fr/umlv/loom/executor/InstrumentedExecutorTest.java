@@ -0,0 +1,157 @@
+package fr.umlv.loom.executor;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class InstrumentedExecutorTest {
+  @Test
+  public void countersAndHistograms() throws InterruptedException {
+    var carrier = new WorkStealingExecutor(2);
+    var executor = new InstrumentedExecutor("test", carrier);
+    var factory = UnsafeExecutors.virtualThreadFactory(executor);
+    var threads = new ArrayList<Thread>();
+    for (var i = 0; i < 100; i++) {
+      var thread = factory.newThread(Thread::yield);
+      thread.start();
+      threads.add(thread);
+    }
+    for (var thread : threads) {
+      thread.join();
+    }
+    carrier.close();  // the run slices are recorded after the virtual threads terminate
+    var snapshot = executor.snapshot();
+    assertAll(
+        () -> assertEquals(200, snapshot.submitted()),  // start + yield
+        () -> assertEquals(200, snapshot.completed()),
+        () -> assertEquals(0, snapshot.queueDepth()),
+        () -> assertEquals(0, snapshot.running()),
+        () -> assertEquals(200, snapshot.schedulingDelay().count()),
+        () -> assertEquals(200, snapshot.runSlice().count()),
+        () -> assertTrue(snapshot.busyTime() > 0),
+        () -> assertTrue(snapshot.runSlice().percentile(0.99) >= snapshot.runSlice().percentile(0.5))
+    );
+  }
+
+  @Test
+  public void queueDepthAndRunning() throws InterruptedException {
+    try(var carrier = new WorkStealingExecutor(1)) {
+      var executor = new InstrumentedExecutor("test", carrier);
+      var factory = UnsafeExecutors.virtualThreadFactory(executor);
+      var started = new CountDownLatch(1);
+      var release = new CountDownLatch(1);
+      var blocker = factory.newThread(() -> {
+        synchronized (release) {  // pin the carrier
+          started.countDown();
+          try {
+            release.await();
+          } catch (InterruptedException e) {
+            throw new AssertionError(e);
+          }
+        }
+      });
+      blocker.start();
+      started.await();
+      var thread = factory.newThread(() -> {});
+      thread.start();
+      var snapshot = executor.snapshot();
+      release.countDown();
+      blocker.join();
+      thread.join();
+      assertAll(
+          () -> assertEquals(1, snapshot.queueDepth()),
+          () -> assertEquals(1, snapshot.running())
+      );
+    }
+  }
+
+  @Test
+  public void yieldingThreadsDoNotStarveSubmittedThreads() throws InterruptedException {
+    try(var carrier = new WorkStealingExecutor(1)) {
+      var executor = new InstrumentedExecutor("test", carrier);
+      var builder = UnsafeExecutors.configureBuilderExecutor(Thread.ofVirtual(), executor);
+      var counter = new AtomicInteger();
+      var threads = new ArrayList<Thread>();
+      var stop = new AtomicInteger();
+      for (var i = 0; i < 4; i++) {
+        threads.add(builder.start(() -> {
+          while (stop.get() == 0) {
+            counter.incrementAndGet();
+            Thread.yield();
+          }
+        }));
+      }
+      var submitted = counter.get();
+      var thread = builder.start(() -> stop.set(counter.get()));
+      thread.join();
+      for (var t : threads) {
+        t.join();
+      }
+      // a yield is still seen as a yield by the wrapped executor
+      assertTrue(stop.get() - submitted < 40, "yields " + (stop.get() - submitted));
+    }
+  }
+
+  @Test
+  public void tasksPerSecondAndUtilization() throws InterruptedException {
+    var executor = new InstrumentedExecutor("test", Runnable::run);
+    var factory = UnsafeExecutors.virtualThreadFactory(executor);
+    var snapshot1 = executor.snapshot();
+    for (var i = 0; i < 10; i++) {
+      var thread = factory.newThread(() -> {});
+      thread.start();
+      thread.join();
+    }
+    Thread.sleep(10);
+    var snapshot2 = executor.snapshot();
+    assertAll(
+        () -> assertTrue(snapshot2.tasksPerSecond(snapshot1) > 0),
+        () -> assertTrue(snapshot2.utilization(snapshot1, 1) > 0),
+        () -> assertTrue(snapshot2.utilization(snapshot1, 1) <= 1)
+    );
+  }
+
+  @Test
+  public void histogramPercentile() {
+    var executor = new InstrumentedExecutor("test", Runnable::run);
+    var snapshot = executor.snapshot();
+    assertAll(
+        () -> assertEquals(0, snapshot.schedulingDelay().percentile(0.5)),
+        () -> assertEquals(0, snapshot.schedulingDelay().mean()),
+        () -> assertThrows(IllegalArgumentException.class, () -> snapshot.schedulingDelay().percentile(2))
+    );
+  }
+
+  @Test
+  public void runSliceEvents() throws IOException, InterruptedException {
+    var file = Files.createTempFile("instrumented", ".jfr");
+    try(var recording = new Recording()) {
+      recording.enable("fr.umlv.loom.executor.RunSlice");
+      recording.start();
+      var executor = new InstrumentedExecutor("jfr-test", Runnable::run);
+      var factory = UnsafeExecutors.virtualThreadFactory(executor);
+      for (var i = 0; i < 10; i++) {
+        var thread = factory.newThread(() -> {});
+        thread.start();
+        thread.join();
+      }
+      recording.stop();
+      recording.dump(file);
+      var events = RecordingFile.readAllEvents(file).stream()
+          .filter(event -> event.getEventType().getName().equals("fr.umlv.loom.executor.RunSlice"))
+          .filter(event -> event.getString("executor").equals("jfr-test"))
+          .count();
+      assertEquals(10, events);
+    } finally {
+      Files.delete(file);
+    }
+  }
+}
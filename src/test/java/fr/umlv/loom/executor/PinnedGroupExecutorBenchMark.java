@@ -0,0 +1,100 @@
+package fr.umlv.loom.executor;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+// simulates relay pairs (like TCPVirtualThreadProxy) exchanging buffers,
+// the sample time mode reports the percentiles (p99, p99.9) of a round of exchanges
+// mvn test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+// java --enable-preview -cp target/test-classes:target/classes:$(cat target/cp.txt) org.openjdk.jmh.Main PinnedGroupExecutorBenchMark
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(value = 1, jvmArgsAppend = "--enable-preview")
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class PinnedGroupExecutorBenchMark {
+  private static final int PAIRS = 100;
+  private static final int MESSAGES = 100;
+
+  @Param({"default", "pinned"})
+  private String scheduler;
+
+  private PinnedGroupExecutor groups;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    if (scheduler.equals("pinned")) {
+      groups = new PinnedGroupExecutor();
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    if (groups != null) {
+      groups.close();
+    }
+  }
+
+  private ThreadFactory factory(int connectionId) {
+    return switch (scheduler) {
+      case "default" -> Thread.ofVirtual().factory();
+      case "pinned" -> groups.factory(connectionId);
+      default -> throw new AssertionError();
+    };
+  }
+
+  private static Runnable relay(SynchronousQueue<ByteBuffer> in, SynchronousQueue<ByteBuffer> out, boolean initiator) {
+    return () -> {
+      try {
+        var buffer = ByteBuffer.allocate(8192);
+        for (var i = 0; i < MESSAGES; i++) {
+          if (initiator) {
+            out.put(buffer);
+            buffer = in.take();
+          } else {
+            buffer = in.take();
+            buffer.putLong(0, buffer.getLong(0) + 1);
+            out.put(buffer);
+          }
+        }
+      } catch (InterruptedException e) {
+        throw new AssertionError(e);
+      }
+    };
+  }
+
+  @Benchmark
+  public void relay_pairs() throws InterruptedException {
+    var threads = new Thread[PAIRS * 2];
+    for (var i = 0; i < PAIRS; i++) {
+      var factory = factory(i);
+      var queue1 = new SynchronousQueue<ByteBuffer>();
+      var queue2 = new SynchronousQueue<ByteBuffer>();
+      threads[2 * i] = factory.newThread(relay(queue1, queue2, true));
+      threads[2 * i + 1] = factory.newThread(relay(queue2, queue1, false));
+    }
+    for (var thread : threads) {
+      thread.start();
+    }
+    for (var thread : threads) {
+      thread.join();
+    }
+  }
+}
@@ -0,0 +1,107 @@
+package fr.umlv.loom.executor;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.SynchronousQueue;
+import java.util.stream.IntStream;
+
+import static fr.umlv.loom.executor.CarrierThreads.carrierThreadName;
+import static java.util.stream.Collectors.toSet;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PinnedGroupExecutorTest {
+  @Test
+  public void sameKeySameCarrier() throws InterruptedException {
+    try(var groups = new PinnedGroupExecutor(4)) {
+      var carrierThreadNames = new CopyOnWriteArraySet<String>();
+      var queue = new SynchronousQueue<String>();
+      var factory = groups.factory("connection-42");
+      var thread1 = factory.newThread(() -> {
+        carrierThreadNames.add(carrierThreadName());
+        try {
+          queue.put("hello");
+        } catch (InterruptedException e) {
+          throw new AssertionError(e);
+        }
+        carrierThreadNames.add(carrierThreadName());
+      });
+      var thread2 = factory.newThread(() -> {
+        carrierThreadNames.add(carrierThreadName());
+        try {
+          assertEquals("hello", queue.take());
+        } catch (InterruptedException e) {
+          throw new AssertionError(e);
+        }
+        carrierThreadNames.add(carrierThreadName());
+      });
+      thread1.start();
+      thread2.start();
+      thread1.join();
+      thread2.join();
+      assertEquals(1, carrierThreadNames.size());
+      assertEquals("pinned-group-" + groups.groupOf("connection-42"), carrierThreadNames.iterator().next());
+    }
+  }
+
+  @Test
+  public void executorSameKeySameCarrier() throws InterruptedException {
+    var groups = new PinnedGroupExecutor(3);
+    var carrierThreadNames = new CopyOnWriteArraySet<String>();
+    var executor = groups.executor(1_000);
+    for(var i = 0; i < 10; i++) {
+      executor.execute(() -> carrierThreadNames.add(carrierThreadName()));
+    }
+    groups.close();  // runs the pending tasks
+    assertEquals(1, carrierThreadNames.size());
+  }
+
+  @Test
+  public void groupOfIsStable() {
+    try(var groups = new PinnedGroupExecutor(8)) {
+      for(var i = 0; i < 1_000; i++) {
+        var group = groups.groupOf(i);
+        assertTrue(group >= 0 && group < 8);
+        assertEquals(group, groups.groupOf(i));
+      }
+    }
+  }
+
+  @Test
+  public void keysAreSpreadOnAllGroups() {
+    try(var groups = new PinnedGroupExecutor(8)) {
+      var usedGroups = IntStream.range(0, 1_000).mapToObj(i -> groups.groupOf("key" + i)).collect(toSet());
+      assertEquals(8, usedGroups.size());
+    }
+  }
+
+  @Test
+  public void consistentHashingMovesFewKeys() {
+    try(var groups4 = new PinnedGroupExecutor(4);
+        var groups5 = new PinnedGroupExecutor(5)) {
+      var moved = new HashSet<Integer>();
+      for(var i = 0; i < 10_000; i++) {
+        var group4 = groups4.groupOf(i);
+        var group5 = groups5.groupOf(i);
+        if (group4 != group5) {
+          assertEquals(4, group5);  // a key can only move to the new group
+          moved.add(i);
+        }
+      }
+      assertTrue(moved.size() < 10_000 / 3, "moved " + moved.size());
+    }
+  }
+
+  @Test
+  public void preconditions() {
+    try(var groups = new PinnedGroupExecutor(2)) {
+      assertAll(
+          () -> assertThrows(IllegalArgumentException.class, () -> new PinnedGroupExecutor(0)),
+          () -> assertThrows(NullPointerException.class, () -> groups.executor(null)),
+          () -> assertThrows(NullPointerException.class, () -> groups.factory(null)),
+          () -> assertThrows(IndexOutOfBoundsException.class, () -> groups.carrier(2))
+      );
+    }
+  }
+}
@@ -0,0 +1,97 @@
+package fr.umlv.loom.executor;
+
+import fr.umlv.loom.executor.PriorityExecutor.Priority;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+// latency (p50, p99, p99.9) of an interactive request while batch virtual threads saturate the carriers
+// mvn test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+// java --enable-preview -cp target/test-classes:target/classes:$(cat target/cp.txt) org.openjdk.jmh.Main PriorityExecutorBenchMark
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(value = 1, jvmArgsAppend = "--enable-preview")
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class PriorityExecutorBenchMark {
+  @Param({"default", "lanes"})
+  private String scheduler;
+
+  private PriorityExecutor executor;
+  private ThreadFactory interactiveFactory;
+  private volatile boolean stop;
+  private final List<Thread> batchThreads = new ArrayList<>();
+
+  private static long work(long seed) {
+    var value = seed;
+    for (var i = 0; i < 10_000; i++) {
+      value = value * 31 + i;
+    }
+    return value;
+  }
+
+  @Setup(Level.Trial)
+  public void setup() {
+    ThreadFactory batchFactory;
+    switch (scheduler) {
+      case "default" -> {
+        batchFactory = Thread.ofVirtual().factory();
+        interactiveFactory = Thread.ofVirtual().factory();
+      }
+      case "lanes" -> {
+        executor = new PriorityExecutor(Runtime.getRuntime().availableProcessors(), Duration.ofMillis(100));
+        batchFactory = executor.configureBuilder(Thread.ofVirtual(), Priority.BATCH).factory();
+        interactiveFactory = executor.configureBuilder(Thread.ofVirtual(), Priority.LATENCY_CRITICAL).factory();
+      }
+      default -> throw new AssertionError();
+    }
+    for (var i = 0; i < 4 * Runtime.getRuntime().availableProcessors(); i++) {
+      var thread = batchFactory.newThread(() -> {
+        var value = 0L;
+        while (!stop) {
+          value = work(value);
+          Thread.yield();
+        }
+      });
+      thread.start();
+      batchThreads.add(thread);
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws InterruptedException {
+    stop = true;
+    for (var thread : batchThreads) {
+      thread.join();
+    }
+    if (executor != null) {
+      executor.close();
+    }
+  }
+
+  @Benchmark
+  public long interactive_request() throws InterruptedException {
+    var result = new long[1];
+    var thread = interactiveFactory.newThread(() -> result[0] = work(42));
+    thread.start();
+    thread.join();
+    return result[0];
+  }
+}
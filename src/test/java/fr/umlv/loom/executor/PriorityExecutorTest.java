@@ -0,0 +1,99 @@
+package fr.umlv.loom.executor;
+
+import fr.umlv.loom.executor.PriorityExecutor.Priority;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+
+import static fr.umlv.loom.executor.CarrierThreads.blockCarrier;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PriorityExecutorTest {
+  @Test
+  public void highestPriorityFirst() throws InterruptedException {
+    try(var executor = new PriorityExecutor(1, Duration.ofDays(1))) {
+      var release = new CountDownLatch(1);
+      var blocker = blockCarrier(executor.configureBuilder(Thread.ofVirtual(), Priority.NORMAL), release);
+      var order = new CopyOnWriteArrayList<Priority>();
+      var threads = new ArrayList<Thread>();
+      for (var priority : List.of(Priority.BATCH, Priority.NORMAL, Priority.LATENCY_CRITICAL)) {
+        threads.add(executor.configureBuilder(Thread.ofVirtual(), priority).start(() -> order.add(priority)));
+      }
+      release.countDown();
+      blocker.join();
+      for (var thread : threads) {
+        thread.join();
+      }
+      assertEquals(List.of(Priority.LATENCY_CRITICAL, Priority.NORMAL, Priority.BATCH), order);
+    }
+  }
+
+  @Test
+  public void resubmittedInTheSameLane() throws InterruptedException {
+    try(var executor = new PriorityExecutor(1, Duration.ofDays(1))) {
+      var order = new CopyOnWriteArrayList<String>();
+      var batchStarted = new CountDownLatch(1);
+      var resume = new CountDownLatch(1);
+      var batch = executor.configureBuilder(Thread.ofVirtual(), Priority.BATCH).start(() -> {
+        order.add("batch start");
+        batchStarted.countDown();
+        try {
+          resume.await();
+        } catch (InterruptedException e) {
+          throw new AssertionError(e);
+        }
+        order.add("batch end");
+      });
+      batchStarted.await();
+      var release = new CountDownLatch(1);
+      var blocker = blockCarrier(executor.configureBuilder(Thread.ofVirtual(), Priority.NORMAL), release);
+      resume.countDown();  // the batch thread is resubmitted in the batch lane
+      var critical = executor.configureBuilder(Thread.ofVirtual(), Priority.LATENCY_CRITICAL)
+          .start(() -> order.add("critical"));
+      release.countDown();
+      blocker.join();
+      batch.join();
+      critical.join();
+      assertEquals(List.of("batch start", "critical", "batch end"), order);
+    }
+  }
+
+  @Test
+  public void agingPreventsStarvation() throws InterruptedException {
+    try(var executor = new PriorityExecutor(1, Duration.ofMillis(10))) {
+      var release = new CountDownLatch(1);
+      var blocker = blockCarrier(executor.configureBuilder(Thread.ofVirtual(), Priority.NORMAL), release);
+      var order = new CopyOnWriteArrayList<Priority>();
+      var batch = executor.configureBuilder(Thread.ofVirtual(), Priority.BATCH).start(() -> order.add(Priority.BATCH));
+      Thread.sleep(50);
+      var critical = executor.configureBuilder(Thread.ofVirtual(), Priority.LATENCY_CRITICAL)
+          .start(() -> order.add(Priority.LATENCY_CRITICAL));
+      release.countDown();
+      blocker.join();
+      batch.join();
+      critical.join();
+      assertEquals(List.of(Priority.BATCH, Priority.LATENCY_CRITICAL), order);
+    }
+  }
+
+  @Test
+  public void executeAfterClose() {
+    var executor = new PriorityExecutor(1, Duration.ofMillis(10));
+    executor.close();
+    assertThrows(RejectedExecutionException.class, () -> executor.lane(Priority.NORMAL).execute(() -> {}));
+  }
+
+  @Test
+  public void preconditions() {
+    assertAll(
+        () -> assertThrows(IllegalArgumentException.class, () -> new PriorityExecutor(0, Duration.ZERO)),
+        () -> assertThrows(IllegalArgumentException.class, () -> new PriorityExecutor(1, Duration.ofMillis(-1))),
+        () -> assertThrows(NullPointerException.class, () -> new PriorityExecutor(1, null))
+    );
+  }
+}
@@ -0,0 +1,42 @@
+package fr.umlv.loom.executor;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+// the carrier executor runs the virtual threads on the benchmark thread so only the creation cost is measured,
+// use "-prof gc" to see the allocation per task
+// mvn test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+// java --enable-preview -cp target/test-classes:target/classes:$(cat target/cp.txt) org.openjdk.jmh.Main UnsafeExecutorsBenchMark -prof gc
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(value = 1, jvmArgsAppend = "--enable-preview")
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Thread)
+public class UnsafeExecutorsBenchMark {
+  private static final Executor CARRIER = Runnable::run;
+  private static final Runnable TASK = () -> {};
+
+  private final Executor executor = UnsafeExecutors.virtualThreadExecutor(CARRIER);
+
+  @Benchmark
+  public void builder_per_task() {
+    // the previous implementation of execute()
+    UnsafeExecutors.configureBuilderExecutor(Thread.ofVirtual(), CARRIER).start(TASK);
+  }
+
+  @Benchmark
+  public void execute() {
+    executor.execute(TASK);
+  }
+}
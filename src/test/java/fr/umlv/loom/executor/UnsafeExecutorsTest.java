@@ -2,23 +2,17 @@ package fr.umlv.loom.executor;
 
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.CopyOnWriteArraySet;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.TimeUnit;
 
+import static fr.umlv.loom.executor.CarrierThreads.carrierThreadName;
 import static org.junit.jupiter.api.Assertions.*;
 
 public class UnsafeExecutorsTest {
-  private static String carrierThreadName() {
-    var name = Thread.currentThread().toString();
-    var index = name.lastIndexOf('@');
-    if (index == -1) {
-      throw new AssertionError();
-    }
-    return name.substring(index + 1);
-  }
-
   @Test
   public void virtualThreadExecutorSingleThreadExecutor() throws InterruptedException {
     var executor = Executors.newSingleThreadExecutor();
@@ -31,4 +25,31 @@ public class UnsafeExecutorsTest {
     executor.awaitTermination(1, TimeUnit.DAYS);
     assertEquals(1, carrierThreadNames.size());
   }
-}
\ No newline at end of file
+
+  @Test
+  public void virtualThreadFactory() throws InterruptedException {
+    var factory = UnsafeExecutors.virtualThreadFactory(Runnable::run);
+    var carrier = new ArrayList<Thread>();
+    var thread = factory.newThread(() -> carrier.add(UnsafeExecutors.currentCarrierThread()));
+    thread.start();  // the virtual thread runs on the current thread
+    thread.join();
+    assertAll(
+        () -> assertTrue(thread.isVirtual()),
+        () -> assertEquals(List.of(Thread.currentThread()), carrier)
+    );
+  }
+
+  @Test
+  public void currentCarrierThreadOfPlatformThread() {
+    assertSame(Thread.currentThread(), UnsafeExecutors.currentCarrierThread());
+  }
+
+  @Test
+  public void virtualThreadExecutorPreconditions() {
+    var virtualExecutor = UnsafeExecutors.virtualThreadExecutor(Runnable::run);
+    assertAll(
+        () -> assertThrows(NullPointerException.class, () -> UnsafeExecutors.virtualThreadExecutor(null)),
+        () -> assertThrows(NullPointerException.class, () -> virtualExecutor.execute(null))
+    );
+  }
+}
@@ -0,0 +1,74 @@
+package fr.umlv.loom.executor;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+// throughput of 8 threads submitting tasks concurrently to the same executor service
+// mvn test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+// java --enable-preview -cp target/test-classes:target/classes:$(cat target/cp.txt) org.openjdk.jmh.Main VirtualThreadExecutorBenchMark
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(value = 1, jvmArgsAppend = "--enable-preview")
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Threads(8)
+@State(Scope.Benchmark)
+public class VirtualThreadExecutorBenchMark {
+  @Param({"jdk", "virtual_thread_executor"})
+  private String implementation;
+
+  private ExecutorService executor;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    executor = switch (implementation) {
+      case "jdk" -> Executors.newVirtualThreadPerTaskExecutor();
+      case "virtual_thread_executor" -> new VirtualThreadExecutor();
+      default -> throw new AssertionError();
+    };
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    executor.close();
+  }
+
+  @Benchmark
+  public int submit_and_get() throws ExecutionException, InterruptedException {
+    return executor.submit(() -> 42).get();
+  }
+
+  @Benchmark
+  @OutputTimeUnit(TimeUnit.SECONDS)
+  public int submit_100_then_get() throws ExecutionException, InterruptedException {
+    var futures = new ArrayList<Future<Integer>>(100);
+    for (var i = 0; i < 100; i++) {
+      var value = i;
+      futures.add(executor.submit(() -> value));
+    }
+    var sum = 0;
+    for (var future : futures) {
+      sum += future.get();
+    }
+    return sum;
+  }
+}
@@ -1,12 +1,14 @@
 package fr.umlv.loom.executor;
 
-/*
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -212,5 +214,55 @@ public class VirtualThreadExecutorTest {
     assertThrows(TimeoutException.class, () -> executor.invokeAny(tasks, 50, TimeUnit.MILLISECONDS));
     executor.shutdown();
   }
+
+  @Test
+  public void concurrentSubmitters() throws InterruptedException, ExecutionException {
+    var executor = new VirtualThreadExecutor();
+    var futures = new ConcurrentLinkedQueue<Future<Integer>>();
+    var submitters = new ArrayList<Thread>();
+    for (var i = 0; i < 8; i++) {
+      submitters.add(Thread.ofPlatform().start(() -> {
+        for (var j = 0; j < 1_000; j++) {
+          futures.add(executor.submit(() -> 1));
+        }
+      }));
+    }
+    for (var submitter : submitters) {
+      submitter.join();
+    }
+    assertTrue(executor.awaitTermination(1, TimeUnit.SECONDS));
+    var sum = 0;
+    for (var future : futures) {
+      sum += future.get();
+    }
+    assertEquals(8_000, sum);
+  }
+
+  @Test
+  public void submitAfterShutdown() {
+    var executor = new VirtualThreadExecutor();
+    executor.shutdown();
+    assertAll(
+        () -> assertThrows(RejectedExecutionException.class, () -> executor.submit(() -> 42)),
+        () -> assertThrows(RejectedExecutionException.class, () -> executor.execute(() -> {})),
+        () -> assertThrows(RejectedExecutionException.class, () -> executor.invokeAll(List.of(() -> 42)))
+    );
+  }
+
+  @Test
+  public void invokeAnyNoTask() {
+    var executor = new VirtualThreadExecutor();
+    assertThrows(IllegalArgumentException.class, () -> executor.invokeAny(List.<Callable<Integer>>of()));
+    executor.shutdown();
+  }
+
+  @Test
+  public void customThreadFactory() throws ExecutionException, InterruptedException {
+    try(var carrier = new WorkStealingExecutor(1)) {
+      var executor = new VirtualThreadExecutor(UnsafeExecutors.virtualThreadFactory(carrier));
+      var future = executor.submit(() -> Thread.currentThread().toString());
+      executor.shutdown();
+      assertTrue(future.get().contains("carrier-0"));
+    }
+  }
 }
- */
\ No newline at end of file
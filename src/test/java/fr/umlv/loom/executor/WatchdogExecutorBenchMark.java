@@ -0,0 +1,100 @@
+package fr.umlv.loom.executor;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+// latency (p50, p99, p99.9) of an I/O bound virtual thread while CPU bound virtual threads run long loops
+// on the same carriers, with and without calling checkpoint() in the loops
+// mvn test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+// java --enable-preview -cp target/test-classes:target/classes:$(cat target/cp.txt) org.openjdk.jmh.Main WatchdogExecutorBenchMark
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(value = 1, jvmArgsAppend = "--enable-preview")
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class WatchdogExecutorBenchMark {
+  @Param({"no_checkpoint", "checkpoint"})
+  private String mode;
+
+  private WorkStealingExecutor carrier;
+  private WatchdogExecutor watchdog;
+  private ThreadFactory factory;
+  private volatile boolean stop;
+  private final List<Thread> cpuThreads = new ArrayList<>();
+
+  private static long work(long seed) {
+    var value = seed;
+    for (var i = 0; i < 10_000; i++) {
+      value = value * 31 + i;
+    }
+    return value;
+  }
+
+  @Setup(Level.Trial)
+  public void setup() {
+    carrier = new WorkStealingExecutor();
+    watchdog = new WatchdogExecutor(carrier, Duration.ofMillis(1), Duration.ofSeconds(1), __ -> {});
+    factory = watchdog.factory();
+    var checkpoint = mode.equals("checkpoint");
+    for (var i = 0; i < 2 * carrier.parallelism(); i++) {
+      var thread = factory.newThread(() -> {
+        var value = 0L;
+        while (!stop) {
+          for (var j = 0; j < 1_000; j++) {  // a long computation, tens of milliseconds
+            value = work(value);
+            if (checkpoint) {
+              WatchdogExecutor.checkpoint();
+            }
+          }
+          Thread.yield();
+        }
+      });
+      thread.start();
+      cpuThreads.add(thread);
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws InterruptedException {
+    stop = true;
+    for (var thread : cpuThreads) {
+      thread.join();
+    }
+    watchdog.close();
+    carrier.close();
+  }
+
+  @Benchmark
+  public long io_request() throws InterruptedException {
+    var result = new long[1];
+    var thread = factory.newThread(() -> {
+      try {
+        Thread.sleep(0, 100_000);  // simulate an I/O
+      } catch (InterruptedException e) {
+        throw new AssertionError(e);
+      }
+      result[0] = work(42);
+    });
+    thread.start();
+    thread.join();
+    return result[0];
+  }
+}
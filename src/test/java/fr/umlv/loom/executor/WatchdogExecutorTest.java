@@ -0,0 +1,97 @@
+package fr.umlv.loom.executor;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class WatchdogExecutorTest {
+  private static void spin(long duration) {
+    var end = System.nanoTime() + duration;
+    while (System.nanoTime() - end < 0) {
+      Thread.onSpinWait();
+    }
+  }
+
+  private static void hog() {
+    spin(200_000_000);
+  }
+
+  @Test
+  public void hogIsReported() throws InterruptedException {
+    var hogs = new CopyOnWriteArrayList<WatchdogExecutor.Hog>();
+    try(var carrier = new WorkStealingExecutor(1);
+        var watchdog = new WatchdogExecutor(carrier, Duration.ofMillis(1), Duration.ofMillis(50), hogs::add)) {
+      var thread = watchdog.factory().newThread(WatchdogExecutorTest::hog);
+      thread.start();
+      thread.join();
+      assertEquals(1, hogs.size());
+      var hog = hogs.get(0);
+      assertAll(
+          () -> assertSame(thread, hog.thread()),
+          () -> assertEquals("carrier-0", hog.carrier().getName()),
+          () -> assertTrue(hog.duration().toMillis() >= 50),
+          () -> assertTrue(Arrays.stream(hog.stackTrace()).anyMatch(element -> element.getMethodName().equals("hog")))
+      );
+    }
+  }
+
+  @Test
+  public void shortTasksAreNotReported() throws InterruptedException {
+    var hogs = new CopyOnWriteArrayList<WatchdogExecutor.Hog>();
+    try(var carrier = new WorkStealingExecutor(1);
+        var watchdog = new WatchdogExecutor(carrier, Duration.ofMillis(1), Duration.ofMillis(50), hogs::add)) {
+      var thread = watchdog.factory().newThread(() -> {
+        for (var i = 0; i < 100; i++) {
+          spin(1_000_000);
+          Thread.yield();
+        }
+      });
+      thread.start();
+      thread.join();
+      assertEquals(0, hogs.size());
+    }
+  }
+
+  @Test
+  public void checkpointLetsOtherThreadsRun() throws InterruptedException {
+    try(var carrier = new WorkStealingExecutor(1);
+        var watchdog = new WatchdogExecutor(carrier, Duration.ofMillis(1), Duration.ofSeconds(10), __ -> {})) {
+      var factory = watchdog.factory();
+      var stop = new AtomicBoolean();
+      var loop = factory.newThread(() -> {
+        while (!stop.get()) {
+          spin(10_000);
+          WatchdogExecutor.checkpoint();
+        }
+      });
+      loop.start();
+      // without checkpoint(), this thread would never run on the only carrier
+      var thread = factory.newThread(() -> stop.set(true));
+      thread.start();
+      thread.join();
+      loop.join();
+    }
+  }
+
+  @Test
+  public void checkpointOutsideAWatchedThread() throws InterruptedException {
+    WatchdogExecutor.checkpoint();
+    var thread = Thread.ofVirtual().start(WatchdogExecutor::checkpoint);
+    thread.join();
+  }
+
+  @Test
+  public void preconditions() {
+    assertAll(
+        () -> assertThrows(NullPointerException.class, () -> new WatchdogExecutor(null, Duration.ofMillis(1), Duration.ofMillis(1), __ -> {})),
+        () -> assertThrows(NullPointerException.class, () -> new WatchdogExecutor(Runnable::run, Duration.ofMillis(1), Duration.ofMillis(1), null)),
+        () -> assertThrows(IllegalArgumentException.class, () -> new WatchdogExecutor(Runnable::run, Duration.ZERO, Duration.ofMillis(1), __ -> {})),
+        () -> assertThrows(IllegalArgumentException.class, () -> new WatchdogExecutor(Runnable::run, Duration.ofMillis(1), Duration.ofMillis(-1), __ -> {}))
+    );
+  }
+}
@@ -0,0 +1,100 @@
+package fr.umlv.loom.executor;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+// mvn test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+// java --enable-preview -cp target/test-classes:target/classes:$(cat target/cp.txt) org.openjdk.jmh.Main WorkStealingExecutorBenchMark
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(value = 1, jvmArgsAppend = "--enable-preview")
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class WorkStealingExecutorBenchMark {
+  @Param({"default", "workStealing"})
+  private String scheduler;
+
+  private WorkStealingExecutor executor;
+  private ThreadFactory factory;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    factory = switch (scheduler) {
+      case "default" -> Thread.ofVirtual().factory();
+      case "workStealing" -> {
+        executor = new WorkStealingExecutor();
+        yield UnsafeExecutors.configureBuilderExecutor(Thread.ofVirtual(), executor).factory();
+      }
+      default -> throw new AssertionError();
+    };
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    if (executor != null) {
+      executor.close();
+    }
+  }
+
+  @Benchmark
+  public void yield_1_000_threads() throws InterruptedException {
+    var threads = new Thread[1_000];
+    for (var i = 0; i < threads.length; i++) {
+      var thread = factory.newThread(() -> {
+        for (var j = 0; j < 10; j++) {
+          Thread.yield();
+        }
+      });
+      thread.start();
+      threads[i] = thread;
+    }
+    for (var thread : threads) {
+      thread.join();
+    }
+  }
+
+  @Benchmark
+  public void ping_pong_1_000() throws InterruptedException {
+    var queue1 = new SynchronousQueue<Integer>();
+    var queue2 = new SynchronousQueue<Integer>();
+    var ping = factory.newThread(() -> {
+      try {
+        for (var i = 0; i < 1_000; i++) {
+          queue1.put(i);
+          queue2.take();
+        }
+      } catch (InterruptedException e) {
+        throw new AssertionError(e);
+      }
+    });
+    var pong = factory.newThread(() -> {
+      try {
+        for (var i = 0; i < 1_000; i++) {
+          queue2.put(queue1.take());
+        }
+      } catch (InterruptedException e) {
+        throw new AssertionError(e);
+      }
+    });
+    ping.start();
+    pong.start();
+    ping.join();
+    pong.join();
+  }
+}
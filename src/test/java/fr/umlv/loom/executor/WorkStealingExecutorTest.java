@@ -0,0 +1,124 @@
+package fr.umlv.loom.executor;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static fr.umlv.loom.executor.CarrierThreads.carrierThreadName;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class WorkStealingExecutorTest {
+  @Test
+  public void virtualThreadsRunOnWorkers() throws InterruptedException {
+    try(var executor = new WorkStealingExecutor(2)) {
+      var carrierThreadNames = new CopyOnWriteArraySet<String>();
+      var threads = new ArrayList<Thread>();
+      for(var i = 0; i < 100; i++) {
+        threads.add(UnsafeExecutors.configureBuilderExecutor(Thread.ofVirtual(), executor)
+            .start(() -> carrierThreadNames.add(carrierThreadName())));
+      }
+      for (var thread : threads) {
+        thread.join();
+      }
+      assertAll(
+          () -> assertTrue(carrierThreadNames.size() <= 2),
+          () -> assertTrue(carrierThreadNames.stream().allMatch(name -> name.startsWith("carrier-")))
+      );
+    }
+  }
+
+  @Test
+  public void manyVirtualThreadsYielding() throws InterruptedException {
+    try(var executor = new WorkStealingExecutor()) {
+      var counter = new AtomicInteger();
+      var factory = UnsafeExecutors.configureBuilderExecutor(Thread.ofVirtual(), executor).factory();
+      var threads = new ArrayList<Thread>();
+      for(var i = 0; i < 10_000; i++) {
+        var thread = factory.newThread(() -> {
+          for(var j = 0; j < 10; j++) {
+            Thread.yield();
+          }
+          counter.incrementAndGet();
+        });
+        thread.start();
+        threads.add(thread);
+      }
+      for (var thread : threads) {
+        thread.join();
+      }
+      assertEquals(10_000, counter.get());
+    }
+  }
+
+  @Test
+  public void yieldingThreadsDoNotStarveSubmittedThreads() throws InterruptedException {
+    try(var executor = new WorkStealingExecutor(1)) {
+      var builder = UnsafeExecutors.configureBuilderExecutor(Thread.ofVirtual(), executor);
+      var counter = new AtomicInteger();
+      var threads = new ArrayList<Thread>();
+      var stop = new AtomicInteger();
+      for (var i = 0; i < 4; i++) {
+        threads.add(builder.start(() -> {
+          while (stop.get() == 0) {
+            counter.incrementAndGet();
+            Thread.yield();
+          }
+        }));
+      }
+      // the yielding threads may have run for a whole time slice of the OS before the submission
+      var submitted = counter.get();
+      var thread = builder.start(() -> stop.set(counter.get()));
+      thread.join();
+      for (var t : threads) {
+        t.join();
+      }
+      // the submitted thread runs after each yielding thread has run at most a few times
+      assertTrue(stop.get() - submitted < 40, "yields " + (stop.get() - submitted));
+    }
+  }
+
+  @Test
+  public void idleWorkersStealLocalTasks() throws InterruptedException {
+    try(var executor = new WorkStealingExecutor(4)) {
+      var barrier = new CyclicBarrier(4);
+      var carrierThreadNames = new CopyOnWriteArraySet<String>();
+      Runnable pinAndWait = () -> {
+        synchronized (new Object()) {  // pin the carrier
+          carrierThreadNames.add(carrierThreadName());
+          try {
+            barrier.await(5, TimeUnit.SECONDS);
+          } catch (Exception e) {
+            throw new AssertionError(e);
+          }
+        }
+      };
+      var builder = UnsafeExecutors.configureBuilderExecutor(Thread.ofVirtual(), executor);
+      var thread = builder.start(() -> {
+        // those threads are scheduled on the current carrier, so they have to be stolen
+        for(var i = 0; i < 3; i++) {
+          builder.start(pinAndWait);
+        }
+        pinAndWait.run();
+      });
+      thread.join();
+      assertEquals(4, carrierThreadNames.size());
+    }
+  }
+
+  @Test
+  public void executeAfterClose() {
+    var executor = new WorkStealingExecutor(1);
+    executor.close();
+    assertThrows(RejectedExecutionException.class, () -> executor.execute(() -> {}));
+  }
+
+  @Test
+  public void invalidParallelism() {
+    assertThrows(IllegalArgumentException.class, () -> new WorkStealingExecutor(0));
+  }
+}
@@ -10,6 +10,7 @@ import java.time.Instant;
 import java.time.temporal.ChronoUnit;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Stream;
 
 import static java.util.stream.IntStream.range;
@@ -57,6 +58,22 @@ public final class AsyncScope2Test {
     }
   }
 
+  @Test
+  public void orderedWithMaxConcurrency() throws InterruptedException {
+    var running = new AtomicInteger();
+    var maxRunning = new AtomicInteger();
+    try(var scope = AsyncScope2.<Integer, RuntimeException>ordered(2)) {
+      range(0, 20).forEach(i -> scope.async(() -> {
+        maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+        Thread.sleep(1);
+        running.decrementAndGet();
+        return i;
+      }));
+      assertEquals(range(0, 20).boxed().toList(), scope.await(Stream::toList));
+    }
+    assertTrue(maxRunning.get() <= 2);
+  }
+
   @Test
   public void orderedEmpty() throws InterruptedException {
     try(var scope = AsyncScope2.<Integer, RuntimeException>ordered()) {
@@ -0,0 +1,97 @@
+package fr.umlv.loom.structured;
+
+import fr.umlv.loom.structured.Bulkheads.Bulkhead;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+// latency of a fan-out of 4 calls to a fast dependency (1ms) while 64 callers keep a slow dependency (50ms)
+// saturated, with either a budget shared by both dependencies or a bulkhead per dependency.
+// mvn test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+// java --enable-preview -cp target/test-classes:target/classes:$(cat target/cp.txt) org.openjdk.jmh.Main BulkheadsBenchMark
+@Warmup(iterations = 3, time = 2, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 2, timeUnit = TimeUnit.SECONDS)
+@Fork(value = 1, jvmArgsAppend = "--enable-preview")
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class BulkheadsBenchMark {
+  private static final int SLOW_CALLERS = 64;
+
+  @Param({"shared", "isolated"})
+  private String bulkheads;
+
+  private Bulkhead slowAPI;
+  private Bulkhead fastAPI;
+  private final ArrayList<Thread> load = new ArrayList<>();
+
+  @Setup(Level.Trial)
+  public void setup() {
+    var registry = new Bulkheads();
+    switch (bulkheads) {
+      case "shared" -> slowAPI = fastAPI = registry.bulkhead("api", 16, 128);
+      case "isolated" -> {
+        slowAPI = registry.bulkhead("slow-api", 8, 64);
+        fastAPI = registry.bulkhead("fast-api", 8, 64);
+      }
+      default -> throw new AssertionError();
+    }
+    for (var i = 0; i < SLOW_CALLERS; i++) {
+      load.add(Thread.ofVirtual().start(() -> {
+        try {
+          for (;;) {
+            slowAPI.invoke(() -> {
+              Thread.sleep(50);
+              return null;
+            });
+          }
+        } catch (InterruptedException e) {
+          // end of the trial
+        }
+      }));
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws InterruptedException {
+    for (var thread : load) {
+      thread.interrupt();
+    }
+    for (var thread : load) {
+      thread.join();
+    }
+  }
+
+  @Benchmark
+  public int fan_out_to_the_fast_dependency() throws InterruptedException {
+    try(var scope = new StructuredScopeShutdownOnFailure<RuntimeException>()) {
+      var suppliers = new ArrayList<Supplier<Integer>>();
+      for (var i = 0; i < 4; i++) {
+        suppliers.add(scope.fork(fastAPI, () -> {
+          Thread.sleep(1);
+          return 1;
+        }));
+      }
+      scope.joinAll();
+      var sum = 0;
+      for (var supplier : suppliers) {
+        sum += supplier.get();
+      }
+      return sum;
+    }
+  }
+}
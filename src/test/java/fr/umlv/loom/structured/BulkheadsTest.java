@@ -0,0 +1,172 @@
+package fr.umlv.loom.structured;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BulkheadsTest {
+  @Test
+  public void invoke() throws InterruptedException {
+    var bulkheads = new Bulkheads();
+    var bulkhead = bulkheads.bulkhead("api", 2, 10);
+    assertEquals(42, (int) bulkhead.invoke(() -> 42));
+    assertEquals(new Bulkheads.Metrics("api", 2, 10, 0, 0, 1, 0, 0), bulkhead.metrics());
+  }
+
+  @Test
+  public void invokeFailure() {
+    var bulkhead = new Bulkheads().bulkhead("api", 2, 10);
+    assertThrows(IOException.class, () -> bulkhead.invoke(() -> { throw new IOException(); }));
+    assertAll(
+        () -> assertEquals(0, bulkhead.metrics().inFlight()),
+        () -> assertEquals(1, bulkhead.metrics().completed())
+    );
+  }
+
+  @Test
+  public void bulkheadByName() {
+    var bulkheads = new Bulkheads();
+    var bulkhead = bulkheads.bulkhead("api", 2, 10);
+    assertAll(
+        () -> assertSame(bulkhead, bulkheads.bulkhead("api")),
+        () -> assertSame(bulkhead, bulkheads.bulkhead("api", 2, 10)),
+        () -> assertThrows(IllegalStateException.class, () -> bulkheads.bulkhead("api", 3, 10)),
+        () -> assertThrows(IllegalArgumentException.class, () -> bulkheads.bulkhead("unknown"))
+    );
+  }
+
+  @Test
+  public void maxConcurrent() throws InterruptedException {
+    var bulkhead = new Bulkheads().bulkhead("api", 3, 100);
+    var running = new AtomicInteger();
+    var maxRunning = new AtomicInteger();
+    try(var scope = new StructuredScopeAsStream<Integer, RuntimeException>()) {
+      for (var i = 0; i < 20; i++) {
+        var value = i;
+        scope.fork(bulkhead, () -> {
+          maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+          Thread.sleep(1);
+          running.decrementAndGet();
+          return value;
+        });
+      }
+      int sum = scope.joinAll(stream -> stream.mapToInt(StructuredScopeAsStream.Result::result).sum());
+      assertEquals(190, sum);
+    }
+    assertAll(
+        () -> assertEquals(3, maxRunning.get()),
+        () -> assertEquals(20, bulkhead.metrics().completed())
+    );
+  }
+
+  @Test
+  public void rejectWhenTheQueueIsFull() throws InterruptedException {
+    var bulkhead = new Bulkheads().bulkhead("api", 1, 1);
+    var release = new CountDownLatch(1);
+    try(var scope = new StructuredScopeShutdownOnFailure<RuntimeException>()) {
+      scope.fork(bulkhead, () -> {
+        release.await();
+        return 1;
+      });
+      scope.fork(bulkhead, () -> 2);
+      while (bulkhead.metrics().queued() != 1) {
+        Thread.sleep(1);
+      }
+      assertThrows(RejectedExecutionException.class, () -> bulkhead.invoke(() -> 3));
+      release.countDown();
+      scope.joinAll();
+    }
+    assertAll(
+        () -> assertEquals(1, bulkhead.metrics().rejected()),
+        () -> assertEquals(2, bulkhead.metrics().completed()),
+        () -> assertTrue(bulkhead.metrics().waitTime() > 0)
+    );
+  }
+
+  @Test
+  public void aLoopingCallerDoesNotStarveAQueuedCaller() throws InterruptedException {
+    var bulkhead = new Bulkheads().bulkhead("api", 1, 10);
+    var looper = Thread.ofVirtual().start(() -> {
+      try {
+        for (;;) {
+          bulkhead.invoke(() -> {
+            Thread.sleep(1);
+            return null;
+          });
+        }
+      } catch (InterruptedException e) {
+        // stop
+      }
+    });
+    var queued = Thread.ofVirtual().start(() -> {
+      try {
+        bulkhead.invoke(() -> null);
+      } catch (InterruptedException e) {
+        throw new AssertionError(e);
+      }
+    });
+    var completed = queued.join(Duration.ofSeconds(1));
+    looper.interrupt();
+    looper.join();
+    assertTrue(completed);
+  }
+
+  @Test
+  public void isolation() throws InterruptedException {
+    var bulkheads = new Bulkheads();
+    var slow = bulkheads.bulkhead("slow-api", 1, 100);
+    var fast = bulkheads.bulkhead("fast-api", 1, 100);
+    var release = new CountDownLatch(1);
+    try(var scope = new StructuredScopeShutdownOnFailure<RuntimeException>()) {
+      for (var i = 0; i < 10; i++) {
+        scope.fork(slow, () -> {
+          release.await();
+          return null;
+        });
+      }
+      var done = new CountDownLatch(10);
+      for (var i = 0; i < 10; i++) {
+        scope.fork(fast, () -> {
+          done.countDown();
+          return null;
+        });
+      }
+      assertTrue(done.await(1, TimeUnit.SECONDS));
+      assertAll(
+          () -> assertEquals(1, bulkheads.metrics().get("slow-api").inFlight()),
+          () -> assertEquals(9, bulkheads.metrics().get("slow-api").queued()),
+          () -> assertEquals(10, bulkheads.metrics().get("fast-api").completed())
+      );
+      release.countDown();
+      scope.joinAll();
+    }
+  }
+
+  @Test
+  public void shutdownOnSuccess() throws InterruptedException {
+    var bulkhead = new Bulkheads().bulkhead("api", 1, 10);
+    try(var scope = new StructuredScopeShutdownOnSuccess<Integer, RuntimeException>()) {
+      IntStream.range(0, 5).forEach(i -> scope.fork(bulkhead, () -> 42));
+      assertEquals(42, scope.joinAll());
+    }
+  }
+
+  @Test
+  public void preconditions() {
+    var bulkheads = new Bulkheads();
+    assertAll(
+        () -> assertThrows(NullPointerException.class, () -> bulkheads.bulkhead(null, 1, 1)),
+        () -> assertThrows(IllegalArgumentException.class, () -> bulkheads.bulkhead("api", 0, 1)),
+        () -> assertThrows(IllegalArgumentException.class, () -> bulkheads.bulkhead("api", 1, -1)),
+        () -> assertThrows(NullPointerException.class, () -> bulkheads.bulkhead("api", 1, 1).invoke(null))
+    );
+  }
+}
@@ -0,0 +1,121 @@
+package fr.umlv.loom.structured;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+// Simulates a fan-out to a dependency that goes through a brownout.
+// Every 10ms, a scope forks 20 calls to a local stub, the stub answers in 5ms when it has less than
+// 'capacity' calls in flight, above the capacity the stub thrashes, the latency grows with the square
+// of the number of calls in flight,
+// and a call that takes more than 100ms fails with a TimeoutException.
+// The capacity is 50 during 2s (healthy), 5 during 2s (brownout) then 50 during 2s (recovery).
+// mvn test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+// java --enable-preview -cp target/test-classes:target/classes:$(cat target/cp.txt) fr.umlv.loom.structured.ConcurrencyLimiterSimulation
+public class ConcurrencyLimiterSimulation {
+  private static final long BASE_LATENCY = Duration.ofMillis(5).toNanos();
+  private static final long TIMEOUT = Duration.ofMillis(100).toNanos();
+  private static final long FAN_OUT_INTERVAL = Duration.ofMillis(10).toNanos();
+  private static final int FAN_OUT = 20;
+  private static final long PHASE = Duration.ofSeconds(2).toNanos();
+  private static final String[] PHASE_NAMES = { "healthy", "brownout", "recovery" };
+  private static final int[] CAPACITIES = { 50, 5, 50 };
+
+  // a local dependency that injects latency when it is overloaded
+  private static final class LatencyStub {
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private volatile int capacity;
+
+    int call() throws TimeoutException, InterruptedException {
+      var concurrency = inFlight.incrementAndGet();
+      try {
+        var overload = Math.max(1, concurrency / (double) capacity);
+        var latency = BASE_LATENCY * overload * overload;
+        if (latency > TIMEOUT) {
+          Thread.sleep(Duration.ofNanos(TIMEOUT));
+          throw new TimeoutException();
+        }
+        Thread.sleep(Duration.ofNanos((long) latency));
+        return 1;
+      } finally {
+        inFlight.decrementAndGet();
+      }
+    }
+  }
+
+  private static final class PhaseStats {
+    private final LongAdder successes = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder latency = new LongAdder();
+    private int limit;
+  }
+
+  private static void simulate(String name, Supplier<ConcurrencyLimiter> limiterSupplier) throws InterruptedException {
+    var limiter = limiterSupplier.get();
+    var stub = new LatencyStub();
+    var stats = new PhaseStats[PHASE_NAMES.length];
+    for (var i = 0; i < stats.length; i++) {
+      stats[i] = new PhaseStats();
+    }
+    var start = System.nanoTime();
+    var fanOuts = new ArrayList<Thread>();
+    for (var phase = 0; phase < PHASE_NAMES.length; phase++) {
+      stub.capacity = CAPACITIES[phase];
+      var phaseStats = stats[phase];
+      var phaseEnd = start + (phase + 1) * PHASE;
+      for (var next = System.nanoTime(); next - phaseEnd < 0; next += FAN_OUT_INTERVAL) {
+        fanOuts.add(Thread.ofVirtual().start(() -> {
+          try (var scope = new StructuredScopeAsStream<Integer, TimeoutException>(limiter)) {
+            var forkTime = System.nanoTime();
+            for (var i = 0; i < FAN_OUT; i++) {
+              scope.fork(stub::call);
+            }
+            scope.joinAll(stream -> {
+              stream.forEach(result -> {
+                switch (result.state()) {
+                  case SUCCESS -> phaseStats.successes.increment();
+                  case FAILED -> phaseStats.timeouts.increment();
+                }
+              });
+              return null;
+            });
+            phaseStats.latency.add(System.nanoTime() - forkTime);
+          } catch (InterruptedException e) {
+            throw new AssertionError(e);
+          }
+        }));
+        LockSupport.parkNanos(next + FAN_OUT_INTERVAL - System.nanoTime());
+      }
+      phaseStats.limit = limiter == null ? -1 : limiter.limit();
+    }
+    for (var fanOut : fanOuts) {
+      fanOut.join();
+    }
+    var fanOutsPerPhase = PHASE / FAN_OUT_INTERVAL;
+    for (var phase = 0; phase < PHASE_NAMES.length; phase++) {
+      var phaseStats = stats[phase];
+      var calls = phaseStats.successes.sum() + phaseStats.timeouts.sum();
+      System.out.printf("%-10s %-8s goodput %5d/s  success %5.1f%%  timeouts %5d  fan-out latency %6.1f ms  limit %s%n",
+          name, PHASE_NAMES[phase],
+          phaseStats.successes.sum() * Duration.ofSeconds(1).toNanos() / PHASE,
+          100.0 * phaseStats.successes.sum() / calls,
+          phaseStats.timeouts.sum(),
+          phaseStats.latency.sum() / (double) fanOutsPerPhase / 1_000_000,
+          phaseStats.limit == -1 ? "none" : phaseStats.limit);
+    }
+  }
+
+  public static void main(String[] args) throws InterruptedException {
+    for (var round = 0; round < 2; round++) {  // first round is warmup
+      System.out.println("round " + round);
+      simulate("unlimited", () -> null);
+      simulate("fixed 50", () -> ConcurrencyLimiter.aimd(50, 50, 50, Duration.ofMillis(100)));
+      simulate("aimd", () -> ConcurrencyLimiter.aimd(20, 1, 200, Duration.ofMillis(50)));
+      simulate("vegas", () -> ConcurrencyLimiter.vegas(20, 1, 200));
+    }
+  }
+}
@@ -0,0 +1,153 @@
+package fr.umlv.loom.structured;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ConcurrencyLimiterTest {
+  private static void fail(ConcurrencyLimiter limiter) throws InterruptedException {
+    try {
+      limiter.invoke(() -> { throw new IOException(); });
+    } catch (IOException e) {
+      // expected
+    }
+  }
+
+  @Test
+  public void aimdShrinksOnFailures() throws InterruptedException {
+    var limiter = ConcurrencyLimiter.aimd(10, 1, 100, Duration.ofSeconds(1));
+    for (var i = 0; i < 5; i++) {
+      fail(limiter);
+    }
+    assertAll(
+        () -> assertEquals(5, limiter.limit()),
+        () -> assertEquals(0, limiter.inFlight())
+    );
+  }
+
+  @Test
+  public void aimdShrinksOnTimeouts() throws InterruptedException {
+    var limiter = ConcurrencyLimiter.aimd(10, 1, 100, Duration.ofMillis(1));
+    limiter.invoke(() -> {
+      Thread.sleep(10);
+      return null;
+    });
+    assertEquals(9, limiter.limit());
+  }
+
+  @Test
+  public void aimdGrowsOnlyWhenTheLimitIsUsed() throws InterruptedException {
+    var limiter = ConcurrencyLimiter.aimd(2, 1, 100, Duration.ofSeconds(1));
+    for (var i = 0; i < 10; i++) {
+      limiter.invoke(() -> 42);
+    }
+    assertEquals(3, limiter.limit());
+  }
+
+  @Test
+  public void aimdMinAndMaxLimits() throws InterruptedException {
+    var limiter = ConcurrencyLimiter.aimd(2, 2, 2, Duration.ofSeconds(1));
+    fail(limiter);
+    assertEquals(2, limiter.limit());
+    limiter.invoke(() -> 42);
+    assertEquals(2, limiter.limit());
+  }
+
+  @Test
+  public void vegasShrinksWhenTheLatencyIncreases() throws InterruptedException {
+    var limiter = ConcurrencyLimiter.vegas(10, 1, 100);
+    try(var scope = new StructuredScopeAsStream<Integer, RuntimeException>(limiter)) {
+      for (var i = 0; i < 10; i++) {
+        scope.fork(() -> {
+          Thread.sleep(1);
+          return 1;
+        });
+      }
+      scope.joinAll();
+    }
+    var limit = limiter.limit();
+    try(var scope = new StructuredScopeAsStream<Integer, RuntimeException>(limiter)) {
+      for (var i = 0; i < 10; i++) {
+        scope.fork(() -> {
+          Thread.sleep(50);
+          return 1;
+        });
+      }
+      scope.joinAll();
+    }
+    assertTrue(limiter.limit() < limit, limiter.limit() + " " + limit);
+  }
+
+  @Test
+  public void vegasShrinksOnFailures() throws InterruptedException {
+    var limiter = ConcurrencyLimiter.vegas(10, 1, 100);
+    fail(limiter);
+    assertEquals(9, limiter.limit());
+  }
+
+  @Test
+  public void interruptedComputationsAreIgnored() throws InterruptedException {
+    var limiter = ConcurrencyLimiter.aimd(10, 1, 100, Duration.ofSeconds(1));
+    assertThrows(InterruptedException.class, () -> limiter.invoke(() -> { throw new InterruptedException(); }));
+    assertEquals(10, limiter.limit());
+  }
+
+  @Test
+  public void asStreamRespectsTheLimit() throws InterruptedException {
+    var limiter = ConcurrencyLimiter.aimd(3, 3, 3, Duration.ofSeconds(1));
+    var running = new AtomicInteger();
+    var maxRunning = new AtomicInteger();
+    try(var scope = new StructuredScopeAsStream<Integer, RuntimeException>(limiter)) {
+      for (var i = 0; i < 20; i++) {
+        var value = i;
+        scope.fork(() -> {
+          maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+          Thread.sleep(1);
+          running.decrementAndGet();
+          return value;
+        });
+      }
+      int sum = scope.joinAll(stream -> stream.mapToInt(StructuredScopeAsStream.Result::result).sum());
+      assertEquals(190, sum);
+    }
+    assertAll(
+        () -> assertEquals(3, maxRunning.get()),
+        () -> assertEquals(0, limiter.inFlight())
+    );
+  }
+
+  @Test
+  public void shutdownOnFailureRespectsTheLimit() throws InterruptedException {
+    var limiter = ConcurrencyLimiter.vegas(2, 1, 2);
+    var running = new AtomicInteger();
+    var maxRunning = new AtomicInteger();
+    try(var scope = new StructuredScopeShutdownOnFailure<RuntimeException>(limiter)) {
+      var suppliers = IntStream.range(0, 10).mapToObj(i -> scope.fork(() -> {
+        maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+        Thread.sleep(1);
+        running.decrementAndGet();
+        return i;
+      })).toList();
+      scope.joinAll();
+      assertEquals(45, suppliers.stream().mapToInt(supplier -> supplier.get()).sum());
+    }
+    assertTrue(maxRunning.get() <= 2);
+  }
+
+  @Test
+  public void preconditions() {
+    assertAll(
+        () -> assertThrows(IllegalArgumentException.class, () -> ConcurrencyLimiter.vegas(1, 0, 10)),
+        () -> assertThrows(IllegalArgumentException.class, () -> ConcurrencyLimiter.vegas(1, 2, 1)),
+        () -> assertThrows(IllegalArgumentException.class, () -> ConcurrencyLimiter.vegas(20, 1, 10)),
+        () -> assertThrows(IllegalArgumentException.class, () -> ConcurrencyLimiter.aimd(1, 1, 10, Duration.ZERO)),
+        () -> assertThrows(NullPointerException.class, () -> ConcurrencyLimiter.aimd(1, 1, 10, null)),
+        () -> assertThrows(NullPointerException.class, () -> ConcurrencyLimiter.vegas(1, 1, 10).invoke(null))
+    );
+  }
+}
@@ -0,0 +1,58 @@
+package fr.umlv.loom.structured;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+// time to fork then consume as a stream the results of 10 to 100_000 subtasks that return immediately,
+// the owner thread consumes the results while the subtasks complete,
+// either all forked upfront or forked lazily with at most 64 in flight, in completion order or in fork order
+// mvn test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+// java --enable-preview -cp target/test-classes:target/classes:$(cat target/cp.txt) org.openjdk.jmh.Main StructuredScopeAsStreamBenchMark
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(value = 1, jvmArgsAppend = "--enable-preview")
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class StructuredScopeAsStreamBenchMark {
+  @Param({"10", "1000", "100000"})
+  private int forks;
+
+  @Benchmark
+  public long fork_and_sum_results() throws InterruptedException {
+    try(var scope = new StructuredScopeAsStream<Integer, RuntimeException>()) {
+      for (var i = 0; i < forks; i++) {
+        var value = i;
+        scope.fork(() -> value);
+      }
+      return scope.joinAll(stream -> stream.mapToLong(result -> result.result()).sum());
+    }
+  }
+
+  @Benchmark
+  public long fork_all_and_sum_results() throws InterruptedException {
+    try(var scope = new StructuredScopeAsStream<Integer, RuntimeException>()) {
+      scope.forkAll(IntStream.range(0, forks).mapToObj(i -> () -> i), 64);
+      return scope.joinAll(stream -> stream.mapToLong(result -> result.result()).sum());
+    }
+  }
+
+  @Benchmark
+  public long ordered_fork_all_and_sum_results() throws InterruptedException {
+    try(var scope = StructuredScopeAsStream.<Integer, RuntimeException>ordered(64)) {
+      scope.forkAll(IntStream.range(0, forks).mapToObj(i -> () -> i), 64);
+      return scope.joinAll(stream -> stream.mapToLong(result -> result.result()).sum());
+    }
+  }
+}
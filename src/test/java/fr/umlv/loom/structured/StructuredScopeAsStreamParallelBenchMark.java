@@ -0,0 +1,55 @@
+package fr.umlv.loom.structured;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+// time to post-process the results of 100_000 subtasks with a CPU intensive function (about 2 us per result),
+// with a sequential or a parallel stream of results
+// mvn test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+// java --enable-preview -cp target/test-classes:target/classes:$(cat target/cp.txt) org.openjdk.jmh.Main StructuredScopeAsStreamParallelBenchMark
+@Warmup(iterations = 3, time = 2, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 2, timeUnit = TimeUnit.SECONDS)
+@Fork(value = 1, jvmArgsAppend = "--enable-preview")
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class StructuredScopeAsStreamParallelBenchMark {
+  private static final int FORKS = 100_000;
+
+  @Param({"sequential", "parallel"})
+  private String stream;
+
+  private static int postProcess(int value) {
+    var hash = value;
+    for (var i = 0; i < 2_000; i++) {
+      hash = hash * 31 + i;
+    }
+    return hash;
+  }
+
+  @Benchmark
+  public int post_process_results() throws InterruptedException {
+    var parallel = stream.equals("parallel");
+    try(var scope = new StructuredScopeAsStream<Integer, RuntimeException>()) {
+      for (var i = 0; i < FORKS; i++) {
+        var value = i;
+        scope.fork(() -> value);
+      }
+      var result = scope.joinAll(stream -> (parallel? stream.parallel(): stream)
+          .map(r -> r.mapResult(StructuredScopeAsStreamParallelBenchMark::postProcess))
+          .collect(StructuredScopeAsStream.Result.toResult(Collectors.summingInt(x -> x))));
+      return result.result();
+    }
+  }
+}
@@ -6,8 +6,21 @@ import org.junit.jupiter.api.Test;
 import java.io.IOException;
 import java.io.UncheckedIOException;
 import java.net.UnknownHostException;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collector;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
 import static java.util.stream.Collectors.partitioningBy;
@@ -390,4 +403,577 @@ public class StructuredScopeAsStreamTest {
       }
     }
   }
-}
\ No newline at end of file
+
+  @Test
+  public void manyTasksCompletingConcurrently() throws InterruptedException {
+    try(var scope = new StructuredScopeAsStream<Integer, RuntimeException>()) {
+      for(var i = 0; i < 10_000; i++) {
+        var id = i;
+        scope.fork(() -> id);
+      }
+      var list = scope.joinAll(stream -> stream.map(Result::result).sorted().toList());
+      assertEquals(IntStream.range(0, 10_000).boxed().toList(), list);
+    }
+  }
+
+  @Test
+  public void resultsInCompletionOrder() throws InterruptedException {
+    try(var scope = new StructuredScopeAsStream<Integer, RuntimeException>()) {
+      for(var i = 0; i < 5; i++) {
+        var id = i;
+        scope.fork(() -> {
+          Thread.sleep(50 + id * 50);
+          return id;
+        });
+      }
+      var list = scope.joinAll(stream -> stream.map(Result::result).toList());
+      assertEquals(List.of(0, 1, 2, 3, 4), list);
+    }
+  }
+
+  @Test
+  public void interruptedWhileWaitingForAResult() throws InterruptedException {
+    try(var scope = new StructuredScopeAsStream<Integer, RuntimeException>()) {
+      scope.fork(() -> {
+        Thread.sleep(200);
+        return 1;
+      });
+      Thread.currentThread().interrupt();
+      assertThrows(InterruptedException.class, () -> scope.joinAll(Stream::count));
+      assertFalse(Thread.currentThread().isInterrupted());
+      scope.joinAll();
+    }
+  }
+
+  @Test
+  public void forkAllSum() throws InterruptedException {
+    try(var scope = new StructuredScopeAsStream<Integer, RuntimeException>()) {
+      scope.forkAll(IntStream.range(0, 1_000).mapToObj(i -> () -> i), 10);
+      var sum = scope.joinAll(stream -> stream.mapToInt(Result::result).sum());
+      assertEquals(499_500, sum);
+    }
+  }
+
+  @Test
+  public void forkAllKeepsAtMostMaxInFlightComputations() throws InterruptedException {
+    try(var scope = new StructuredScopeAsStream<Integer, RuntimeException>()) {
+      var running = new AtomicInteger();
+      var maxRunning = new AtomicInteger();
+      scope.forkAll(IntStream.range(0, 200).mapToObj(i -> () -> {
+        maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+        Thread.sleep(1);
+        running.decrementAndGet();
+        return i;
+      }), 8);
+      var count = scope.joinAll(Stream::count);
+      assertAll(
+          () -> assertEquals(200, count),
+          () -> assertTrue(maxRunning.get() <= 8, "" + maxRunning.get())
+      );
+    }
+  }
+
+  @Test
+  public void forkAllIsLazy() throws InterruptedException {
+    try(var scope = new StructuredScopeAsStream<Integer, RuntimeException>()) {
+      var pulled = new AtomicInteger();
+      var closed = new AtomicBoolean();
+      scope.forkAll(IntStream.range(0, 1_000_000)
+          .<Invokable<Integer, RuntimeException>>mapToObj(i -> () -> i)
+          .peek(__ -> pulled.incrementAndGet())
+          .onClose(() -> closed.set(true)), 4);
+      assertEquals(4, pulled.get());
+      var list = scope.joinAll(stream -> stream.limit(10).toList());
+      assertAll(
+          () -> assertEquals(10, list.size()),
+          () -> assertTrue(pulled.get() <= 10 + 4, "" + pulled.get()),
+          () -> assertTrue(closed.get())
+      );
+    }
+  }
+
+  @Test
+  public void forkAllWithFork() throws InterruptedException {
+    try(var scope = new StructuredScopeAsStream<Integer, RuntimeException>()) {
+      var task = scope.fork(() -> 1_000);
+      scope.forkAll(Stream.of(() -> 1, () -> 2, () -> 3), 2);
+      var sum = scope.joinAll(stream -> stream.mapToInt(Result::result).sum());
+      assertAll(
+          () -> assertEquals(1_006, sum),
+          () -> assertEquals(1_000, task.get())
+      );
+    }
+  }
+
+  @Test
+  public void forkAllThenJoinAllStartsAllComputations() throws InterruptedException {
+    try(var scope = new StructuredScopeAsStream<Integer, RuntimeException>()) {
+      var counter = new AtomicInteger();
+      scope.forkAll(IntStream.range(0, 100).mapToObj(i -> () -> counter.incrementAndGet()), 3);
+      scope.joinAll();
+      assertEquals(100, counter.get());
+    }
+  }
+
+  @Test
+  public void forkAllFailures() throws InterruptedException {
+    try(var scope = new StructuredScopeAsStream<Integer, IOException>()) {
+      scope.forkAll(IntStream.range(0, 10).mapToObj(i -> () -> {
+        if (i % 2 == 0) {
+          throw new IOException("oops " + i);
+        }
+        return i;
+      }), 3);
+      var partition = scope.joinAll(stream -> stream.collect(partitioningBy(Result::isSuccess, Collectors.counting())));
+      assertEquals(Map.of(true, 5L, false, 5L), partition);
+    }
+  }
+
+  @Test
+  public void forkAllPreconditions() throws InterruptedException {
+    try(var scope = new StructuredScopeAsStream<Integer, RuntimeException>()) {
+      assertAll(
+          () -> assertThrows(NullPointerException.class, () -> scope.forkAll(null, 1)),
+          () -> assertThrows(IllegalArgumentException.class, () -> scope.forkAll(Stream.of(() -> 1), 0))
+      );
+      scope.forkAll(Stream.of(() -> 1, () -> 2), 1);
+      assertThrows(IllegalStateException.class, () -> scope.forkAll(Stream.of(() -> 3), 1));
+      scope.joinAll();
+    }
+  }
+
+  @Test
+  public void orderedResultsInForkOrder() throws InterruptedException {
+    try(var scope = StructuredScopeAsStream.<Integer, RuntimeException>ordered(10)) {
+      for(var i = 0; i < 5; i++) {
+        var id = i;
+        scope.fork(() -> {
+          Thread.sleep(250 - id * 50);
+          return id;
+        });
+      }
+      var list = scope.joinAll(stream -> stream.map(Result::result).toList());
+      assertEquals(List.of(0, 1, 2, 3, 4), list);
+    }
+  }
+
+  @Test
+  public void orderedForkAllWithASmallWindow() throws InterruptedException {
+    try(var scope = StructuredScopeAsStream.<Integer, RuntimeException>ordered(4)) {
+      var random = new Random(0);
+      var delays = IntStream.range(0, 100).map(__ -> random.nextInt(3)).toArray();
+      var running = new AtomicInteger();
+      var maxRunning = new AtomicInteger();
+      scope.forkAll(IntStream.range(0, 100).mapToObj(i -> () -> {
+        maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+        Thread.sleep(delays[i]);
+        running.decrementAndGet();
+        return i;
+      }), 1_000);
+      var list = scope.joinAll(stream -> stream.map(Result::result).toList());
+      assertAll(
+          () -> assertEquals(IntStream.range(0, 100).boxed().toList(), list),
+          () -> assertTrue(maxRunning.get() <= 4, "" + maxRunning.get())
+      );
+    }
+  }
+
+  @Test
+  public void orderedFailuresInForkOrder() throws InterruptedException {
+    try(var scope = StructuredScopeAsStream.<Integer, IOException>ordered(8)) {
+      scope.forkAll(IntStream.range(0, 20).mapToObj(i -> () -> {
+        Thread.sleep(20 - i);
+        if (i % 3 == 0) {
+          throw new IOException("oops " + i);
+        }
+        return i;
+      }), 8);
+      var list = scope.joinAll(stream -> stream.map(Result::toString).toList());
+      var expected = IntStream.range(0, 20)
+          .mapToObj(i -> i % 3 == 0? "Failed(java.io.IOException: oops " + i + ")": "Success(" + i + ")")
+          .toList();
+      assertEquals(expected, list);
+    }
+  }
+
+  @Test
+  public void orderedShortCircuit() throws InterruptedException {
+    try(var scope = StructuredScopeAsStream.<Integer, RuntimeException>ordered(4)) {
+      var pulled = new AtomicInteger();
+      scope.forkAll(IntStream.range(0, 1_000_000)
+          .<Invokable<Integer, RuntimeException>>mapToObj(i -> () -> i)
+          .peek(__ -> pulled.incrementAndGet()), 16);
+      var list = scope.joinAll(stream -> stream.map(Result::result).limit(10).toList());
+      assertAll(
+          () -> assertEquals(IntStream.range(0, 10).boxed().toList(), list),
+          () -> assertTrue(pulled.get() <= 10 + 4, "" + pulled.get())
+      );
+    }
+  }
+
+  @Test
+  public void orderedForkWhenTheWindowIsFull() throws InterruptedException {
+    try(var scope = StructuredScopeAsStream.<Integer, RuntimeException>ordered(2)) {
+      scope.fork(() -> 1);
+      scope.fork(() -> 2);
+      assertThrows(IllegalStateException.class, () -> scope.fork(() -> 3));
+      scope.joinAll();
+    }
+  }
+
+  @Test
+  public void orderedForkFromAnotherThread() throws InterruptedException {
+    try(var scope = StructuredScopeAsStream.<Integer, RuntimeException>ordered(2)) {
+      var error = new Throwable[1];
+      var thread = Thread.ofVirtual().start(() -> {
+        try {
+          scope.fork(() -> 1);
+        } catch (Throwable e) {
+          error[0] = e;
+        }
+      });
+      thread.join();
+      assertInstanceOf(WrongThreadException.class, error[0]);
+      scope.joinAll();
+    }
+  }
+
+  @Test
+  public void orderedPreconditions() {
+    assertAll(
+        () -> assertThrows(IllegalArgumentException.class, () -> StructuredScopeAsStream.ordered(0)),
+        () -> assertThrows(IllegalArgumentException.class, () -> StructuredScopeAsStream.ordered(-1, null))
+    );
+  }
+
+  @Test
+  public void parallelStreamSum() throws InterruptedException {
+    try(var scope = new StructuredScopeAsStream<Integer, RuntimeException>()) {
+      for(var i = 0; i < 10_000; i++) {
+        var id = i;
+        scope.fork(() -> id);
+      }
+      var threads = ConcurrentHashMap.<Thread>newKeySet();
+      var sum = scope.joinAll(stream -> stream.parallel()
+          .peek(__ -> threads.add(Thread.currentThread()))
+          .mapToLong(Result::result)
+          .sum());
+      assertAll(
+          () -> assertEquals(49_995_000L, sum),
+          () -> assertFalse(threads.isEmpty())
+      );
+    }
+  }
+
+  @Test
+  public void parallelStreamOrdered() throws InterruptedException {
+    try(var scope = StructuredScopeAsStream.<Integer, RuntimeException>ordered(10_000)) {
+      for(var i = 0; i < 5_000; i++) {
+        var id = i;
+        scope.fork(() -> id);
+      }
+      var list = scope.joinAll(stream -> stream.parallel().map(Result::result).toList());
+      assertEquals(IntStream.range(0, 5_000).boxed().toList(), list);
+    }
+  }
+
+  @Test
+  public void parallelStreamToResult() throws InterruptedException {
+    try(var scope = new StructuredScopeAsStream<Integer, IOException>()) {
+      for(var i = 0; i < 5_000; i++) {
+        var id = i;
+        scope.fork(() -> {
+          if (id % 10 == 0) {
+            throw new IOException("oops " + id);
+          }
+          return id;
+        });
+      }
+      var result = scope.joinAll(stream -> stream.parallel().collect(Result.toResult(Collectors.toSet())));
+      var expected = IntStream.range(0, 5_000).filter(i -> i % 10 != 0).boxed().collect(Collectors.toSet());
+      assertEquals(expected, result.result());
+    }
+  }
+
+  @Test
+  public void parallelStreamToResultAllFailures() throws InterruptedException {
+    try(var scope = new StructuredScopeAsStream<Integer, IOException>()) {
+      for(var i = 0; i < 3_000; i++) {
+        var id = i;
+        scope.fork(() -> {
+          throw new IOException("oops " + id);
+        });
+      }
+      var result = scope.joinAll(stream -> stream.parallel().collect(Result.toResult(Collectors.toList())));
+      assertAll(
+          () -> assertTrue(result.isFailed()),
+          () -> assertEquals(2_999, result.failure().getSuppressed().length)
+      );
+    }
+  }
+
+  @Test
+  public void toResultCombiner() throws InterruptedException {
+    try(var scope = StructuredScopeAsStream.<Integer, IOException>ordered(3)) {
+      scope.fork(() -> { throw new IOException("oops"); });
+      scope.fork(() -> 2);
+      scope.fork(() -> 3);
+      var results = scope.joinAll(Stream::toList);
+      Collector<Result<Integer, IOException>, ?, Result<List<Integer>, IOException>> collector =
+          Result.toResult(Collectors.toList());
+      @SuppressWarnings("unchecked")
+      var downcast = (Collector<Result<Integer, IOException>, Object, Result<List<Integer>, IOException>>) collector;
+      var boxes = results.stream()
+          .map(result -> {
+            var box = downcast.supplier().get();
+            downcast.accumulator().accept(box, result);
+            return box;
+          })
+          .toList();
+      var combiner = downcast.combiner();
+      var box = combiner.apply(
+          combiner.apply(boxes.get(0), downcast.supplier().get()),
+          combiner.apply(boxes.get(1), boxes.get(2)));
+      assertEquals(List.of(2, 3), downcast.finisher().apply(box).result());
+    }
+  }
+
+  @Test
+  public void parallelStreamReduceWithMerger() throws InterruptedException {
+    try(var scope = new StructuredScopeAsStream<Integer, RuntimeException>()) {
+      for(var i = 0; i < 5_000; i++) {
+        var id = i;
+        scope.fork(() -> id);
+      }
+      var result = scope.joinAll(stream -> stream.parallel().reduce(Result.merger(Integer::sum)));
+      assertEquals(12_497_500, result.orElseThrow().result());
+    }
+  }
+
+  @Test
+  public void parallelStreamWithSlowTasksDoesNotBlockTheForkJoinPool() throws Exception {
+    // the owner thread is the only thread of the pool, the parallel stream runs in the same pool,
+    // and the subtasks need the pool to complete
+    var pool = new ForkJoinPool(1);
+    try {
+      var future = pool.submit(() -> {
+        try(var scope = new StructuredScopeAsStream<Integer, RuntimeException>()) {
+          for(var i = 0; i < 20; i++) {
+            var id = i;
+            scope.fork(() -> {
+              Thread.sleep(20 + id * 5);
+              try {
+                return pool.submit(() -> id).get();
+              } catch (ExecutionException e) {
+                throw new AssertionError(e);
+              }
+            });
+          }
+          return scope.joinAll(stream -> stream.parallel().mapToInt(Result::result).sum());
+        }
+      });
+      assertEquals(190, future.get(20, TimeUnit.SECONDS));
+    } finally {
+      pool.shutdownNow();
+    }
+  }
+
+  @Test
+  public void parallelStreamConsumerInterrupted() throws InterruptedException {
+    var threads = ConcurrentHashMap.<Thread>newKeySet();
+    var pool = new ForkJoinPool(2, p -> {
+      var thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(p);
+      threads.add(thread);
+      return thread;
+    }, null, false);
+    try(var scope = new StructuredScopeAsStream<Integer, RuntimeException>()) {
+      var latch = new CountDownLatch(1);
+      scope.fork(() -> 1);
+      scope.fork(() -> {
+        latch.await(10, TimeUnit.SECONDS);
+        return 2;
+      });
+      // the results are consumed by the threads of the pool, interrupt them until the stream ends
+      assertThrows(InterruptedException.class, () -> scope.joinAll(stream -> {
+        var future = pool.submit(() -> stream.parallel().toList());
+        while (!future.isDone()) {
+          threads.forEach(Thread::interrupt);
+          try {
+            Thread.sleep(10);
+          } catch (InterruptedException e) {
+            throw new AssertionError(e);
+          }
+        }
+        return future.join();
+      }));
+      assertFalse(Thread.currentThread().isInterrupted());
+      latch.countDown();
+      scope.joinAll();
+    } finally {
+      pool.shutdownNow();
+    }
+  }
+
+  @Test
+  public void parallelStreamWithForkAll() throws InterruptedException {
+    try(var scope = new StructuredScopeAsStream<Integer, RuntimeException>()) {
+      scope.forkAll(IntStream.range(0, 1_000).mapToObj(i -> () -> i), 16);
+      var sum = scope.joinAll(stream -> stream.parallel().mapToInt(Result::result).sum());
+      assertEquals(499_500, sum);
+    }
+  }
+
+  @Test
+  public void deadlinePartialResults() throws InterruptedException {
+    try(var scope = new StructuredScopeAsStream<Integer, RuntimeException>()) {
+      for(var i = 0; i < 5; i++) {
+        var id = i;
+        scope.fork(() -> id);
+      }
+      for(var i = 0; i < 3; i++) {
+        scope.fork(() -> {
+          Thread.sleep(10_000);
+          return -1;
+        });
+      }
+      var start = System.nanoTime();
+      var partial = scope.joinAll(Instant.now().plusMillis(300), stream -> stream.map(Result::result).sorted().toList());
+      var elapsed = Duration.ofNanos(System.nanoTime() - start);
+      assertAll(
+          () -> assertEquals(List.of(0, 1, 2, 3, 4), partial.value()),
+          () -> assertEquals(3, partial.timedOut()),
+          () -> assertTrue(partial.isPartial()),
+          () -> assertTrue(elapsed.compareTo(Duration.ofSeconds(5)) < 0, "" + elapsed)
+      );
+    }
+  }
+
+  @Test
+  public void deadlineNotReached() throws InterruptedException {
+    try(var scope = new StructuredScopeAsStream<Integer, RuntimeException>()) {
+      for(var i = 0; i < 10; i++) {
+        var id = i;
+        scope.fork(() -> {
+          Thread.sleep(10);
+          return id;
+        });
+      }
+      var partial = scope.joinAll(Instant.now().plusSeconds(10), stream -> stream.mapToInt(Result::result).sum());
+      assertAll(
+          () -> assertEquals(45, partial.value()),
+          () -> assertEquals(0, partial.timedOut()),
+          () -> assertFalse(partial.isPartial())
+      );
+    }
+  }
+
+  @Test
+  public void deadlineInThePast() throws InterruptedException {
+    try(var scope = new StructuredScopeAsStream<Integer, RuntimeException>()) {
+      for(var i = 0; i < 10; i++) {
+        scope.fork(() -> {
+          Thread.sleep(10_000);
+          return 1;
+        });
+      }
+      var partial = scope.joinAll(Instant.now().minusSeconds(1), Stream::count);
+      assertAll(
+          () -> assertEquals(0L, partial.value()),
+          () -> assertEquals(10, partial.timedOut())
+      );
+    }
+  }
+
+  @Test
+  public void deadlineFarInThePast() throws InterruptedException {
+    try(var scope = new StructuredScopeAsStream<Integer, RuntimeException>()) {
+      scope.fork(() -> {
+        Thread.sleep(10_000);
+        return 1;
+      });
+      var start = System.nanoTime();
+      var partial = scope.joinAll(Instant.MIN, stream -> stream.map(Result::result).toList());
+      var elapsed = Duration.ofNanos(System.nanoTime() - start);
+      assertAll(
+          () -> assertEquals(new StructuredScopeAsStream.Partial<>(List.of(), 1), partial),
+          () -> assertTrue(elapsed.compareTo(Duration.ofSeconds(5)) < 0, "" + elapsed)
+      );
+    }
+  }
+
+  @Test
+  public void deadlineFarInTheFuture() throws InterruptedException {
+    try(var scope = new StructuredScopeAsStream<Integer, RuntimeException>()) {
+      scope.fork(() -> 42);
+      var partial = scope.joinAll(Instant.MAX, stream -> stream.map(Result::result).toList());
+      assertEquals(new StructuredScopeAsStream.Partial<>(List.of(42), 0), partial);
+    }
+  }
+
+  @Test
+  public void deadlineCancelsUnfinishedTasks() throws InterruptedException {
+    try(var scope = new StructuredScopeAsStream<Integer, RuntimeException>()) {
+      var started = new CountDownLatch(1);
+      var cancelled = new AtomicBoolean();
+      scope.fork(() -> {
+        started.countDown();
+        try {
+          Thread.sleep(10_000);
+        } catch (InterruptedException e) {
+          cancelled.set(true);
+          throw e;
+        }
+        return 1;
+      });
+      started.await();  // a subtask not yet started is not run, so it is never interrupted
+      var partial = scope.joinAll(Instant.now().plusMillis(100), Stream::count);
+      assertAll(
+          () -> assertEquals(1, partial.timedOut()),
+          () -> assertTrue(cancelled.get())
+      );
+    }
+  }
+
+  @Test
+  public void deadlineOrdered() throws InterruptedException {
+    try(var scope = StructuredScopeAsStream.<Integer, RuntimeException>ordered(10)) {
+      scope.fork(() -> 0);
+      scope.fork(() -> 1);
+      scope.fork(() -> {
+        Thread.sleep(10_000);
+        return 2;
+      });
+      scope.fork(() -> 3);
+      var partial = scope.joinAll(Instant.now().plusMillis(200), stream -> stream.map(Result::result).toList());
+      assertAll(
+          () -> assertEquals(List.of(0, 1), partial.value()),
+          () -> assertEquals(2, partial.timedOut())
+      );
+    }
+  }
+
+  @Test
+  public void deadlineWithForkAll() throws InterruptedException {
+    try(var scope = new StructuredScopeAsStream<Integer, RuntimeException>()) {
+      scope.forkAll(IntStream.range(0, 1_000_000).mapToObj(i -> () -> {
+        Thread.sleep(1);
+        return i;
+      }), 8);
+      var partial = scope.joinAll(Instant.now().plusMillis(200), Stream::count);
+      assertAll(
+          () -> assertTrue(partial.value() > 0),
+          () -> assertTrue(partial.timedOut() <= 8, "" + partial.timedOut())
+      );
+    }
+  }
+
+  @Test
+  public void deadlinePreconditions() {
+    try(var scope = new StructuredScopeAsStream<Integer, RuntimeException>()) {
+      assertAll(
+          () -> assertThrows(NullPointerException.class, () -> scope.joinAll(null, Stream::count)),
+          () -> assertThrows(NullPointerException.class, () -> scope.joinAll(Instant.now(), null))
+      );
+    }
+  }
+}